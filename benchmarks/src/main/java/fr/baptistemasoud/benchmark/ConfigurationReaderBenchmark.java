@@ -0,0 +1,50 @@
+package fr.baptistemasoud.benchmark;
+
+import fr.baptistemasoud.technical.ConfigurationReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse phase: reading a configuration file into map and adventurers configurations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+public class ConfigurationReaderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ConfigurationState {
+        String configuration;
+        Path file;
+
+        @Setup(Level.Trial)
+        public void setup(WorkloadState workloadState) throws IOException {
+            configuration = workloadState.workload.toConfiguration();
+            file = Files.createTempFile("carte-aux-tresors-benchmark", ".txt");
+            Files.writeString(file, configuration);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    public ConfigurationReader parse(ConfigurationState state) throws IOException {
+        return new ConfigurationReader(new BufferedReader(new StringReader(state.configuration)));
+    }
+
+    @Benchmark
+    public ConfigurationReader parseMappedFile(ConfigurationState state) throws IOException {
+        return new ConfigurationReader(state.file);
+    }
+}
@@ -0,0 +1,42 @@
+package fr.baptistemasoud.benchmark;
+
+import fr.baptistemasoud.functional.Game;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulation phase: playing all the adventurers movements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+public class GameBenchmark {
+
+    @State(Scope.Thread)
+    public static class GameState {
+        Game game;
+
+        // a game can only be played once, each invocation needs a fresh map and fresh adventurers
+        @Setup(Level.Invocation)
+        public void setup(WorkloadState workloadState) {
+            Workload workload = workloadState.workload;
+            game = new Game(workload.createMapBuilder().createMap(), workload.createAdventurers());
+        }
+    }
+
+    @Benchmark
+    public Game play(GameState state) {
+        state.game.play();
+        return state.game;
+    }
+
+    @Benchmark
+    public Game playParallel(GameState state) {
+        state.game.play(ForkJoinPool.commonPool());
+        return state.game;
+    }
+}
@@ -0,0 +1,57 @@
+package fr.baptistemasoud.benchmark;
+
+import fr.baptistemasoud.Main;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end run as done by the command line: parse, build, play and write, including file I/O.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+public class MainBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class FilesState {
+        Path directory;
+        String[] args;
+        PrintStream systemOut;
+
+        @Setup(Level.Trial)
+        public void setup(WorkloadState workloadState) throws IOException {
+            directory = Files.createTempDirectory("carte-aux-tresors-benchmark");
+            Path input = Files.writeString(directory.resolve("input.txt"), workloadState.workload.toConfiguration());
+            Path output = directory.resolve("output.txt");
+            args = new String[]{"--input", input.toString(), "--output", output.toString()};
+
+            // Main prints the beautiful map to the standard output, it is measured but not displayed
+            systemOut = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            System.setOut(systemOut);
+            try (var paths = Files.list(directory)) {
+                for (Path path : paths.toList()) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public void main(FilesState state) {
+        Main.main(state.args);
+    }
+}
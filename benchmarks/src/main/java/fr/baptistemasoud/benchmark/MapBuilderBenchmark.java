@@ -0,0 +1,28 @@
+package fr.baptistemasoud.benchmark;
+
+import fr.baptistemasoud.functional.Map;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Map build phase: placing mountains and treasures and creating the map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+public class MapBuilderBenchmark {
+
+    @Benchmark
+    public Map createMap(WorkloadState workloadState) {
+        return workloadState.workload.createMapBuilder().createMap();
+    }
+
+    @Benchmark
+    public Map createMapOnPool(WorkloadState workloadState) {
+        return workloadState.workload.createMapBuilder().createMap(ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,59 @@
+package fr.baptistemasoud.benchmark;
+
+import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.technical.MapGameWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write phase: printing the game details and the map of a played game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+public class MapGameWriterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class PlayedGameState {
+        Game game;
+        PrintStream stream;
+        WritableByteChannel channel;
+
+        @Setup(Level.Trial)
+        public void setup(WorkloadState workloadState) {
+            Workload workload = workloadState.workload;
+            game = new Game(workload.createMapBuilder().createMap(), workload.createAdventurers());
+            game.play();
+            stream = new PrintStream(OutputStream.nullOutputStream());
+            channel = Channels.newChannel(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public void printGameDetails(PlayedGameState state) {
+        MapGameWriter.printGameDetails(state.game, state.stream);
+    }
+
+    @Benchmark
+    public void printBeautifulMap(PlayedGameState state) {
+        MapGameWriter.printBeautifulMap(state.game.getMap(), state.stream);
+    }
+
+    @Benchmark
+    public void writeGameDetails(PlayedGameState state) throws IOException {
+        MapGameWriter.writeGameDetails(state.game, state.channel);
+    }
+
+    @Benchmark
+    public void writeBeautifulMap(PlayedGameState state) throws IOException {
+        MapGameWriter.writeBeautifulMap(state.game.getMap(), state.channel);
+    }
+}
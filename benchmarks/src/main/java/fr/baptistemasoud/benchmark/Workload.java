@@ -0,0 +1,149 @@
+package fr.baptistemasoud.benchmark;
+
+import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.Coordinates;
+import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.functional.Map;
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.util.Random;
+
+/**
+ * A randomly generated but reproducible game: a square map with mountains and treasures spread according to
+ * densities, and adventurers placed on distinct free cells with random movement programs.
+ */
+final class Workload {
+    private static final Adventurer.Orientation[] ORIENTATIONS = Adventurer.Orientation.values();
+    private static final Game.Movement[] MOVEMENTS = Game.Movement.values();
+
+    private final int size;
+    private final Map.Storage storage;
+    private final int[] mountainsXs;
+    private final int[] mountainsYs;
+    private final int[] treasuresXs;
+    private final int[] treasuresYs;
+    private final int[] treasuresAmounts;
+    private final int[] adventurersXs;
+    private final int[] adventurersYs;
+    private final Adventurer.Orientation[] adventurersOrientations;
+    private final Game.Movement[][] adventurersMovements;
+
+    /**
+     * @param size             the height and width of the map
+     * @param mountainDensity  the fraction of cells holding a mountain
+     * @param treasureDensity  the fraction of cells holding treasures
+     * @param adventurers      the amount of adventurers, capped to the amount of free cells
+     * @param movementsLength  the amount of movements of each adventurer
+     * @param storage          the storage of the created maps
+     * @param seed             the random seed, the same parameters and seed always give the same workload
+     */
+    Workload(int size, double mountainDensity, double treasureDensity, int adventurers, int movementsLength, Map.Storage storage, long seed) {
+        Random random = new Random(seed);
+        this.size = size;
+        this.storage = storage;
+
+        // 0 = plain, 1 = mountain, 2 = treasure, 3 = adventurer
+        byte[] cells = new byte[size * size];
+        int mountains = (int) (cells.length * mountainDensity);
+        int treasures = (int) (cells.length * treasureDensity);
+        adventurers = Math.min(adventurers, cells.length - mountains - treasures);
+
+        mountainsXs = new int[mountains];
+        mountainsYs = new int[mountains];
+        for (int i = 0; i < mountains; i++) {
+            int index = pickFreeCell(cells, random, (byte) 1);
+            mountainsXs[i] = index / size;
+            mountainsYs[i] = index % size;
+        }
+
+        treasuresXs = new int[treasures];
+        treasuresYs = new int[treasures];
+        treasuresAmounts = new int[treasures];
+        for (int i = 0; i < treasures; i++) {
+            int index = pickFreeCell(cells, random, (byte) 2);
+            treasuresXs[i] = index / size;
+            treasuresYs[i] = index % size;
+            treasuresAmounts[i] = 1 + random.nextInt(5);
+        }
+
+        adventurersXs = new int[adventurers];
+        adventurersYs = new int[adventurers];
+        adventurersOrientations = new Adventurer.Orientation[adventurers];
+        adventurersMovements = new Game.Movement[adventurers][];
+        for (int i = 0; i < adventurers; i++) {
+            int index = pickFreeCell(cells, random, (byte) 3);
+            adventurersXs[i] = index / size;
+            adventurersYs[i] = index % size;
+            adventurersOrientations[i] = ORIENTATIONS[random.nextInt(ORIENTATIONS.length)];
+            Game.Movement[] movements = new Game.Movement[movementsLength];
+            for (int j = 0; j < movementsLength; j++) {
+                movements[j] = MOVEMENTS[random.nextInt(MOVEMENTS.length)];
+            }
+            adventurersMovements[i] = movements;
+        }
+    }
+
+    private static int pickFreeCell(byte[] cells, Random random, byte content) {
+        int index;
+        do {
+            index = random.nextInt(cells.length);
+        } while (cells[index] != 0);
+        cells[index] = content;
+        return index;
+    }
+
+    /**
+     * @return the workload in the configuration file format read by ConfigurationReader
+     */
+    String toConfiguration() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("C - ").append(size).append(" - ").append(size).append('\n');
+        for (int i = 0; i < mountainsXs.length; i++) {
+            builder.append("M - ").append(mountainsYs[i]).append(" - ").append(mountainsXs[i]).append('\n');
+        }
+        for (int i = 0; i < treasuresXs.length; i++) {
+            builder.append("T - ").append(treasuresYs[i]).append(" - ").append(treasuresXs[i])
+                    .append(" - ").append(treasuresAmounts[i]).append('\n');
+        }
+        for (int i = 0; i < adventurersXs.length; i++) {
+            builder.append("A - Adventurer").append(i)
+                    .append(" - ").append(adventurersYs[i])
+                    .append(" - ").append(adventurersXs[i])
+                    .append(" - ").append(adventurersOrientations[i].toString().charAt(0))
+                    .append(" - ");
+            for (Game.Movement movement : adventurersMovements[i]) {
+                builder.append(switch (movement) {
+                    case FORWARD -> 'A';
+                    case ROTATE_LEFT -> 'G';
+                    case ROTATE_RIGHT -> 'D';
+                });
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return a MapBuilder holding all the mountains and treasures of the workload
+     */
+    Map.MapBuilder createMapBuilder() {
+        return new Map.MapBuilder(size, size)
+                .useStorage(storage)
+                .placeMountains(mountainsXs, mountainsYs)
+                .placeTreasures(treasuresXs, treasuresYs, treasuresAmounts);
+    }
+
+    /**
+     * @return new adventurers with their initial coordinates and movements, as expected by Game
+     */
+    Triple<Adventurer, Coordinates, Game.Movement[]>[] createAdventurers() {
+        Triple<Adventurer, Coordinates, Game.Movement[]>[] adventurers = new Triple[adventurersXs.length];
+        for (int i = 0; i < adventurers.length; i++) {
+            adventurers[i] = Triple.of(
+                    new Adventurer(adventurersOrientations[i], "Adventurer" + i),
+                    new Coordinates(adventurersXs[i], adventurersYs[i]),
+                    adventurersMovements[i]);
+        }
+        return adventurers;
+    }
+}
@@ -0,0 +1,37 @@
+package fr.baptistemasoud.benchmark;
+
+import fr.baptistemasoud.functional.Map;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Shared workload parameters of all benchmarks. Every combination of parameters gives a distinct, reproducible game.
+ */
+@State(Scope.Benchmark)
+public class WorkloadState {
+    private static final long SEED = 42;
+
+    @Param({"100", "1000"})
+    public int mapSize;
+
+    @Param({"0.1"})
+    public double mountainDensity;
+
+    @Param({"0.05"})
+    public double treasureDensity;
+
+    @Param({"10", "1000"})
+    public int adventurers;
+
+    @Param({"100", "10000"})
+    public int movementsLength;
+
+    @Param({"DENSE", "PRIMITIVE", "TILED"})
+    public Map.Storage storage;
+
+    Workload workload;
+
+    @Setup(Level.Trial)
+    public void generateWorkload() {
+        workload = new Workload(mapSize, mountainDensity, treasureDensity, adventurers, movementsLength, storage, SEED);
+    }
+}
@@ -0,0 +1,153 @@
+package fr.baptistemasoud;
+
+import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.functional.GameMetrics;
+import fr.baptistemasoud.functional.Map;
+import fr.baptistemasoud.technical.ConfigurationReader;
+import fr.baptistemasoud.technical.MapGameWriter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Play many games in one JVM: each game is read, played and written by its own virtual thread, at most parallelism
+ * games at a time. A failing game is reported and does not stop the others. Outputs are named after the file names of
+ * the inputs: when several inputs have the same file name, only the first one is played, the others are reported as
+ * failures instead of overwriting its output.
+ */
+final class Batch {
+    private final Path outputDirectory;
+    private final Map.Storage storage;
+    private final Semaphore permits;
+    // counters of all the games, null when not recorded
+    private final GameMetrics metrics;
+
+    /**
+     * @param outputDirectory directory where the details of each game are written, under the name of its input file
+     * @param storage         storage of the maps
+     * @param parallelism     the most games played at the same time, must be strictly positive
+     * @throws IllegalArgumentException if parallelism is not strictly positive
+     */
+    Batch(Path outputDirectory, Map.Storage storage, int parallelism) {
+        this(outputDirectory, storage, parallelism, null);
+    }
+
+    /**
+     * @param metrics counters shared by all the games, null to not record them
+     * @throws IllegalArgumentException if parallelism is not strictly positive
+     */
+    Batch(Path outputDirectory, Map.Storage storage, int parallelism, GameMetrics metrics) {
+        if (parallelism <= 0) throw new IllegalArgumentException(
+                "parallelism=%d is not strictly positive".formatted(parallelism)
+        );
+        this.outputDirectory = outputDirectory;
+        this.storage = storage;
+        this.permits = new Semaphore(parallelism);
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param input a directory, whose regular files are the games, or a file listing the paths of the games, one per line
+     * @return the games, sorted by path when listed from a directory
+     * @throws IOException if the input cannot be read
+     */
+    static List<Path> listInputs(Path input) throws IOException {
+        if (Files.isDirectory(input)) {
+            try (Stream<Path> files = Files.list(input)) {
+                return files.filter(Files::isRegularFile).sorted().toList();
+            }
+        }
+        try (Stream<String> lines = Files.lines(input)) {
+            return lines.map(String::strip).filter(line -> !line.isEmpty()).map(Path::of).toList();
+        }
+    }
+
+    /**
+     * Play all the games and wait for them
+     * @param inputs the configuration files of the games
+     * @return the failures, in the order of the inputs
+     * @throws IOException if the output directory cannot be created
+     */
+    List<Failure> run(List<Path> inputs) throws IOException {
+        Files.createDirectories(outputDirectory);
+
+        // input writing each output, checked before any game is played
+        java.util.Map<Path, Path> writers = new HashMap<>(inputs.size());
+        // null for an input whose output is written by an earlier input
+        List<Future<?>> games = new ArrayList<>(inputs.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path input : inputs) {
+                if (writers.putIfAbsent(input.getFileName(), input) != null) {
+                    games.add(null);
+                    continue;
+                }
+                games.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        playGame(input);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+        }
+
+        // the executor is closed once all games are done
+        List<Failure> failures = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            Path input = inputs.get(i);
+            if (games.get(i) == null) {
+                failures.add(new Failure(input, "Output %s is already written by %s".formatted(
+                        input.getFileName(), writers.get(input.getFileName()))));
+                continue;
+            }
+            try {
+                games.get(i).get();
+            } catch (ExecutionException e) {
+                failures.add(new Failure(input, describe(e.getCause())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for games", e);
+            }
+        }
+        return failures;
+    }
+
+    private void playGame(Path input) throws IOException {
+        ConfigurationReader configurationReader = new ConfigurationReader(input);
+        Map map = Main.createMapFromConfiguration(configurationReader.getMapConfiguration(), storage);
+        Game game = Game.withPackedMovements(map, Main.createAdventurersFromConfiguration(configurationReader.getAdventurersConfigurations()));
+        game.recordMetrics(metrics);
+        game.play();
+
+        Path output = outputDirectory.resolve(input.getFileName());
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            MapGameWriter.writeGameDetails(game, channel);
+        }
+    }
+
+    private static String describe(Throwable error) {
+        String message = error.getMessage();
+        return message == null ? error.getClass().getSimpleName() : "%s: %s".formatted(error.getClass().getSimpleName(), message);
+    }
+
+    /**
+     * @param input   the configuration file of the game
+     * @param message what went wrong
+     */
+    record Failure(Path input, String message) {
+    }
+}
@@ -1,120 +1,504 @@
 package fr.baptistemasoud;
 
 import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.Coordinates;
 import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.functional.GameMetrics;
 import fr.baptistemasoud.functional.Map;
+import fr.baptistemasoud.functional.PackedMovements;
 import fr.baptistemasoud.technical.AdventurerConfiguration;
+import fr.baptistemasoud.technical.BinaryConfiguration;
+import fr.baptistemasoud.technical.CheckpointFile;
 import fr.baptistemasoud.technical.ConfigurationReader;
+import fr.baptistemasoud.technical.EventLogWriter;
 import fr.baptistemasoud.technical.MapConfiguration;
 import fr.baptistemasoud.technical.MapGameWriter;
+import fr.baptistemasoud.technical.MovementFiles;
+import fr.baptistemasoud.technical.PhaseTimings;
+import fr.baptistemasoud.technical.RequestMetrics;
+import fr.baptistemasoud.technical.exception.ConfigurationFormatException;
 import org.apache.commons.cli.*;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
-import java.awt.*;
-import java.io.*;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 100_000;
+    private static final int SERVER_QUEUE_CAPACITY = 1024;
+    private static final int SERVER_WARM_UP_GAMES = 20_000;
+    private static final byte[] SERVER_WARM_UP_CONFIGURATION = """
+            C - 5 - 6
+            M - 1 - 0
+            M - 2 - 1
+            T - 0 - 3 - 2
+            T - 1 - 3 - 3
+            A - Lara - 1 - 1 - S - AADADAGGA
+            A - Indiana - 4 - 5 - N - AAGAADAAGAA
+            """.getBytes(StandardCharsets.UTF_8);
 
     public static void main(String[] args) {
         // Parse command line
         CommandLine commandLine = getCommandLine(args);
         if (commandLine == null) return;
+        Map.Storage storage = getStorage(commandLine.getOptionValue("storage", Map.Storage.DENSE.name()));
+        if (storage == null) return;
+
+        if (commandLine.hasOption("batch")) {
+            runBatch(commandLine, storage);
+            return;
+        }
+        if (commandLine.hasOption("serve")) {
+            runServer(commandLine, storage);
+            return;
+        }
+        if (commandLine.hasOption("convert")) {
+            convert(commandLine.getOptionValue("input"), commandLine.getOptionValue("output"));
+            return;
+        }
+
+        PhaseTimings timings = new PhaseTimings();
+        GameMetrics metrics = new GameMetrics();
+        // starting the platform MBean server loads hundreds of classes, short runs only pay for it when asked to
+        if (commandLine.hasOption("metrics")) {
+            registerMBean(timings, "PhaseTimings");
+            registerMBean(metrics, "GameMetrics");
+        }
 
         // Read configuration
-        ConfigurationReader configurationReader = getConfigurationReader(commandLine.getOptionValue("input"));
+        long phaseStart = System.nanoTime();
+        boolean streamMovements = commandLine.hasOption("stream-movements");
+        ConfigurationReader configurationReader = getConfigurationReader(commandLine.getOptionValue("input"), streamMovements);
         if (configurationReader == null) return;
+        phaseStart = timings.record(PhaseTimings.Phase.PARSE, phaseStart);
+
+        // Read how the map is printed
+        int[] view = getView(commandLine.getOptionValue("view"));
+        if (commandLine.hasOption("view") && view == null) return;
+        Integer zoom = getZoom(commandLine.getOptionValue("zoom", "1"));
+        if (zoom == null) return;
 
         // Create map and adventurers from configuration
-        Map map = createMapFromConfiguration(configurationReader.getMapConfiguration());
-        Triple<Adventurer, Point, Game.Movement[]>[] adventurersFromConfiguration = createAdventurersFromConfiguration(configurationReader.getAdventurersConfigurations());
+        Map.MapBuilder mapBuilder = createMapBuilderFromConfiguration(configurationReader.getMapConfiguration(), storage);
+        if (zoom > 1) mapBuilder.useSummaries(summaryBlockSize(zoom));
+        Map map = mapBuilder.createMap(ForkJoinPool.commonPool());
+        timings.record(PhaseTimings.Phase.MAP_BUILD, phaseStart);
 
         // Play the game
-        Game game = new Game(map, adventurersFromConfiguration);
-        game.play();
+        if (streamMovements && (commandLine.hasOption("checkpoint") || commandLine.hasOption("resume"))) {
+            System.err.println("Checkpoints are not supported with streamed movements");
+            return;
+        }
+        Game game = streamMovements
+                ? playStreamedGame(map, configurationReader.getAdventurersConfigurations(), commandLine.getOptionValue("events"), timings, metrics)
+                : playGame(map, configurationReader.getAdventurersConfigurations(), commandLine, timings, metrics);
+        if (game == null) return;
 
-        // Print the game details
-        PrintStream printStream = getPrintStream(commandLine.getOptionValue("output"));
-        if (printStream == null) return;
-        MapGameWriter.printGameDetails(game, printStream);
+        // Print the game details and the map
+        phaseStart = System.nanoTime();
+        if (writeGame(game, commandLine, view, zoom)) {
+            timings.record(PhaseTimings.Phase.WRITE, phaseStart);
+        }
+        if (commandLine.hasOption("metrics")) {
+            System.err.println("Phases: " + timings);
+            System.err.println("Game: " + metrics);
+        }
+    }
+
+    /**
+     * @return false if the game details could not be written
+     */
+    private static boolean writeGame(Game game, CommandLine commandLine, int[] view, int zoom) {
+        Map map = game.getMap();
+        FileChannel outputChannel = getOutputChannel(commandLine.getOptionValue("output"));
+        if (outputChannel == null) return false;
+        try (outputChannel) {
+            MapGameWriter.writeGameDetails(game, outputChannel);
+        } catch (IOException e) {
+            System.err.println("Error while writing file: " + e.getMessage());
+            return false;
+        }
 
         // Print beautiful map
-        MapGameWriter.printBeautifulMap(map, System.out);
+        if (view != null || zoom > 1) {
+            if (view == null) view = new int[]{0, 0, map.getHeight(), map.getWidth()};
+            try {
+                MapGameWriter.printMapView(map, view[0], view[1], view[2], view[3], zoom, System.out);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid view: " + e.getMessage());
+            }
+            return true;
+        }
+        try {
+            MapGameWriter.writeBeautifulMap(map, Channels.newChannel(System.out));
+        } catch (IOException e) {
+            System.err.println("Error while printing map: " + e.getMessage());
+        }
+        System.out.flush();
+        return true;
     }
 
-    private static PrintStream getPrintStream(String filePath) {
-        PrintStream printStream;
+    private static Game playGame(Map map, AdventurerConfiguration[] adventurerConfigurations, CommandLine commandLine,
+                                 PhaseTimings timings, GameMetrics metrics) {
+        long phaseStart = System.nanoTime();
+        Game game = Game.withPackedMovements(map, createAdventurersFromConfiguration(adventurerConfigurations));
+        game.recordMetrics(metrics);
+        if (commandLine.hasOption("resume")) {
+            try {
+                game.restore(CheckpointFile.read(Path.of(commandLine.getOptionValue("resume"))));
+            } catch (IOException e) {
+                System.err.println("Error while reading checkpoint: " + e.getMessage());
+                return null;
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid checkpoint: " + e.getMessage());
+                return null;
+            }
+        }
+        Integer checkpointInterval = getCheckpointInterval(commandLine.getOptionValue("checkpoint-every", String.valueOf(DEFAULT_CHECKPOINT_INTERVAL)));
+        if (checkpointInterval == null) return null;
+        String checkpoint = commandLine.getOptionValue("checkpoint");
+        phaseStart = timings.record(PhaseTimings.Phase.ADVENTURER_SETUP, phaseStart);
+        try (CheckpointFile checkpointFile = checkpoint == null ? null : new CheckpointFile(Path.of(checkpoint))) {
+            if (checkpointFile != null) game.checkpointEvery(checkpointInterval, checkpointFile);
+            play(game, commandLine.getOptionValue("events"));
+            timings.record(PhaseTimings.Phase.PLAY, phaseStart);
+        } catch (IOException e) {
+            // the game is played, only resuming it is compromised
+            System.err.println("Error while writing checkpoint: " + e.getMessage());
+        }
+        return game;
+    }
+
+    /**
+     * Play the game, sending its events to a file if given
+     */
+    private static void play(Game game, String eventsPath) {
+        if (eventsPath == null) {
+            game.play(ForkJoinPool.commonPool());
+            return;
+        }
+        EventLogWriter events;
         try {
-            printStream = new PrintStream(filePath);
-        } catch (FileNotFoundException e) {
-            System.err.println("Error while opening file: " + e.getMessage());
-            return null;
+            events = new EventLogWriter(FileChannel.open(Path.of(eventsPath), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        } catch (IOException e) {
+            System.err.println("Error while opening events file: " + e.getMessage());
+            game.play(ForkJoinPool.commonPool());
+            return;
         }
-        return printStream;
+        try (events) {
+            game.sendEvents(events);
+            game.play(ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            // the game is played, only its events are incomplete
+            System.err.println("Error while writing events: " + e.getMessage());
+        }
+    }
+
+    private static Integer getCheckpointInterval(String checkpointInterval) {
+        try {
+            int value = Integer.parseInt(checkpointInterval);
+            if (value > 0) return value;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("Checkpoint interval must be a strictly positive number: " + checkpointInterval);
+        return null;
+    }
+
+    private static Game playStreamedGame(Map map, AdventurerConfiguration[] adventurerConfigurations, String eventsPath,
+                                         PhaseTimings timings, GameMetrics metrics) {
+        try (MovementFiles files = new MovementFiles()) {
+            long phaseStart = System.nanoTime();
+            Game game = Game.withMovementSources(map, createAdventurersFromConfiguration(adventurerConfigurations, files));
+            game.recordMetrics(metrics);
+            phaseStart = timings.record(PhaseTimings.Phase.ADVENTURER_SETUP, phaseStart);
+            play(game, eventsPath);
+            timings.record(PhaseTimings.Phase.PLAY, phaseStart);
+            return game;
+        } catch (ConfigurationFormatException e) {
+            System.err.println("Invalid movements: " + e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error while reading movements: " + e.getMessage());
+        }
+        return null;
     }
 
-    private static ConfigurationReader getConfigurationReader(String filePath) {
-        BufferedReader reader;
+    private static int[] getView(String view) {
+        if (view == null) return null;
+        String[] parts = view.split(",");
         try {
-            reader = new BufferedReader(new FileReader(filePath));
-        } catch (FileNotFoundException e) {
-            System.err.println("File not found: " + filePath);
+            if (parts.length == 4) {
+                int[] coordinates = new int[4];
+                for (int i = 0; i < 4; i++) {
+                    coordinates[i] = Integer.parseInt(parts[i].strip());
+                }
+                return coordinates;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("View must be fromRow,fromColumn,toRow,toColumn: " + view);
+        return null;
+    }
+
+    /**
+     * Power of 2 zooms are summarized by whole blocks. Other zooms by blocks about as wide as the square root of the
+     * zoom, so that the edges read cell by cell stay thin without summarizing blocks of a few cells
+     */
+    private static int summaryBlockSize(int zoom) {
+        if (Integer.bitCount(zoom) == 1) return zoom;
+        return Math.max(2, Integer.highestOneBit((int) Math.sqrt(zoom)));
+    }
+
+    private static Integer getZoom(String zoom) {
+        try {
+            int value = Integer.parseInt(zoom);
+            if (value > 0) return value;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("Zoom must be a strictly positive number: " + zoom);
+        return null;
+    }
+
+    private static void convert(String inputPath, String outputPath) {
+        ConfigurationReader configurationReader = getConfigurationReader(inputPath, false);
+        if (configurationReader == null) return;
+        try {
+            BinaryConfiguration.write(configurationReader.getMapConfiguration(), configurationReader.getAdventurersConfigurations(), Path.of(outputPath));
+        } catch (IOException e) {
+            System.err.println("Error while writing file: " + e.getMessage());
+        }
+    }
+
+    private static void runBatch(CommandLine commandLine, Map.Storage storage) {
+        Integer parallelism = getParallelism(commandLine.getOptionValue("parallelism", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        if (parallelism == null) return;
+
+        List<Path> inputs;
+        try {
+            inputs = Batch.listInputs(Path.of(commandLine.getOptionValue("input")));
+        } catch (IOException e) {
+            System.err.println("Error while listing games: " + e.getMessage());
+            return;
+        }
+
+        GameMetrics metrics = new GameMetrics();
+        if (commandLine.hasOption("metrics")) registerMBean(metrics, "GameMetrics");
+        List<Batch.Failure> failures;
+        try {
+            failures = new Batch(Path.of(commandLine.getOptionValue("output")), storage, parallelism, metrics).run(inputs);
+        } catch (IOException e) {
+            System.err.println("Error while creating output directory: " + e.getMessage());
+            return;
+        }
+
+        for (Batch.Failure failure : failures) {
+            System.err.println("Failed %s: %s".formatted(failure.input(), failure.message()));
+        }
+        System.out.println("%d games played, %d failed".formatted(inputs.size() - failures.size(), failures.size()));
+        if (commandLine.hasOption("metrics")) System.err.println("Games: " + metrics);
+    }
+
+    /**
+     * Register an MBean on the platform MBean server, replacing the one registered under the same name
+     * @param mbean a standard MBean
+     * @param type  the type part of its name, in the fr.baptistemasoud domain
+     * @throws IllegalStateException if the MBean cannot be registered
+     */
+    private static void registerMBean(Object mbean, String type) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName("fr.baptistemasoud", "type", type);
+            try {
+                server.registerMBean(mbean, name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register MBean " + type, e);
+        }
+    }
+
+    private static void runServer(CommandLine commandLine, Map.Storage storage) {
+        Integer port = getPort(commandLine.getOptionValue("serve"));
+        if (port == null) return;
+        Integer parallelism = getParallelism(commandLine.getOptionValue("parallelism", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        if (parallelism == null) return;
+
+        RequestMetrics metrics = new RequestMetrics();
+        registerMBean(metrics, "RequestMetrics");
+        Server server;
+        try {
+            server = new Server(new InetSocketAddress(port), storage, parallelism, SERVER_QUEUE_CAPACITY, metrics);
+        } catch (IOException e) {
+            System.err.println("Error while starting server: " + e.getMessage());
+            return;
+        }
+        server.warmUp(SERVER_WARM_UP_CONFIGURATION, SERVER_WARM_UP_GAMES);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Listening on port " + server.port());
+    }
+
+    private static Integer getPort(String port) {
+        try {
+            int value = Integer.parseInt(port);
+            if (value >= 0 && value <= 0xFFFF) return value;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("Port must be a number between 0 and 65535: " + port);
+        return null;
+    }
+
+    private static Integer getParallelism(String parallelism) {
+        try {
+            int value = Integer.parseInt(parallelism);
+            if (value > 0) return value;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println("Parallelism must be a strictly positive number: " + parallelism);
+        return null;
+    }
+
+    private static FileChannel getOutputChannel(String filePath) {
+        try {
+            return FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            System.err.println("Error while opening file: " + e.getMessage());
             return null;
         }
-        ConfigurationReader configurationReader;
+    }
+
+    private static ConfigurationReader getConfigurationReader(String filePath, boolean streamMovements) {
         try {
-            configurationReader = new ConfigurationReader(reader);
+            // streamed movements are located by a sequential parsing
+            if (streamMovements) return new ConfigurationReader(Path.of(filePath), true);
+            return new ConfigurationReader(Path.of(filePath), ForkJoinPool.commonPool());
+        } catch (NoSuchFileException e) {
+            System.err.println("File not found: " + e.getFile());
+            return null;
         } catch (IOException e) {
             System.err.println("Error while reading file: " + e.getMessage());
             return null;
         }
-        return configurationReader;
+    }
+
+    private static Map.Storage getStorage(String storage) {
+        try {
+            return Map.Storage.valueOf(storage.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown map storage: " + storage);
+            return null;
+        }
     }
 
     private static CommandLine getCommandLine(String[] args) {
-        Option inputFile = new Option("i", "input", true, "input file path");
-        inputFile.setRequired(true);
-        Option outputFile = new Option("o", "output", true, "output file path");
-        outputFile.setRequired(true);
+        Option inputFile = new Option("i", "input", true, "input file path, a text or binary configuration, in batch mode a directory or a file listing input file paths, required unless serving");
+        Option outputFile = new Option("o", "output", true, "output file path, in batch mode a directory, required unless serving");
+        Option storage = new Option("s", "storage", true, "map storage: dense (default), primitive, sparse or tiled");
+        Option batch = new Option("b", "batch", false, "play all the games of the input and write their details in the output directory, under their file names");
+        Option parallelism = new Option("p", "parallelism", true, "in batch and server modes, the most games played at the same time (default: available processors)");
+        Option view = new Option("v", "view", true, "print only a part of the map: fromRow,fromColumn,toRow,toColumn, to excluded");
+        Option zoom = new Option("z", "zoom", true, "print each block of zoom x zoom squares of the map as one symbol (default: 1)");
+        Option streamMovements = new Option(null, "stream-movements", false, "read the movements from the input as the game is played instead of loading them");
+        Option checkpoint = new Option(null, "checkpoint", true, "file where a checkpoint of the game is regularly saved");
+        Option checkpointEvery = new Option(null, "checkpoint-every", true, "rounds between two checkpoints (default: %d)".formatted(DEFAULT_CHECKPOINT_INTERVAL));
+        Option events = new Option("e", "events", true, "file where the events of the game are written while it is played");
+        Option metrics = new Option("m", "metrics", false, "expose the time spent per phase and the game counters through JMX, and print them at the end of the run");
+        Option convert = new Option("c", "convert", false, "convert the input configuration to the binary format, written to the output, without playing");
+        Option resume = new Option(null, "resume", true, "checkpoint file to resume the game from, the input must be the one of the checkpointed game");
+        Option serve = new Option(null, "serve", true, "serve games over HTTP on the given port: POST /play with a configuration as body, GET /metrics");
 
         Options options = new Options()
                 .addOption(inputFile)
-                .addOption(outputFile);
+                .addOption(outputFile)
+                .addOption(storage)
+                .addOption(batch)
+                .addOption(parallelism)
+                .addOption(view)
+                .addOption(zoom)
+                .addOption(streamMovements)
+                .addOption(checkpoint)
+                .addOption(checkpointEvery)
+                .addOption(resume)
+                .addOption(convert)
+                .addOption(events)
+                .addOption(metrics)
+                .addOption(serve);
         CommandLineParser parser = new DefaultParser();
 
         try {
-            return parser.parse(options, args);
+            CommandLine commandLine = parser.parse(options, args);
+            if (commandLine.hasOption("serve") || (commandLine.hasOption("input") && commandLine.hasOption("output"))) {
+                return commandLine;
+            }
         } catch (ParseException e) {
-            new HelpFormatter().printHelp("treasure-hunt", options);
-            return null;
+            // help printed below
         }
+        new HelpFormatter().printHelp("treasure-hunt", options);
+        return null;
     }
 
-    private static Map createMapFromConfiguration(MapConfiguration config) {
-        Map.MapBuilder builder = new Map.MapBuilder(config.height(), config.width());
-        for (Point coords : config.mountainsCoords()) {
-            builder.placeMountain(coords.x, coords.y);
-        }
-        for (Pair<Point, Integer> coordsAndAmount : config.treasuresCoordsAndAmount()) {
-            Point coords = coordsAndAmount.getLeft();
-            Integer amount = coordsAndAmount.getRight();
-            builder.placeTreasure(coords.x, coords.y, amount);
+    static Map createMapFromConfiguration(MapConfiguration config, Map.Storage storage) {
+        return createMapBuilderFromConfiguration(config, storage).createMap();
+    }
+
+    private static Map.MapBuilder createMapBuilderFromConfiguration(MapConfiguration config, Map.Storage storage) {
+        Map.MapBuilder builder = new Map.MapBuilder(config.height(), config.width()).useStorage(storage);
+        config.mountains().placeMountainsInto(builder);
+        config.treasures().placeTreasuresInto(builder);
+        return builder;
+    }
+
+    static Triple<Adventurer, Coordinates, PackedMovements>[] createAdventurersFromConfiguration(AdventurerConfiguration[] adventurerConfigurations) {
+        Triple<Adventurer, Coordinates, PackedMovements>[] adventurers = newAdventurers(adventurerConfigurations.length);
+        for (int i = 0; i < adventurerConfigurations.length; i++) {
+            AdventurerConfiguration adventurerConfiguration = adventurerConfigurations[i];
+            adventurers[i] = Triple.of(
+                    new Adventurer(adventurerConfiguration.orientation(), adventurerConfiguration.name()),
+                    adventurerConfiguration.coords(),
+                    adventurerConfiguration.packedMovements()
+            );
         }
-        return builder.createMap();
+        return adventurers;
     }
 
-    private static Triple<Adventurer, Point, Game.Movement[]>[] createAdventurersFromConfiguration(AdventurerConfiguration[] adventurerConfigurations) {
-        Triple<Adventurer, Point, Game.Movement[]>[] adventurers = new Triple[adventurerConfigurations.length];
+    static Triple<Adventurer, Coordinates, Iterator<Game.Movement>>[] createAdventurersFromConfiguration(AdventurerConfiguration[] adventurerConfigurations, MovementFiles files) {
+        Triple<Adventurer, Coordinates, Iterator<Game.Movement>>[] adventurers = newAdventurers(adventurerConfigurations.length);
         for (int i = 0; i < adventurerConfigurations.length; i++) {
             AdventurerConfiguration adventurerConfiguration = adventurerConfigurations[i];
             adventurers[i] = Triple.of(
                     new Adventurer(adventurerConfiguration.orientation(), adventurerConfiguration.name()),
                     adventurerConfiguration.coords(),
-                    adventurerConfiguration.movements()
+                    adventurerConfiguration.streamMovements(files)
             );
         }
         return adventurers;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> Triple<Adventurer, Coordinates, T>[] newAdventurers(int length) {
+        return (Triple<Adventurer, Coordinates, T>[]) new Triple<?, ?, ?>[length];
+    }
+
 
 }
\ No newline at end of file
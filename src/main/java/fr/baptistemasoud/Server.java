@@ -0,0 +1,213 @@
+package fr.baptistemasoud;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.functional.Map;
+import fr.baptistemasoud.technical.AdventurerConfiguration;
+import fr.baptistemasoud.technical.ConfigurationReader;
+import fr.baptistemasoud.technical.MapConfiguration;
+import fr.baptistemasoud.technical.MapGameWriter;
+import fr.baptistemasoud.technical.RequestMetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP server playing games in a long-running JVM, so that games are played by warm compiled code. Endpoints:
+ * <ul>
+ *     <li>POST /play with a configuration as body, text or binary: responds with the details of the played game, in
+ *     the format of MapGameWriter.writeGameDetails, with 413 if the configuration or the game it describes exceeds
+ *     the limits of the server, or with 400 and the error if the game cannot be played</li>
+ *     <li>GET /metrics: responds with the latencies of the requests served</li>
+ * </ul>
+ * Requests are handled by a fixed amount of threads with a bounded queue. When the queue is full, the thread accepting
+ * connections handles the request itself, which stops accepting new connections until it is done.
+ */
+final class Server implements AutoCloseable {
+    // largest configuration accepted, larger games are played with Main
+    static final int MAX_CONFIGURATION_SIZE = 16 << 20;
+    // largest game played: a small configuration can describe a map or a game too large for a shared JVM
+    static final long MAX_CELLS = 1 << 22;
+    static final int MAX_ADVENTURERS = 1 << 16;
+    static final long MAX_MOVEMENTS = 1 << 24;
+
+    private final HttpServer httpServer;
+    private final ThreadPoolExecutor executor;
+    private final Map.Storage storage;
+    private final RequestMetrics metrics;
+
+    /**
+     * @param address       the address to listen on, port 0 to pick a free port
+     * @param storage       storage of the maps
+     * @param threads       the amount of threads handling requests, must be strictly positive
+     * @param queueCapacity the most requests waiting for a thread, must be strictly positive
+     * @param metrics       latencies of the requests
+     * @throws IOException              if the server cannot listen on the address
+     * @throws IllegalArgumentException if threads or queueCapacity is not strictly positive
+     */
+    Server(InetSocketAddress address, Map.Storage storage, int threads, int queueCapacity, RequestMetrics metrics) throws IOException {
+        if (threads <= 0 || queueCapacity <= 0) throw new IllegalArgumentException(
+                "threads=%d and queueCapacity=%d must be strictly positive".formatted(threads, queueCapacity)
+        );
+        this.storage = storage;
+        this.metrics = metrics;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.httpServer = HttpServer.create(address, 0);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/play", this::handlePlay);
+        httpServer.createContext("/metrics", this::handleMetrics);
+    }
+
+    void start() {
+        httpServer.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    int port() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Play a game as POST /play does, without recording its latency
+     * @param configuration the configuration of the game, text or binary
+     * @return the details of the played game
+     * @throws GameTooLargeException if the map has more than MAX_CELLS cells, or the game more than MAX_ADVENTURERS
+     *                               adventurers or MAX_MOVEMENTS movements
+     * @throws RuntimeException      if the configuration is invalid or the game cannot be played
+     */
+    byte[] play(byte[] configuration) {
+        ConfigurationReader configurationReader = new ConfigurationReader(configuration);
+        checkLimits(configurationReader.getMapConfiguration(), configurationReader.getAdventurersConfigurations());
+        Map map = Main.createMapFromConfiguration(configurationReader.getMapConfiguration(), storage);
+        Game game = Game.withPackedMovements(map, Main.createAdventurersFromConfiguration(configurationReader.getAdventurersConfigurations()));
+        game.play();
+        return MapGameWriter.getGameDetails(game);
+    }
+
+    private static void checkLimits(MapConfiguration map, AdventurerConfiguration[] adventurers) {
+        long cells = (long) map.height() * map.width();
+        if (cells > MAX_CELLS) throw new GameTooLargeException(
+                "Map of %d cells exceeds the %d cells of the server".formatted(cells, MAX_CELLS)
+        );
+        if (adventurers.length > MAX_ADVENTURERS) throw new GameTooLargeException(
+                "%d adventurers exceed the %d adventurers of the server".formatted(adventurers.length, MAX_ADVENTURERS)
+        );
+        long movements = 0;
+        for (AdventurerConfiguration adventurer : adventurers) {
+            // configurations sent to the server never stream their movements
+            if (adventurer.packedMovements() != null) movements += adventurer.packedMovements().size();
+        }
+        if (movements > MAX_MOVEMENTS) throw new GameTooLargeException(
+                "%d movements exceed the %d movements of the server".formatted(movements, MAX_MOVEMENTS)
+        );
+    }
+
+    /**
+     * Play a configuration several times, so that the code playing games is compiled before the first request
+     */
+    void warmUp(byte[] configuration, int games) {
+        for (int i = 0; i < games; i++) play(configuration);
+    }
+
+    private void handlePlay(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        // a request failing on I/O is counted as a failure
+        int status = 500;
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                status = 405;
+                respond(exchange, status, "Only POST is supported");
+                return;
+            }
+            byte[] configuration = readBody(exchange);
+            if (configuration == null) {
+                status = 413;
+                respond(exchange, status, "Configuration is larger than %d bytes".formatted(MAX_CONFIGURATION_SIZE));
+                return;
+            }
+            byte[] details;
+            try {
+                details = play(configuration);
+            } catch (GameTooLargeException e) {
+                status = 413;
+                respond(exchange, status, e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                status = 400;
+                respond(exchange, status, describe(e));
+                return;
+            }
+            respond(exchange, 200, details);
+            status = 200;
+        } finally {
+            metrics.record(System.nanoTime() - start, status != 200);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            respond(exchange, 200, metrics.toString());
+        }
+    }
+
+    /**
+     * @return the body, null if it is larger than MAX_CONFIGURATION_SIZE
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_CONFIGURATION_SIZE + 1);
+            return bytes.length > MAX_CONFIGURATION_SIZE ? null : bytes;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        respond(exchange, status, (text + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length == 0) return;
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static String describe(Throwable error) {
+        String message = error.getMessage();
+        return message == null ? error.getClass().getSimpleName() : "%s: %s".formatted(error.getClass().getSimpleName(), message);
+    }
+
+    /**
+     * Thrown when a configuration describes a game exceeding the limits of the server
+     */
+    static final class GameTooLargeException extends RuntimeException {
+        GameTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Stop accepting requests, and wait for the requests being handled
+     */
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
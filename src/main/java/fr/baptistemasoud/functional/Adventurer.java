@@ -57,6 +57,14 @@ public class Adventurer {
         return orientation;
     }
 
+    /**
+     * Set the orientation, used by the Game which tracks orientations on its own while playing
+     * @param orientation the new orientation
+     */
+    void setOrientation(Orientation orientation) {
+        this.orientation = orientation;
+    }
+
     /**
      * The orientation of an adventurer
      */
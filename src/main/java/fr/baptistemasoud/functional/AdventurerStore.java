@@ -0,0 +1,302 @@
+package fr.baptistemasoud.functional;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * Columnar state of the adventurers of a Game. Each adventurer is identified by its index in the game, its state is
+ * spread over parallel primitive arrays so that the game loop neither looks up hash maps nor allocates.
+ */
+final class AdventurerStore {
+    // orientations are stored as Orientation ordinals: NORTH, EAST, SOUTH, WEST
+    private static final Adventurer.Orientation[] ORIENTATIONS = Adventurer.Orientation.values();
+    // x and y offsets of a forward movement, indexed by orientation ordinal
+    static final int[] FORWARD_X = {-1, 0, 1, 0};
+    static final int[] FORWARD_Y = {0, 1, 0, -1};
+    // movement codes of PackedMovements
+    private static final int FORWARD = Game.Movement.FORWARD.ordinal();
+    private static final int ROTATE_LEFT = Game.Movement.ROTATE_LEFT.ordinal();
+    private static final int ROTATE_RIGHT = Game.Movement.ROTATE_RIGHT.ordinal();
+    // longest forward run of an instruction, a longer run of a streamed source goes on in the next instruction
+    private static final int MAX_RUN = Integer.MAX_VALUE;
+    // most rotations reported to the listener per instruction, a longer idle run goes on in the next instruction so
+    // that the rotations waiting for their round stay bounded
+    static final int MAX_REPORTED_ROTATIONS = 1 << 10;
+    // no code read ahead from a streamed source
+    private static final int NO_CODE = -1;
+
+    final Adventurer[] adventurers;
+    final int[] xs;
+    final int[] ys;
+    final int[] orientations;
+    final int[] treasures;
+    // movements, compiled one instruction at a time as the game goes, null for streamed movements
+    final PackedMovements[] programs;
+    // streamed movements, compiled one instruction at a time, null once exhausted
+    final Iterator<Game.Movement>[] sources;
+    // code read from the source after the current forward run, NO_CODE if none
+    final int[] pendingCodes;
+    // index in the program of the first movement of the next instruction
+    final int[] cursors;
+    // first round of the current forward run
+    final int[] readyRounds;
+    // forward movements left in the current run
+    final int[] forwardLeft;
+    private final java.util.Map<Adventurer, Integer> ids;
+    // instructions loaded with a net rotation, loaded by one thread at a time
+    long rotations;
+    // receives each rotation turn of the loaded instructions, null when rotations are not followed
+    RotationListener rotationListener;
+
+    AdventurerStore(int capacity) {
+        adventurers = new Adventurer[capacity];
+        xs = new int[capacity];
+        ys = new int[capacity];
+        orientations = new int[capacity];
+        treasures = new int[capacity];
+        programs = new PackedMovements[capacity];
+        sources = newSources(capacity);
+        pendingCodes = new int[capacity];
+        cursors = new int[capacity];
+        readyRounds = new int[capacity];
+        forwardLeft = new int[capacity];
+        ids = new IdentityHashMap<>(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Iterator<Game.Movement>[] newSources(int capacity) {
+        return (Iterator<Game.Movement>[]) new Iterator<?>[capacity];
+    }
+
+    /**
+     * @param id         the index of the adventurer, adventurers must be set in order
+     * @param adventurer the adventurer
+     * @param x          initial x coordinate
+     * @param y          initial y coordinate
+     * @param movements  the movements of the adventurer
+     * @throws IllegalArgumentException if the adventurer was already set
+     */
+    void set(int id, Adventurer adventurer, int x, int y, PackedMovements movements) {
+        setAdventurer(id, adventurer, x, y);
+        this.programs[id] = movements;
+    }
+
+    /**
+     * Same as set with packed movements, except that movements are read from the source as the game goes, so that
+     * programs too long to be held in memory can be played
+     * @param source the movements of the adventurer, null movements only take a turn
+     * @throws IllegalArgumentException if the adventurer was already set
+     */
+    void set(int id, Adventurer adventurer, int x, int y, Iterator<Game.Movement> source) {
+        setAdventurer(id, adventurer, x, y);
+        this.sources[id] = source;
+        this.pendingCodes[id] = NO_CODE;
+    }
+
+    private void setAdventurer(int id, Adventurer adventurer, int x, int y) {
+        if (ids.putIfAbsent(adventurer, id) != null) throw new IllegalArgumentException(
+                "Adventurer %s is part of the game more than once".formatted(adventurer.getName())
+        );
+        this.adventurers[id] = adventurer;
+        this.xs[id] = x;
+        this.ys[id] = y;
+        this.orientations[id] = adventurer.getOrientation().ordinal();
+    }
+
+    int size() {
+        return adventurers.length;
+    }
+
+    /**
+     * @return true if an adventurer reads its movements from a source instead of a compiled program
+     */
+    boolean hasStreamedMovements() {
+        for (PackedMovements program : programs) {
+            if (program == null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return a hash of the programs, telling apart the games a checkpoint can be restored on
+     */
+    long programsHash() {
+        long hash = programs.length;
+        for (PackedMovements program : programs) {
+            hash = 31 * hash + program.size();
+            hash = 31 * hash + program.hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * @return the index of the adventurer
+     * @throws IllegalArgumentException if the adventurer is not part of the game
+     */
+    int idOf(Adventurer adventurer) {
+        Integer id = ids.get(adventurer);
+        if (id == null) throw new IllegalArgumentException(
+                "Adventurer %s is not part of the game".formatted(adventurer.getName())
+        );
+        return id;
+    }
+
+    /**
+     * Load the first instruction of an adventurer, before the first round
+     * @return true if the adventurer has forward movements to play
+     */
+    boolean start(int id) {
+        return loadInstruction(id, 0);
+    }
+
+    /**
+     * @return true if the adventurer plays a forward movement this round, or the last idle turn of an idle run cut
+     * after MAX_REPORTED_ROTATIONS, with no forward movement left. False if it rotates or waits
+     */
+    boolean isReady(int id, int round) {
+        return round >= readyRounds[id];
+    }
+
+    /**
+     * Record that the adventurer played a forward movement, or the last turn of a cut idle run, this round
+     * @return true if the adventurer has forward movements left to play
+     */
+    boolean finishForward(int id, int round) {
+        if (--forwardLeft[id] > 0) {
+            readyRounds[id] = round + 1;
+            return true;
+        }
+        return loadInstruction(id, round + 1);
+    }
+
+    /**
+     * Compile and load the next instruction of the program: the turns spent rotating or waiting, the net rotation of
+     * those turns and the amount of forward movements that follow. Rotations are only observed by forward movements,
+     * so applying their net rotation right before the run gives the same game. Only the packed movements are kept in
+     * memory, 2 bits per movement, the instruction is decoded from them when the previous run is over.
+     * @param round the round following the previous instruction
+     * @return true if the instruction has forward movements, false once the program is over
+     */
+    private boolean loadInstruction(int id, int round) {
+        PackedMovements program = programs[id];
+        if (program == null) return loadStreamedInstruction(id, round);
+
+        int size = program.size();
+        int cursor = cursors[id];
+        int idleTurns = 0;
+        int rotation = 0;
+        int reported = 0;
+        int code;
+        while (cursor < size && (code = program.code(cursor)) != FORWARD) {
+            int turn = rotationTurn(id, round + idleTurns, rotation, code);
+            rotation += turn;
+            idleTurns++;
+            cursor++;
+            if (turn != 0 && rotationListener != null && ++reported == MAX_REPORTED_ROTATIONS) {
+                cursors[id] = cursor;
+                return scheduleIdle(id, round, idleTurns, rotation);
+            }
+        }
+        int runStart = cursor;
+        while (cursor < size && program.code(cursor) == FORWARD) cursor++;
+        cursors[id] = cursor;
+        return schedule(id, round, idleTurns, rotation, cursor - runStart);
+    }
+
+    /**
+     * Report a rotation turn to the listener, if any
+     * @param round    the round of the turn
+     * @param rotation the rotation of the previous turns of the instruction
+     * @param code     the movement code of the turn, a rotation or a null movement
+     * @return the rotation of the turn: 1 to the right, 3 to the left, 0 for a null movement
+     */
+    private int rotationTurn(int id, int round, int rotation, int code) {
+        int turn = code == ROTATE_RIGHT ? 1 : code == ROTATE_LEFT ? 3 : 0;
+        if (turn != 0 && rotationListener != null) {
+            rotationListener.onRotation(id, round, (orientations[id] + rotation + turn) & 3);
+        }
+        return turn;
+    }
+
+    /**
+     * Apply the rotation of an instruction and schedule its forward run after its idle turns
+     */
+    private boolean schedule(int id, int round, int idleTurns, int rotation, int run) {
+        if ((rotation & 3) != 0) rotations++;
+        orientations[id] = (orientations[id] + rotation) & 3;
+        forwardLeft[id] = run;
+        readyRounds[id] = round + idleTurns;
+        return run > 0;
+    }
+
+    /**
+     * Apply the rotation of an instruction cut in its idle run, whose last idle turn loads the next instruction
+     * @return true, the program goes on in the next instruction
+     */
+    private boolean scheduleIdle(int id, int round, int idleTurns, int rotation) {
+        schedule(id, round, idleTurns - 1, rotation, 0);
+        return true;
+    }
+
+    /**
+     * Compile the next instruction from the source as loadInstruction does, reading the source up to the code
+     * following the forward run
+     */
+    private boolean loadStreamedInstruction(int id, int round) {
+        Iterator<Game.Movement> source = sources[id];
+        if (source == null) return false;
+
+        int idleTurns = 0;
+        int rotation = 0;
+        int reported = 0;
+        int code = pendingCodes[id] == NO_CODE ? nextCode(source) : pendingCodes[id];
+        while (code != NO_CODE && code != FORWARD) {
+            int turn = rotationTurn(id, round + idleTurns, rotation, code);
+            rotation += turn;
+            idleTurns++;
+            if (turn != 0 && rotationListener != null && ++reported == MAX_REPORTED_ROTATIONS) {
+                pendingCodes[id] = NO_CODE;
+                return scheduleIdle(id, round, idleTurns, rotation);
+            }
+            code = nextCode(source);
+        }
+        int run = 0;
+        while (code == FORWARD) {
+            // a longer run goes on in the next instruction, without idle turns
+            if (++run == MAX_RUN) {
+                code = NO_CODE;
+                break;
+            }
+            code = nextCode(source);
+        }
+        pendingCodes[id] = code;
+        if (code == NO_CODE && !source.hasNext()) sources[id] = null;
+        return schedule(id, round, idleTurns, rotation, run);
+    }
+
+    /**
+     * Receives the rotations of the instructions as they are loaded, ahead of the rounds they are played in
+     */
+    interface RotationListener {
+        /**
+         * @param round       the round the rotation is played in
+         * @param orientation the Orientation ordinal after the rotation
+         */
+        void onRotation(int id, int round, int orientation);
+    }
+
+    private static int nextCode(Iterator<Game.Movement> source) {
+        if (!source.hasNext()) return NO_CODE;
+        Game.Movement movement = source.next();
+        return movement == null ? PackedMovements.NONE : movement.ordinal();
+    }
+
+    /**
+     * Copy the orientations back to the Adventurer objects, which are read by the game clients
+     */
+    void syncOrientations() {
+        for (int id = 0; id < adventurers.length; id++) {
+            adventurers[id].setOrientation(ORIENTATIONS[orientations[id]]);
+        }
+    }
+}
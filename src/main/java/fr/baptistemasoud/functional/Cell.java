@@ -15,6 +15,13 @@ public class Cell {
         this.adventurer = null;
     }
 
+    /**
+     * Used by views of cells whose state is held by a CellStorage
+     */
+    Cell() {
+        this(false, 0);
+    }
+
     /**
      * Create a new Mountain cell
      * @return a new Mountain cell
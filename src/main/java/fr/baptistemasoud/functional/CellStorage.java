@@ -0,0 +1,73 @@
+package fr.baptistemasoud.functional;
+
+/**
+ * Storage engine of the cells of a Map. Coordinates are always within the map bounds, callers are responsible for
+ * checking them.
+ */
+interface CellStorage {
+    /**
+     * Turn a plain cell into a mountain, only used while the map is being built
+     */
+    void placeMountain(int x, int y);
+
+    /**
+     * Put treasures on a plain cell, only used while the map is being built
+     */
+    void placeTreasures(int x, int y, int amount);
+
+    /**
+     * Turn the plain cells of row x, from column fromY to column toY excluded, into mountains, only used while the map
+     * is being built
+     */
+    default void placeMountains(int x, int fromY, int toY) {
+        for (int y = fromY; y < toY; y++) placeMountain(x, y);
+    }
+
+    /**
+     * Called once all mountains and treasures are placed, before the map is used. Large maps are completed by ranges
+     * of rows, concurrently, so a range must only write its own rows
+     * @param fromRow first row of the range
+     * @param toRow   row after the last row of the range
+     */
+    void complete(int fromRow, int toRow);
+
+    Cell getCell(int x, int y);
+
+    boolean isMountain(int x, int y);
+
+    int getTreasures(int x, int y);
+
+    /**
+     * Remove one treasure from a cell containing at least one treasure
+     */
+    void removeOneTreasure(int x, int y);
+
+    /**
+     * @return the Adventurer on the cell, null if there is no Adventurer
+     */
+    Adventurer getAdventurer(int x, int y);
+
+    /**
+     * Place an Adventurer on a cell that is neither a mountain nor occupied
+     */
+    void placeAdventurer(int x, int y, Adventurer adventurer);
+
+    void removeAdventurer(int x, int y);
+
+    /**
+     * Move the Adventurer of the source cell to a destination cell that is neither a mountain nor occupied
+     */
+    void moveAdventurer(int fromX, int fromY, int toX, int toY);
+
+    /**
+     * @return true if adventurers can be moved and treasures removed concurrently, as long as each thread works on
+     * distinct cells
+     */
+    boolean supportsConcurrentMoves();
+
+    void forEachMountain(Map.CoordinatesConsumer consumer);
+
+    void forEachTreasure(Map.TreasuresConsumer consumer);
+
+    void forEachAdventurer(Map.AdventurerConsumer consumer);
+}
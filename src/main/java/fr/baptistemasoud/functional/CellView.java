@@ -0,0 +1,64 @@
+package fr.baptistemasoud.functional;
+
+import fr.baptistemasoud.functional.exception.AdventurerOnAdventurerException;
+import fr.baptistemasoud.functional.exception.AdventurerOnMountainException;
+import fr.baptistemasoud.functional.exception.NoTreasureOnCellException;
+
+/**
+ * A Cell reading and writing its state from a CellStorage, for storages which do not hold Cell objects
+ */
+class CellView extends Cell {
+    private final CellStorage storage;
+    private final int x;
+    private final int y;
+
+    CellView(CellStorage storage, int x, int y) {
+        this.storage = storage;
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public boolean hasAdventurer() {
+        return storage.getAdventurer(x, y) != null;
+    }
+
+    @Override
+    public boolean hasTreasures() {
+        return storage.getTreasures(x, y) > 0;
+    }
+
+    @Override
+    public void removeOneTreasure() {
+        if (!hasTreasures()) throw new NoTreasureOnCellException("Cell does not contain any treasure");
+        storage.removeOneTreasure(x, y);
+    }
+
+    @Override
+    public boolean isMountain() {
+        return storage.isMountain(x, y);
+    }
+
+    @Override
+    public Adventurer getAdventurer() {
+        return storage.getAdventurer(x, y);
+    }
+
+    @Override
+    public int getTreasures() {
+        return storage.getTreasures(x, y);
+    }
+
+    @Override
+    public void placeAdventurer(Adventurer adventurer) {
+        if (isMountain()) throw new AdventurerOnMountainException();
+        if (hasAdventurer()) throw new AdventurerOnAdventurerException();
+
+        storage.placeAdventurer(x, y, adventurer);
+    }
+
+    @Override
+    public void removeAdventurer() {
+        storage.removeAdventurer(x, y);
+    }
+}
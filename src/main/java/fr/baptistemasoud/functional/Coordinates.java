@@ -0,0 +1,7 @@
+package fr.baptistemasoud.functional;
+
+/**
+ * Coordinates of a cell of a map: x is the row, y is the column
+ */
+public record Coordinates(int x, int y) {
+}
@@ -0,0 +1,133 @@
+package fr.baptistemasoud.functional;
+
+/**
+ * One Cell object per square of the map
+ */
+class DenseCellStorage implements CellStorage {
+    // rows are allocated on their first placement, or when the map is completed
+    private final Cell[][] cells;
+    private final int height;
+    private final int width;
+
+    DenseCellStorage(int height, int width) {
+        this.cells = new Cell[height][];
+        this.height = height;
+        this.width = width;
+    }
+
+    private Cell[] row(int x) {
+        Cell[] row = cells[x];
+        if (row == null) {
+            row = new Cell[width];
+            cells[x] = row;
+        }
+        return row;
+    }
+
+    @Override
+    public void placeMountain(int x, int y) {
+        row(x)[y] = Cell.createMountainCell();
+    }
+
+    @Override
+    public void placeMountains(int x, int fromY, int toY) {
+        Cell[] row = row(x);
+        for (int y = fromY; y < toY; y++) row[y] = Cell.createMountainCell();
+    }
+
+    @Override
+    public void placeTreasures(int x, int y, int amount) {
+        row(x)[y] = Cell.createTreasuresCell(amount);
+    }
+
+    @Override
+    public void complete(int fromRow, int toRow) {
+        // fill remaining empty cells with plains
+        for (int i = fromRow; i < toRow; i++) {
+            Cell[] row = row(i);
+            for (int j = 0; j < width; j++) {
+                if (row[j] == null) {
+                    row[j] = Cell.createPlainCell();
+                }
+            }
+        }
+    }
+
+    @Override
+    public Cell getCell(int x, int y) {
+        return cells[x][y];
+    }
+
+    @Override
+    public boolean isMountain(int x, int y) {
+        return cells[x][y].isMountain();
+    }
+
+    @Override
+    public int getTreasures(int x, int y) {
+        return cells[x][y].getTreasures();
+    }
+
+    @Override
+    public void removeOneTreasure(int x, int y) {
+        cells[x][y].removeOneTreasure();
+    }
+
+    @Override
+    public Adventurer getAdventurer(int x, int y) {
+        return cells[x][y].getAdventurer();
+    }
+
+    @Override
+    public void placeAdventurer(int x, int y, Adventurer adventurer) {
+        cells[x][y].placeAdventurer(adventurer);
+    }
+
+    @Override
+    public void removeAdventurer(int x, int y) {
+        cells[x][y].removeAdventurer();
+    }
+
+    @Override
+    public void moveAdventurer(int fromX, int fromY, int toX, int toY) {
+        Cell sourceCell = cells[fromX][fromY];
+        Adventurer adventurer = sourceCell.getAdventurer();
+        sourceCell.removeAdventurer();
+        cells[toX][toY].placeAdventurer(adventurer);
+    }
+
+    @Override
+    public boolean supportsConcurrentMoves() {
+        return true;
+    }
+
+    @Override
+    public void forEachMountain(Map.CoordinatesConsumer consumer) {
+        for (int x = 0; x < height; x++) {
+            Cell[] row = cells[x];
+            for (int y = 0; y < width; y++) {
+                if (row[y].isMountain()) consumer.accept(x, y);
+            }
+        }
+    }
+
+    @Override
+    public void forEachTreasure(Map.TreasuresConsumer consumer) {
+        for (int x = 0; x < height; x++) {
+            Cell[] row = cells[x];
+            for (int y = 0; y < width; y++) {
+                if (row[y].hasTreasures()) consumer.accept(x, y, row[y].getTreasures());
+            }
+        }
+    }
+
+    @Override
+    public void forEachAdventurer(Map.AdventurerConsumer consumer) {
+        for (int x = 0; x < height; x++) {
+            Cell[] row = cells[x];
+            for (int y = 0; y < width; y++) {
+                if (row[y].hasAdventurer()) consumer.accept(x, y, row[y].getAdventurer());
+            }
+        }
+    }
+}
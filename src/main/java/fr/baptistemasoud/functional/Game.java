@@ -2,75 +2,389 @@ package fr.baptistemasoud.functional;
 
 import org.apache.commons.lang3.tuple.Triple;
 
-import java.awt.*;
-import java.util.List;
-import java.util.Queue;
-import java.util.*;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 public class Game {
+    private static final Adventurer.Orientation[] ORIENTATIONS = Adventurer.Orientation.values();
     private final Map map;
-    private final java.util.Map<Adventurer, Queue<Movement>> adventurersMovements = new HashMap<>();
-    private final java.util.Map<Adventurer, Point> adventurersCoords = new HashMap<>();
-    private final java.util.Map<Adventurer, Integer> adventurersCollectedTreasures = new HashMap<>();
-    private final List<Adventurer> adventurers = new ArrayList<>();
+    private final AdventurerStore adventurers;
+    // ids of the adventurers that still have forward movements to play, in game order
+    private final int[] activeAdventurers;
+    private int activeCount;
+    // the round being played, rounds where all active adventurers rotate or wait are skipped
+    private int round;
+    // the first round where an active adventurer moves forward
+    private int nextRound;
+    // rounds played so far
+    private int turns;
+    // true once adventurers are placed, by play or restore
+    private boolean started;
+    // receives checkpoints every checkpointInterval rounds, null when checkpoints are disabled
+    private Consumer<GameCheckpoint> checkpoints;
+    private int checkpointInterval;
+    private long nextCheckpointTurn;
+    private long programsHash;
+    // mountains never change, they are collected once and shared by all checkpoints
+    private GameCheckpoint.Cells mountains;
+    // treasures left on the map, followed as they are collected while checkpoints are enabled, null otherwise
+    private GameCheckpoint.RemainingTreasures remainingTreasures;
+    // receives the events of the game, null when they are neither sent nor recorded in a replay
+    private GameEventSink events;
+    // the sink given to sendEvents, null if none
+    private GameEventSink eventsSink;
+    // records the game, null if no replay is recorded
+    private GameReplay replay;
+    // rotations loaded ahead of their round, sent to events in round order
+    private final PendingRotations pendingRotations = new PendingRotations();
+    // counters of the game, null when they are not recorded
+    private GameMetrics metrics;
+    // rotations of the adventurers already added to metrics
+    private long recordedRotations;
 
     /**
      * @param map the map for which the game will be played on
      * @param adventurersCoordsMovements an array of Triple containing the adventurer, its initial coordinates and its movements
+     * @throws IllegalArgumentException if an adventurer is given more than once
      */
-    public Game(Map map, Triple<Adventurer, Point, Movement[]>[] adventurersCoordsMovements) {
-        this.map = map;
-        for (Triple<Adventurer, Point, Movement[]> adventurerCoordsMovements : adventurersCoordsMovements) {
-            Adventurer adventurer = adventurerCoordsMovements.getLeft();
-            adventurers.add(adventurer);
-            adventurersCollectedTreasures.put(adventurer, 0);
+    public Game(Map map, Triple<Adventurer, Coordinates, Movement[]>[] adventurersCoordsMovements) {
+        this(map, adventurersCoordsMovements.length);
+        for (int id = 0; id < adventurersCoordsMovements.length; id++) {
+            Triple<Adventurer, Coordinates, Movement[]> adventurerCoordsMovements = adventurersCoordsMovements[id];
+            Coordinates coords = adventurerCoordsMovements.getMiddle();
+            adventurers.set(id, adventurerCoordsMovements.getLeft(), coords.x(), coords.y(), PackedMovements.of(adventurerCoordsMovements.getRight()));
         }
-        initAdventurersPlacement(adventurersCoordsMovements);
-        initAdventurersMovements(adventurersCoordsMovements);
     }
 
-    private void initAdventurersPlacement(Triple<Adventurer, Point, Movement[]>[] adventurersCoordsMovements) {
-        for (Triple<Adventurer, Point, Movement[]> adventurerCoordsMovements : adventurersCoordsMovements) {
-            Adventurer adventurer = adventurerCoordsMovements.getLeft();
-            Point point = adventurerCoordsMovements.getMiddle();
-            this.adventurersCoords.put(adventurer, point);
+    private Game(Map map, int adventurersCount) {
+        this.map = map;
+        this.adventurers = new AdventurerStore(adventurersCount);
+        this.activeAdventurers = new int[adventurersCount];
+    }
+
+    /**
+     * Same as the constructor, with movements packed 2 bits per movement
+     * @param map                        the map for which the game will be played on
+     * @param adventurersCoordsMovements an array of Triple containing the adventurer, its initial coordinates and its movements
+     * @throws IllegalArgumentException if an adventurer is given more than once
+     */
+    public static Game withPackedMovements(Map map, Triple<Adventurer, Coordinates, PackedMovements>[] adventurersCoordsMovements) {
+        Game game = new Game(map, adventurersCoordsMovements.length);
+        for (int id = 0; id < adventurersCoordsMovements.length; id++) {
+            Triple<Adventurer, Coordinates, PackedMovements> adventurerCoordsMovements = adventurersCoordsMovements[id];
+            Coordinates coords = adventurerCoordsMovements.getMiddle();
+            game.adventurers.set(id, adventurerCoordsMovements.getLeft(), coords.x(), coords.y(), adventurerCoordsMovements.getRight());
         }
+        return game;
     }
 
-    private void initAdventurersMovements(Triple<Adventurer, Point, Movement[]>[] adventurersCoordsMovements) {
-        for (Triple<Adventurer, Point, Movement[]> adventurerCoordsMovements : adventurersCoordsMovements) {
-            // add all movements in a queue
-            Queue<Movement> movementsQueue = new LinkedList<>(Arrays.asList(adventurerCoordsMovements.getRight()));
-            Adventurer adventurer = adventurerCoordsMovements.getLeft();
-            this.adventurersMovements.put(adventurer, movementsQueue);
+    /**
+     * Create a game whose movements are read from their sources as the game is played, one forward run at a time, so
+     * that movements never need to be held in memory
+     * @param adventurersCoordsMovements the adventurers, their initial coordinates and the sources of their movements,
+     *                                   which must stay readable until the game is played
+     * @throws IllegalArgumentException if an adventurer is given more than once
+     */
+    public static Game withMovementSources(Map map, Triple<Adventurer, Coordinates, Iterator<Movement>>[] adventurersCoordsMovements) {
+        Game game = new Game(map, adventurersCoordsMovements.length);
+        for (int id = 0; id < adventurersCoordsMovements.length; id++) {
+            Triple<Adventurer, Coordinates, Iterator<Movement>> adventurerCoordsMovements = adventurersCoordsMovements[id];
+            Coordinates coords = adventurerCoordsMovements.getMiddle();
+            game.adventurers.set(id, adventurerCoordsMovements.getLeft(), coords.x(), coords.y(), adventurerCoordsMovements.getRight());
         }
+        return game;
     }
 
     /**
      * Play the game. Place all adventurers on the map and play their movements.
      */
     public void play() {
-        // place all adventurers on the map
-        for (java.util.Map.Entry<Adventurer, Point> adventurerCoords : adventurersCoords.entrySet()) {
-            Point coords = adventurerCoords.getValue();
-            Cell cell = this.map.getCell(coords.x, coords.y);
-            cell.placeAdventurer(adventurerCoords.getKey());
-        }
-
-        // play their movements
-        while (!isFinished()) {
-            for (Adventurer adventurer : adventurers) {
-                Movement movement = getNextMovement(adventurer);
-                if (movement == null) continue;
-                switch (movement) {
-                    case FORWARD -> moveAdventurerForward(adventurer);
-                    case ROTATE_LEFT -> adventurer.rotateLeft();
-                    case ROTATE_RIGHT -> adventurer.rotateRight();
-                }
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (!started) placeAdventurers();
+
+        // play their movements, one per adventurer and per round
+        while (activeCount > 0) {
+            round = nextRound;
+            if (events != null) sendRotations(round);
+            RoundEvent event = new RoundEvent();
+            event.begin();
+            int playing = activeCount;
+            playRound();
+            commitRoundEvent(event, playing, false);
+            endRound();
+        }
+        // rotations after the last forward movements
+        if (events != null) sendRotations(Integer.MAX_VALUE);
+
+        adventurers.syncOrientations();
+        if (metrics != null) metrics.playNanos.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Play the game on the threads of a pool, with the same outcome as play(). Rounds with few active adventurers,
+     * games on a map whose storage does not support concurrent moves, and games sending events or recording a replay,
+     * are played sequentially.
+     * @param pool the pool playing the rounds
+     */
+    public void play(ForkJoinPool pool) {
+        if (!map.supportsConcurrentMoves() || events != null) {
+            play();
+            return;
+        }
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (!started) placeAdventurers();
+
+        ParallelRounds parallelRounds = new ParallelRounds(map, adventurers, pool, this::moveAdventurerForward);
+        while (activeCount > 0) {
+            round = nextRound;
+            RoundEvent event = new RoundEvent();
+            event.begin();
+            int playing = activeCount;
+            boolean parallel = activeCount >= ParallelRounds.MIN_ADVENTURERS;
+            if (!parallel) {
+                playRound();
+            } else {
+                activeCount = parallelRounds.playRound(activeAdventurers, activeCount, round);
+                nextRound = parallelRounds.nextRound();
+            }
+            commitRoundEvent(event, playing, parallel);
+            endRound();
+        }
+
+        adventurers.syncOrientations();
+        if (metrics != null) metrics.playNanos.add(System.nanoTime() - start);
+    }
+
+    private void placeAdventurers() {
+        started = true;
+        int count = adventurers.size();
+        activeCount = 0;
+        nextRound = Integer.MAX_VALUE;
+        for (int id = 0; id < count; id++) {
+            map.placeAdventurer(adventurers.xs[id], adventurers.ys[id], adventurers.adventurers[id]);
+            boolean active = adventurers.start(id);
+            if (active) {
+                activeAdventurers[activeCount++] = id;
+                nextRound = Math.min(nextRound, adventurers.readyRounds[id]);
+            }
+        }
+    }
+
+    /**
+     * Play the forward movements of this round, and drop the adventurers which played their last forward movement
+     */
+    private void playRound() {
+        int remaining = 0;
+        nextRound = Integer.MAX_VALUE;
+        for (int i = 0; i < activeCount; i++) {
+            int id = activeAdventurers[i];
+            if (adventurers.isReady(id, round)) {
+                // instructions cut in a long idle run end with a turn without forward movement
+                if (adventurers.forwardLeft[id] > 0) moveAdventurerForward(id);
+                if (!adventurers.finishForward(id, round)) continue;
             }
+
+            activeAdventurers[remaining++] = id;
+            nextRound = Math.min(nextRound, adventurers.readyRounds[id]);
+        }
+        activeCount = remaining;
+    }
+
+    /**
+     * Commit the event of the round just played if it is recorded
+     * @param playing the amount of active adventurers at the start of the round
+     */
+    private void commitRoundEvent(RoundEvent event, int playing, boolean parallel) {
+        if (!event.shouldCommit()) return;
+        event.round = round;
+        event.activeAdventurers = playing;
+        event.finishedAdventurers = playing - activeCount;
+        event.parallel = parallel;
+        event.commit();
+    }
+
+    private void endRound() {
+        if (metrics != null) {
+            metrics.turns.add(round + 1 - turns);
+            metrics.rotations.add(adventurers.rotations - recordedRotations);
+            recordedRotations = adventurers.rotations;
+        }
+        turns = round + 1;
+        if (events != null) events.onRoundPlayed(round);
+        if (checkpoints != null && turns >= nextCheckpointTurn) {
+            checkpoints.accept(checkpoint());
+            nextCheckpointTurn = ((long) turns / checkpointInterval + 1) * checkpointInterval;
         }
     }
 
+    /**
+     * Send a checkpoint of the game every given amount of rounds while it is played. The state is copied between two
+     * rounds, the checkpoint is then owned by the consumer, which may write it on another thread.
+     * @param rounds      the interval between two checkpoints, in rounds
+     * @param checkpoints the consumer of the checkpoints
+     * @throws IllegalArgumentException if rounds is not strictly positive
+     * @throws IllegalStateException    if movements of the game are streamed, their progress cannot be saved
+     */
+    public void checkpointEvery(int rounds, Consumer<GameCheckpoint> checkpoints) {
+        if (rounds <= 0) throw new IllegalArgumentException(
+                "rounds=%d is not strictly positive".formatted(rounds)
+        );
+        if (adventurers.hasStreamedMovements()) throw new IllegalStateException(
+                "A game with streamed movements cannot be checkpointed"
+        );
+        this.checkpoints = checkpoints;
+        this.checkpointInterval = rounds;
+        this.nextCheckpointTurn = ((long) turns / rounds + 1) * rounds;
+        this.programsHash = adventurers.programsHash();
+        this.remainingTreasures = new GameCheckpoint.RemainingTreasures(map);
+    }
+
+    private GameCheckpoint checkpoint() {
+        if (mountains == null) mountains = GameCheckpoint.Cells.ofMountains(map);
+        return new GameCheckpoint(map.getHeight(), map.getWidth(), turns, nextRound, programsHash,
+                mountains, remainingTreasures.cells(),
+                adventurers.xs.clone(), adventurers.ys.clone(), adventurers.orientations.clone(), adventurers.treasures.clone(),
+                adventurers.cursors.clone(), adventurers.readyRounds.clone(), adventurers.forwardLeft.clone(),
+                Arrays.copyOf(activeAdventurers, activeCount));
+    }
+
+    /**
+     * Restore the state of a checkpoint, so that playing the game goes on from there. The game must be created from
+     * the same configuration as the game of the checkpoint, and not be played yet. The whole checkpoint is checked
+     * before the game is changed.
+     * @throws IllegalArgumentException if the checkpoint was taken on another game, or is corrupted
+     * @throws IllegalStateException    if the game was already played, or if its movements are streamed
+     */
+    public void restore(GameCheckpoint checkpoint) {
+        if (started) throw new IllegalStateException("A game can only be restored before being played");
+        if (adventurers.hasStreamedMovements()) throw new IllegalStateException(
+                "A game with streamed movements cannot be restored"
+        );
+        if (checkpoint.height != map.getHeight() || checkpoint.width != map.getWidth()
+                || checkpoint.xs.length != adventurers.size() || checkpoint.programsHash != adventurers.programsHash()
+                || checkpoint.activeAdventurers.length > adventurers.size()) {
+            throw new IllegalArgumentException("Checkpoint was taken on a game with another map or other adventurers");
+        }
+        checkMountains(checkpoint);
+        GameCheckpoint.Cells collected = collectedTreasures(checkpoint);
+        checkAdventurers(checkpoint);
+
+        for (int i = 0; i < collected.size(); i++) {
+            for (int removed = 0; removed < collected.amount(i); removed++) {
+                map.removeOneTreasure(collected.x(i), collected.y(i));
+            }
+        }
+        int count = adventurers.size();
+        for (int id = 0; id < count; id++) {
+            adventurers.xs[id] = checkpoint.xs[id];
+            adventurers.ys[id] = checkpoint.ys[id];
+            adventurers.orientations[id] = checkpoint.orientations[id];
+            adventurers.treasures[id] = checkpoint.collectedTreasures[id];
+            adventurers.cursors[id] = checkpoint.cursors[id];
+            adventurers.readyRounds[id] = checkpoint.readyRounds[id];
+            adventurers.forwardLeft[id] = checkpoint.forwardLeft[id];
+            map.placeAdventurer(checkpoint.xs[id], checkpoint.ys[id], adventurers.adventurers[id]);
+        }
+        activeCount = checkpoint.activeAdventurers.length;
+        System.arraycopy(checkpoint.activeAdventurers, 0, activeAdventurers, 0, activeCount);
+        nextRound = checkpoint.nextRound;
+        turns = checkpoint.turns;
+        round = turns - 1;
+        started = true;
+        if (checkpoints != null) remainingTreasures = new GameCheckpoint.RemainingTreasures(map);
+    }
+
+    /**
+     * Check that the map has the mountains of the checkpoint
+     */
+    private void checkMountains(GameCheckpoint checkpoint) {
+        GameCheckpoint.Cells mapMountains = GameCheckpoint.Cells.ofMountains(map);
+        if (mapMountains.size() != checkpoint.mountains.size()) {
+            throw new IllegalArgumentException("Checkpoint was taken on a game with other mountains");
+        }
+        for (int i = 0; i < mapMountains.size(); i++) {
+            if (mapMountains.x(i) != checkpoint.mountains.x(i) || mapMountains.y(i) != checkpoint.mountains.y(i)) {
+                throw new IllegalArgumentException("Checkpoint was taken on a game with other mountains");
+            }
+        }
+        mountains = mapMountains;
+    }
+
+    /**
+     * @return the amount of treasures collected before the checkpoint on each cell, in row by row order
+     */
+    private GameCheckpoint.Cells collectedTreasures(GameCheckpoint checkpoint) {
+        // both are in row by row order, treasures of the checkpoint are a subset of the initial treasures
+        GameCheckpoint.Cells initialTreasures = GameCheckpoint.Cells.ofTreasures(map);
+        GameCheckpoint.Cells savedTreasures = checkpoint.treasures;
+        GameCheckpoint.Cells collected = new GameCheckpoint.Cells();
+        int saved = 0;
+        for (int i = 0; i < initialTreasures.size(); i++) {
+            int x = initialTreasures.x(i);
+            int y = initialTreasures.y(i);
+            int amount = 0;
+            if (saved < savedTreasures.size() && savedTreasures.x(saved) == x && savedTreasures.y(saved) == y) {
+                amount = savedTreasures.amount(saved++);
+            }
+            if (amount < 0 || amount > initialTreasures.amount(i)) {
+                throw new IllegalArgumentException("Checkpoint was taken on a game with other treasures");
+            }
+            if (amount < initialTreasures.amount(i)) collected.add(x, y, initialTreasures.amount(i) - amount);
+        }
+        if (saved != savedTreasures.size()) {
+            throw new IllegalArgumentException("Checkpoint was taken on a game with other treasures");
+        }
+        return collected;
+    }
+
+    /**
+     * Check that adventurers of the checkpoint are on distinct free cells of the map, and that their progress fits
+     * their programs
+     */
+    private void checkAdventurers(GameCheckpoint checkpoint) {
+        if (checkpoint.turns < 0) throw new IllegalArgumentException(
+                "Checkpoint has a negative amount of rounds %d".formatted(checkpoint.turns)
+        );
+        int count = adventurers.size();
+        LongIntHashMap positions = new LongIntHashMap(count);
+        for (int id = 0; id < count; id++) {
+            int x = checkpoint.xs[id];
+            int y = checkpoint.ys[id];
+            if (x < 0 || x >= map.getHeight() || y < 0 || y >= map.getWidth() || map.isMountain(x, y)) {
+                throw new IllegalArgumentException(
+                        "Checkpoint places adventurer %d on the invalid cell %d-%d".formatted(id, x, y)
+                );
+            }
+            long index = (long) x * map.getWidth() + y;
+            if (positions.get(index) != 0) throw new IllegalArgumentException(
+                    "Checkpoint places several adventurers on the cell %d-%d".formatted(x, y)
+            );
+            positions.put(index, id + 1);
+            if (checkpoint.cursors[id] < 0 || checkpoint.cursors[id] > adventurers.programs[id].size()
+                    || checkpoint.collectedTreasures[id] < 0 || checkpoint.forwardLeft[id] < 0) {
+                throw new IllegalArgumentException("Checkpoint was taken on a game with other adventurers");
+            }
+        }
+
+        // active adventurers are in game order, ready after the last round played, with at most the movements before
+        // their cursor left
+        int firstReadyRound = Integer.MAX_VALUE;
+        int previous = -1;
+        for (int id : checkpoint.activeAdventurers) {
+            if (id <= previous || id >= count || checkpoint.readyRounds[id] < checkpoint.turns
+                    || checkpoint.forwardLeft[id] > checkpoint.cursors[id]) {
+                throw new IllegalArgumentException("Checkpoint has an invalid active adventurer %d".formatted(id));
+            }
+            previous = id;
+            firstReadyRound = Math.min(firstReadyRound, checkpoint.readyRounds[id]);
+        }
+        if (checkpoint.nextRound != firstReadyRound) throw new IllegalArgumentException(
+                "Checkpoint next round %d is not the first round of its active adventurers".formatted(checkpoint.nextRound)
+        );
+    }
+
     public Map getMap() {
         return map;
     }
@@ -78,47 +392,130 @@ public class Game {
     /**
      * @param adventurer the adventurer to get the amount of collected treasures
      * @return the amount of collected treasures
+     * @throws IllegalArgumentException if the adventurer is not part of the game
      */
     public int getCollectedTreasures(Adventurer adventurer) {
-        return adventurersCollectedTreasures.get(adventurer);
+        return adventurers.treasures[adventurers.idOf(adventurer)];
     }
 
-    private Movement getNextMovement(Adventurer adventurer) {
-        return adventurersMovements.get(adventurer).poll();
+    private void moveAdventurerForward(int id) {
+        int orientation = adventurers.orientations[id];
+        int fromX = adventurers.xs[id];
+        int fromY = adventurers.ys[id];
+        moveAdventurerToCoords(id, fromX, fromY, fromX + AdventurerStore.FORWARD_X[orientation], fromY + AdventurerStore.FORWARD_Y[orientation]);
     }
 
-    private void moveAdventurerForward(Adventurer adventurer) {
-        Point coords = adventurersCoords.get(adventurer);
-        switch (adventurer.getOrientation()) {
-            case NORTH -> moveAdventurerToCoords(adventurer, coords.x, coords.y, coords.x - 1, coords.y);
-            case EAST -> moveAdventurerToCoords(adventurer, coords.x, coords.y, coords.x, coords.y + 1);
-            case SOUTH -> moveAdventurerToCoords(adventurer, coords.x, coords.y, coords.x + 1, coords.y);
-            case WEST -> moveAdventurerToCoords(adventurer, coords.x, coords.y, coords.x, coords.y - 1);
-        }
-    }
-
-    private void moveAdventurerToCoords(Adventurer adventurer, int fromX, int fromY, int toX, int toY) {
-        if (Map.areCoordsOutOfBounds(map.getHeight(), map.getHeight(), toX, toY)) {
+    private void moveAdventurerToCoords(int id, int fromX, int fromY, int toX, int toY) {
+        if (toX < 0 || toX >= map.getHeight() || toY < 0 || toY >= map.getWidth()) {
+            if (metrics != null) metrics.outOfBounds.increment();
+            if (events != null) send(GameEvent.OUT_OF_BOUNDS, id, toX, toY);
             return;
         }
-        Cell sourceCell = this.map.getCell(fromX, fromY);
-        Cell destinationCell = this.map.getCell(toX, toY);
-        if (!destinationCell.isMountain() && !destinationCell.hasAdventurer()) {
-            sourceCell.removeAdventurer();
-            destinationCell.placeAdventurer(adventurer);
-            adventurersCoords.put(adventurer, new Point(toX, toY));
-            if (destinationCell.hasTreasures()) {
-                destinationCell.removeOneTreasure();
-                adventurersCollectedTreasures.put(adventurer, adventurersCollectedTreasures.get(adventurer) + 1);
+        if (!map.isMountain(toX, toY) && !map.hasAdventurer(toX, toY)) {
+            map.moveAdventurer(fromX, fromY, toX, toY);
+            adventurers.xs[id] = toX;
+            adventurers.ys[id] = toY;
+            if (metrics != null) metrics.moves.increment();
+            if (events != null) send(GameEvent.MOVED, id, toX, toY);
+            if (map.hasTreasures(toX, toY)) {
+                map.removeOneTreasure(toX, toY);
+                if (remainingTreasures != null) remainingTreasures.collect(toX, toY);
+                adventurers.treasures[id]++;
+                if (metrics != null) metrics.treasuresCollected.increment();
+                if (events != null) send(GameEvent.TREASURE_PICKED, id, toX, toY);
             }
+        } else if (metrics != null || events != null) {
+            boolean mountain = map.isMountain(toX, toY);
+            if (metrics != null) (mountain ? metrics.blockedByMountain : metrics.blockedByAdventurer).increment();
+            if (events != null) send(mountain ? GameEvent.BLOCKED_BY_MOUNTAIN : GameEvent.BLOCKED_BY_ADVENTURER, id, toX, toY);
         }
     }
 
-    private boolean isFinished() {
-        for (Queue<Movement> movements : adventurersMovements.values()) {
-            if (!movements.isEmpty()) return false;
+    private void send(GameEvent event, int id, int x, int y) {
+        events.onEvent(event, round, id, x, y, ORIENTATIONS[adventurers.orientations[id]]);
+    }
+
+    /**
+     * Send the rotations played up to a round, before the other events of the round. Rounds before it only made of
+     * rotations are reported as played once their rotations are sent.
+     */
+    private void sendRotations(int round) {
+        while (!pendingRotations.isEmpty() && pendingRotations.firstRound() <= round) {
+            int rotationsRound = pendingRotations.firstRound();
+            do {
+                long rotation = pendingRotations.poll();
+                int id = PendingRotations.adventurer(rotation);
+                // adventurers do not move while they rotate, their cell is the one they stopped on
+                events.onEvent(GameEvent.ROTATED, rotationsRound, id, adventurers.xs[id], adventurers.ys[id],
+                        ORIENTATIONS[PendingRotations.orientation(rotation)]);
+            } while (!pendingRotations.isEmpty() && pendingRotations.firstRound() == rotationsRound);
+            if (rotationsRound < round) events.onRoundPlayed(rotationsRound);
+        }
+    }
+
+    /**
+     * Count what happens in the game as it is played. Metrics may be shared by games played at the same time.
+     * @param metrics the counters, null to stop counting
+     */
+    public void recordMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Send the events of the game to a sink as it is played. Without a sink, no event is created.
+     * @param events the sink, null to stop sending events
+     */
+    public void sendEvents(GameEventSink events) {
+        this.eventsSink = events;
+        updateEvents();
+    }
+
+    /**
+     * Record the game as it is played, to look at its state after any round. The game is then played sequentially.
+     * @param snapshotInterval the interval between two copies of the state, in rounds. Seeking a state applies the
+     *                         changes of at most one interval
+     * @return the replay, filled as the game is played
+     * @throws IllegalArgumentException if snapshotInterval is not strictly positive
+     * @throws IllegalStateException    if the game was already played or restored
+     */
+    public GameReplay recordReplay(int snapshotInterval) {
+        if (snapshotInterval <= 0) throw new IllegalArgumentException(
+                "snapshotInterval=%d is not strictly positive".formatted(snapshotInterval)
+        );
+        if (started) throw new IllegalStateException("A replay can only be recorded before the game is played");
+        replay = new GameReplay(map, adventurers, snapshotInterval);
+        updateEvents();
+        return replay;
+    }
+
+    private void updateEvents() {
+        updateSinks();
+        adventurers.rotationListener = events == null ? null
+                : (id, rotationRound, orientation) -> pendingRotations.add(rotationRound, id, orientation);
+    }
+
+    private void updateSinks() {
+        if (replay == null) {
+            events = eventsSink;
+        } else if (eventsSink == null) {
+            events = replay.recorder();
+        } else {
+            GameEventSink first = eventsSink;
+            GameEventSink second = replay.recorder();
+            events = new GameEventSink() {
+                @Override
+                public void onEvent(GameEvent event, int round, int adventurer, int x, int y, Adventurer.Orientation orientation) {
+                    first.onEvent(event, round, adventurer, x, y, orientation);
+                    second.onEvent(event, round, adventurer, x, y, orientation);
+                }
+
+                @Override
+                public void onRoundPlayed(int round) {
+                    first.onRoundPlayed(round);
+                    second.onRoundPlayed(round);
+                }
+            };
         }
-        return true;
     }
 
     public enum Movement {
@@ -0,0 +1,256 @@
+package fr.baptistemasoud.functional;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Copy of the state of a Game between two rounds: mountains and treasures of the map, and for each adventurer its
+ * position, orientation, collected treasures and progress in its program. Programs themselves are not part of
+ * the checkpoint, a checkpoint is restored on a game created from the same configuration.
+ */
+public final class GameCheckpoint {
+    // "TRCK"
+    private static final int MAGIC = 0x5452434B;
+    // 2: cursors are indexes of movements instead of compiled instructions
+    private static final int VERSION = 2;
+
+    final int height;
+    final int width;
+    // rounds played, counting rounds skipped because no adventurer moved forward
+    final int turns;
+    final int nextRound;
+    // identifies the programs of the game, see AdventurerStore.programsHash
+    final long programsHash;
+    final Cells mountains;
+    final Cells treasures;
+    final int[] xs;
+    final int[] ys;
+    final int[] orientations;
+    final int[] collectedTreasures;
+    // index of the first movement of the next instruction of each adventurer
+    final int[] cursors;
+    final int[] readyRounds;
+    final int[] forwardLeft;
+    final int[] activeAdventurers;
+
+    GameCheckpoint(int height, int width, int turns, int nextRound, long programsHash, Cells mountains, Cells treasures,
+                   int[] xs, int[] ys, int[] orientations, int[] collectedTreasures,
+                   int[] cursors, int[] readyRounds, int[] forwardLeft, int[] activeAdventurers) {
+        this.height = height;
+        this.width = width;
+        this.turns = turns;
+        this.nextRound = nextRound;
+        this.programsHash = programsHash;
+        this.mountains = mountains;
+        this.treasures = treasures;
+        this.xs = xs;
+        this.ys = ys;
+        this.orientations = orientations;
+        this.collectedTreasures = collectedTreasures;
+        this.cursors = cursors;
+        this.readyRounds = readyRounds;
+        this.forwardLeft = forwardLeft;
+        this.activeAdventurers = activeAdventurers;
+    }
+
+    /**
+     * @return the amount of rounds played before the checkpoint
+     */
+    public int turns() {
+        return turns;
+    }
+
+    /**
+     * Write the checkpoint in a compact binary format, read back by read
+     * @throws IOException if the output fails
+     */
+    public void write(DataOutput output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(height);
+        output.writeInt(width);
+        output.writeInt(turns);
+        output.writeInt(nextRound);
+        output.writeLong(programsHash);
+        mountains.write(output, false);
+        treasures.write(output, true);
+
+        output.writeInt(xs.length);
+        for (int id = 0; id < xs.length; id++) {
+            output.writeInt(xs[id]);
+            output.writeInt(ys[id]);
+            output.writeByte(orientations[id]);
+            output.writeInt(collectedTreasures[id]);
+            output.writeInt(cursors[id]);
+            output.writeInt(readyRounds[id]);
+            output.writeInt(forwardLeft[id]);
+        }
+        writeInts(output, activeAdventurers);
+    }
+
+    /**
+     * @throws IOException if the input fails or is not a checkpoint written by write
+     */
+    public static GameCheckpoint read(DataInput input) throws IOException {
+        if (input.readInt() != MAGIC) throw new IOException("Not a game checkpoint");
+        int version = input.readInt();
+        if (version != VERSION) throw new IOException(
+                "Unsupported game checkpoint version %d, expected %d".formatted(version, VERSION)
+        );
+        int height = input.readInt();
+        int width = input.readInt();
+        int turns = input.readInt();
+        int nextRound = input.readInt();
+        long programsHash = input.readLong();
+        Cells mountains = Cells.read(input, false);
+        Cells treasures = Cells.read(input, true);
+
+        int count = readLength(input);
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        int[] orientations = new int[count];
+        int[] collectedTreasures = new int[count];
+        int[] cursors = new int[count];
+        int[] readyRounds = new int[count];
+        int[] forwardLeft = new int[count];
+        for (int id = 0; id < count; id++) {
+            xs[id] = input.readInt();
+            ys[id] = input.readInt();
+            orientations[id] = input.readByte() & 3;
+            collectedTreasures[id] = input.readInt();
+            cursors[id] = input.readInt();
+            readyRounds[id] = input.readInt();
+            forwardLeft[id] = input.readInt();
+        }
+        int[] activeAdventurers = readInts(input);
+
+        return new GameCheckpoint(height, width, turns, nextRound, programsHash, mountains, treasures,
+                xs, ys, orientations, collectedTreasures, cursors, readyRounds, forwardLeft, activeAdventurers);
+    }
+
+    private static void writeInts(DataOutput output, int[] values) throws IOException {
+        output.writeInt(values.length);
+        for (int value : values) output.writeInt(value);
+    }
+
+    private static int[] readInts(DataInput input) throws IOException {
+        int[] values = new int[readLength(input)];
+        for (int i = 0; i < values.length; i++) values[i] = input.readInt();
+        return values;
+    }
+
+    private static int readLength(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) throw new IOException("Corrupted game checkpoint, negative length %d".formatted(length));
+        return length;
+    }
+
+    /**
+     * Coordinates of cells, with an amount per cell for treasures
+     */
+    static final class Cells {
+        private int[] xs = new int[16];
+        private int[] ys = new int[16];
+        private int[] amounts = new int[16];
+        private int size = 0;
+
+        static Cells ofMountains(Map map) {
+            Cells mountains = new Cells();
+            map.forEachMountain((x, y) -> mountains.add(x, y, 0));
+            return mountains;
+        }
+
+        static Cells ofTreasures(Map map) {
+            Cells treasures = new Cells();
+            map.forEachTreasure(treasures::add);
+            return treasures;
+        }
+
+        void add(int x, int y, int amount) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            amounts[size] = amount;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int x(int i) {
+            return xs[i];
+        }
+
+        int y(int i) {
+            return ys[i];
+        }
+
+        int amount(int i) {
+            return amounts[i];
+        }
+
+        private void write(DataOutput output, boolean withAmounts) throws IOException {
+            output.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                output.writeInt(xs[i]);
+                output.writeInt(ys[i]);
+                if (withAmounts) output.writeInt(amounts[i]);
+            }
+        }
+
+        private static Cells read(DataInput input, boolean withAmounts) throws IOException {
+            int size = readLength(input);
+            Cells cells = new Cells();
+            for (int i = 0; i < size; i++) {
+                int x = input.readInt();
+                int y = input.readInt();
+                cells.add(x, y, withAmounts ? input.readInt() : 0);
+            }
+            return cells;
+        }
+    }
+
+    /**
+     * Treasures left on a map, updated as they are collected so that checkpoints never read the whole map. Treasures
+     * of distinct cells can be collected from several threads.
+     */
+    static final class RemainingTreasures {
+        private final int width;
+        // cells holding treasures when tracking started, in row by row order
+        private final Cells cells;
+        // position in cells plus 1 of each cell index
+        private final LongIntHashMap positions;
+
+        RemainingTreasures(Map map) {
+            this.width = map.getWidth();
+            this.cells = Cells.ofTreasures(map);
+            this.positions = new LongIntHashMap(cells.size);
+            for (int i = 0; i < cells.size; i++) positions.put((long) cells.xs[i] * width + cells.ys[i], i + 1);
+        }
+
+        /**
+         * Record that one treasure of a cell holding treasures was collected
+         */
+        void collect(int x, int y) {
+            cells.amounts[positions.get((long) x * width + y) - 1]--;
+        }
+
+        /**
+         * @return a copy of the cells still holding treasures, in row by row order
+         */
+        Cells cells() {
+            Cells remaining = new Cells();
+            for (int i = 0; i < cells.size; i++) {
+                if (cells.amounts[i] > 0) remaining.add(cells.xs[i], cells.ys[i], cells.amounts[i]);
+            }
+            return remaining;
+        }
+    }
+}
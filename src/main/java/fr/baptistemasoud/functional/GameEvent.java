@@ -0,0 +1,13 @@
+package fr.baptistemasoud.functional;
+
+/**
+ * What happened to an adventurer during a round, see GameEventSink for the cell reported with each event
+ */
+public enum GameEvent {
+    MOVED,
+    BLOCKED_BY_MOUNTAIN,
+    BLOCKED_BY_ADVENTURER,
+    OUT_OF_BOUNDS,
+    TREASURE_PICKED,
+    ROTATED
+}
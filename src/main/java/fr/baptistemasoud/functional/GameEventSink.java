@@ -0,0 +1,26 @@
+package fr.baptistemasoud.functional;
+
+/**
+ * Receives the events of a game as its rounds are played, on the thread playing the game, in round order, and in game
+ * order within a round. Rotations of a round are sent before its other events. Rounds where no adventurer rotates or
+ * moves forward are skipped.
+ */
+public interface GameEventSink {
+    /**
+     * @param event       what happened
+     * @param round       the round of the event. Each rotation is reported in the round it is played, including the
+     *                    rotations after the last forward movement of the adventurer
+     * @param adventurer  the index of the adventurer in the game
+     * @param x           x coordinate of the cell: the cell moved to or the blocking cell, the cell out of the map, or
+     *                    the cell of the adventurer for treasures and rotations
+     * @param y           y coordinate of the cell
+     * @param orientation the orientation of the adventurer, after the rotation for rotations
+     */
+    void onEvent(GameEvent event, int round, int adventurer, int x, int y, Adventurer.Orientation orientation);
+
+    /**
+     * Called once all the events of a round were sent
+     */
+    default void onRoundPlayed(int round) {
+    }
+}
@@ -0,0 +1,79 @@
+package fr.baptistemasoud.functional;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of what happened in the games recording into it. Counters are striped per thread, so that parallel rounds
+ * and games played at the same time update them without contention.
+ */
+public final class GameMetrics implements GameMetricsMBean {
+    final LongAdder moves = new LongAdder();
+    final LongAdder rotations = new LongAdder();
+    final LongAdder blockedByMountain = new LongAdder();
+    final LongAdder blockedByAdventurer = new LongAdder();
+    final LongAdder outOfBounds = new LongAdder();
+    final LongAdder treasuresCollected = new LongAdder();
+    final LongAdder turns = new LongAdder();
+    final LongAdder playNanos = new LongAdder();
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    /**
+     * @return the net orientation changes, rotations undone before moving forward are not counted
+     */
+    @Override
+    public long getRotations() {
+        return rotations.sum();
+    }
+
+    @Override
+    public long getBlockedByMountain() {
+        return blockedByMountain.sum();
+    }
+
+    @Override
+    public long getBlockedByAdventurer() {
+        return blockedByAdventurer.sum();
+    }
+
+    @Override
+    public long getOutOfBounds() {
+        return outOfBounds.sum();
+    }
+
+    @Override
+    public long getTreasuresCollected() {
+        return treasuresCollected.sum();
+    }
+
+    @Override
+    public long getTurns() {
+        return turns.sum();
+    }
+
+    @Override
+    public long getPlayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(playNanos.sum());
+    }
+
+    /**
+     * @return the turns played per second spent playing, summed over the games
+     */
+    @Override
+    public double getTurnsPerSecond() {
+        long nanos = playNanos.sum();
+        return nanos == 0 ? 0 : turns.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return ("moves=%d rotations=%d blockedByMountain=%d blockedByAdventurer=%d outOfBounds=%d treasuresCollected=%d " +
+                "turns=%d playMillis=%d turnsPerSecond=%.1f").formatted(getMoves(), getRotations(), getBlockedByMountain(),
+                getBlockedByAdventurer(), getOutOfBounds(), getTreasuresCollected(), getTurns(), getPlayMillis(),
+                getTurnsPerSecond());
+    }
+}
@@ -0,0 +1,24 @@
+package fr.baptistemasoud.functional;
+
+/**
+ * Management interface of GameMetrics
+ */
+public interface GameMetricsMBean {
+    long getMoves();
+
+    long getRotations();
+
+    long getBlockedByMountain();
+
+    long getBlockedByAdventurer();
+
+    long getOutOfBounds();
+
+    long getTreasuresCollected();
+
+    long getTurns();
+
+    long getPlayMillis();
+
+    double getTurnsPerSecond();
+}
@@ -0,0 +1,288 @@
+package fr.baptistemasoud.functional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Record of a game as it is played, to look at the state of the game after any amount of rounds without playing it
+ * again. The state is copied every snapshot interval rounds, and the moves, collected treasures and rotations between
+ * two snapshots are kept as deltas. A state is rebuilt from the closest snapshot before it, by applying at most the
+ * deltas of one interval: a smaller interval makes seeking faster but keeps more copies of the state.
+ * Created by Game.recordReplay.
+ */
+public final class GameReplay {
+    private static final Adventurer.Orientation[] ORIENTATIONS = Adventurer.Orientation.values();
+    private static final byte MOVED = 0;
+    private static final byte TREASURE_PICKED = 1;
+    private static final byte ROTATED = 2;
+
+    private final int height;
+    private final int width;
+    private final int snapshotInterval;
+    private final String[] names;
+    private final GameCheckpoint.Cells mountains;
+    private final GameCheckpoint.Cells initialTreasures;
+    // index + 1 of each treasure cell in initialTreasures, by x * width + y
+    private final LongIntHashMap treasureIndexes;
+    private final List<Snapshot> snapshots = new ArrayList<>();
+
+    // deltas in the order they were played, which is round order. For rotations, x and y are unused
+    private int[] deltaRounds = new int[1024];
+    private int[] deltaAdventurers = new int[1024];
+    private int[] deltaXs = new int[1024];
+    private int[] deltaYs = new int[1024];
+    // kind << 2 | orientation ordinal
+    private byte[] deltaKinds = new byte[1024];
+    private int deltasCount = 0;
+
+    // state after the rounds played so far
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] orientations;
+    private final int[] collectedTreasures;
+    private final int[] treasureAmounts;
+    private int turns = 0;
+    private long nextSnapshotTurn;
+
+    private final GameEventSink recorder = new GameEventSink() {
+        @Override
+        public void onEvent(GameEvent event, int round, int adventurer, int x, int y, Adventurer.Orientation orientation) {
+            record(event, round, adventurer, x, y, orientation);
+        }
+
+        @Override
+        public void onRoundPlayed(int round) {
+            roundPlayed(round);
+        }
+    };
+
+    /**
+     * Start recording a game before it is played
+     */
+    GameReplay(Map map, AdventurerStore adventurers, int snapshotInterval) {
+        this.height = map.getHeight();
+        this.width = map.getWidth();
+        this.snapshotInterval = snapshotInterval;
+        this.mountains = GameCheckpoint.Cells.ofMountains(map);
+        this.initialTreasures = GameCheckpoint.Cells.ofTreasures(map);
+        this.treasureIndexes = new LongIntHashMap(initialTreasures.size());
+        this.treasureAmounts = new int[initialTreasures.size()];
+        for (int i = 0; i < initialTreasures.size(); i++) {
+            treasureIndexes.put(cellKey(initialTreasures.x(i), initialTreasures.y(i)), i + 1);
+            treasureAmounts[i] = initialTreasures.amount(i);
+        }
+
+        int count = adventurers.size();
+        this.names = new String[count];
+        for (int id = 0; id < count; id++) names[id] = adventurers.adventurers[id].getName();
+        this.xs = adventurers.xs.clone();
+        this.ys = adventurers.ys.clone();
+        this.orientations = adventurers.orientations.clone();
+        this.collectedTreasures = adventurers.treasures.clone();
+        snapshot();
+    }
+
+    /**
+     * @return the sink recording the events of the game
+     */
+    GameEventSink recorder() {
+        return recorder;
+    }
+
+    private long cellKey(int x, int y) {
+        return (long) x * width + y;
+    }
+
+    private void record(GameEvent event, int round, int id, int x, int y, Adventurer.Orientation orientation) {
+        switch (event) {
+            case MOVED -> {
+                addDelta(MOVED, round, id, x, y, orientation);
+                xs[id] = x;
+                ys[id] = y;
+            }
+            case TREASURE_PICKED -> {
+                addDelta(TREASURE_PICKED, round, id, x, y, orientation);
+                treasureAmounts[treasureIndexes.get(cellKey(x, y)) - 1]--;
+                collectedTreasures[id]++;
+            }
+            case ROTATED -> {
+                addDelta(ROTATED, round, id, 0, 0, orientation);
+                orientations[id] = orientation.ordinal();
+            }
+            default -> {
+                // blocked movements do not change the state
+            }
+        }
+    }
+
+    private void addDelta(byte kind, int round, int id, int x, int y, Adventurer.Orientation orientation) {
+        if (deltasCount == deltaRounds.length) {
+            int capacity = deltasCount * 2;
+            deltaRounds = Arrays.copyOf(deltaRounds, capacity);
+            deltaAdventurers = Arrays.copyOf(deltaAdventurers, capacity);
+            deltaXs = Arrays.copyOf(deltaXs, capacity);
+            deltaYs = Arrays.copyOf(deltaYs, capacity);
+            deltaKinds = Arrays.copyOf(deltaKinds, capacity);
+        }
+        deltaRounds[deltasCount] = round;
+        deltaAdventurers[deltasCount] = id;
+        deltaXs[deltasCount] = x;
+        deltaYs[deltasCount] = y;
+        deltaKinds[deltasCount] = (byte) (kind << 2 | orientation.ordinal());
+        deltasCount++;
+    }
+
+    private void roundPlayed(int round) {
+        turns = round + 1;
+        if (turns >= nextSnapshotTurn) snapshot();
+    }
+
+    private void snapshot() {
+        snapshots.add(new Snapshot(turns, deltasCount, xs.clone(), ys.clone(), orientations.clone(),
+                collectedTreasures.clone(), treasureAmounts.clone()));
+        nextSnapshotTurn = ((long) turns / snapshotInterval + 1) * snapshotInterval;
+    }
+
+    /**
+     * @return the amount of rounds recorded so far, up to the last rotation or forward movement, counting skipped
+     * rounds where no adventurer rotated or moved forward
+     */
+    public int turns() {
+        return turns;
+    }
+
+    /**
+     * @return the amount of snapshots kept, including the one of the initial state
+     */
+    public int snapshotsCount() {
+        return snapshots.size();
+    }
+
+    /**
+     * Rebuild the state of the game after some rounds, each rotation being part of the state from the round after it
+     * is played
+     * @param turn the amount of rounds played, 0 for the initial state
+     * @throws IllegalArgumentException if turn is negative or greater than the amount of rounds recorded
+     */
+    public State stateAt(int turn) {
+        if (turn < 0 || turn > turns) throw new IllegalArgumentException(
+                "turn=%d is not between 0 and %d".formatted(turn, turns)
+        );
+        int index = snapshotIndex(turn);
+        Snapshot snapshot = snapshots.get(index);
+        int[] stateXs = snapshot.xs.clone();
+        int[] stateYs = snapshot.ys.clone();
+        int[] stateOrientations = snapshot.orientations.clone();
+        int[] stateCollected = snapshot.collectedTreasures.clone();
+        int[] stateTreasures = snapshot.treasureAmounts.clone();
+
+        // deltas are in round order, the ones of the turn and after are not part of the state
+        for (int i = snapshot.firstDelta; i < deltasCount && deltaRounds[i] < turn; i++) {
+            int kind = deltaKinds[i] >> 2;
+            int id = deltaAdventurers[i];
+            if (kind == ROTATED) {
+                stateOrientations[id] = deltaKinds[i] & 3;
+            } else if (kind == MOVED) {
+                stateXs[id] = deltaXs[i];
+                stateYs[id] = deltaYs[i];
+            } else {
+                stateTreasures[treasureIndexes.get(cellKey(deltaXs[i], deltaYs[i])) - 1]--;
+                stateCollected[id]++;
+            }
+        }
+        return new State(turn, stateXs, stateYs, stateOrientations, stateCollected, stateTreasures);
+    }
+
+    /**
+     * @return the index of the last snapshot taken at or before the turn
+     */
+    private int snapshotIndex(int turn) {
+        int low = 0;
+        int high = snapshots.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (snapshots.get(middle).turn <= turn) low = middle;
+            else high = middle - 1;
+        }
+        return low;
+    }
+
+    private record Snapshot(int turn, int firstDelta, int[] xs, int[] ys, int[] orientations, int[] collectedTreasures,
+                            int[] treasureAmounts) {
+    }
+
+    /**
+     * State of the recorded game after some rounds. Adventurers are identified by their index in the game.
+     */
+    public final class State {
+        private final int turn;
+        private final int[] xs;
+        private final int[] ys;
+        private final int[] orientations;
+        private final int[] collectedTreasures;
+        private final int[] treasureAmounts;
+
+        private State(int turn, int[] xs, int[] ys, int[] orientations, int[] collectedTreasures, int[] treasureAmounts) {
+            this.turn = turn;
+            this.xs = xs;
+            this.ys = ys;
+            this.orientations = orientations;
+            this.collectedTreasures = collectedTreasures;
+            this.treasureAmounts = treasureAmounts;
+        }
+
+        public int turn() {
+            return turn;
+        }
+
+        public int adventurersCount() {
+            return xs.length;
+        }
+
+        public String getName(int adventurer) {
+            return names[adventurer];
+        }
+
+        public int getX(int adventurer) {
+            return xs[adventurer];
+        }
+
+        public int getY(int adventurer) {
+            return ys[adventurer];
+        }
+
+        public Adventurer.Orientation getOrientation(int adventurer) {
+            return ORIENTATIONS[orientations[adventurer]];
+        }
+
+        public int getCollectedTreasures(int adventurer) {
+            return collectedTreasures[adventurer];
+        }
+
+        /**
+         * @return the amount of treasures left on the cell
+         */
+        public int getTreasures(int x, int y) {
+            int index = treasureIndexes.get(cellKey(x, y));
+            return index == 0 ? 0 : treasureAmounts[index - 1];
+        }
+
+        /**
+         * Create a map of the state, with new adventurers of the same names, for example to print it
+         * @return a new map with the mountains, the treasures left and the adventurers of the state
+         */
+        public Map createMap() {
+            Map.MapBuilder builder = new Map.MapBuilder(height, width);
+            for (int i = 0; i < mountains.size(); i++) builder.placeMountain(mountains.x(i), mountains.y(i));
+            for (int i = 0; i < initialTreasures.size(); i++) {
+                if (treasureAmounts[i] > 0) builder.placeTreasure(initialTreasures.x(i), initialTreasures.y(i), treasureAmounts[i]);
+            }
+            Map map = builder.createMap();
+            for (int id = 0; id < xs.length; id++) {
+                map.placeAdventurer(xs[id], ys[id], new Adventurer(ORIENTATIONS[orientations[id]], names[id]));
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package fr.baptistemasoud.functional;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non-negative long keys to non-zero int values, without boxing. A missing key reads as
+ * 0.
+ */
+final class LongIntHashMap {
+    private static final long FREE = -1;
+    private static final long PHI = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    private int mask;
+    private int shift;
+
+    /**
+     * @param expectedSize the amount of entries expected, the map grows beyond it
+     */
+    LongIntHashMap(int expectedSize) {
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) * 2));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        values = new int[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int slot(long key) {
+        return (int) ((key * PHI) >>> shift);
+    }
+
+    /**
+     * @return the value of the key, 0 if the key is missing
+     */
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) return values[slot];
+            if (current == FREE) return 0;
+        }
+    }
+
+    /**
+     * @param key   a non-negative key
+     * @param value a non-zero value
+     */
+    void put(long key, int value) {
+        int slot = slot(key);
+        for (; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                values[slot] = value;
+                return;
+            }
+            if (current == FREE) break;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // keep the load factor below 1/2
+        if (++size * 2 > keys.length) grow();
+    }
+
+    void remove(long key) {
+        int slot = slot(key);
+        for (; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == FREE) return;
+            if (current == key) break;
+        }
+        size--;
+
+        // shift back the following entries of the cluster, so that lookups do not stop at the freed slot
+        int free = slot;
+        for (int next = (free + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            int ideal = slot(keys[next]);
+            // move the entry if its ideal slot is not between the freed slot and its current slot
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        keys[free] = FREE;
+        values[free] = 0;
+    }
+
+    /**
+     * Remove all entries, keeping the capacity
+     */
+    void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) consumer.accept(keys[slot], values[slot]);
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] == FREE) continue;
+            int newSlot = slot(oldKeys[slot]);
+            while (keys[newSlot] != FREE) newSlot = (newSlot + 1) & mask;
+            keys[newSlot] = oldKeys[slot];
+            values[newSlot] = oldValues[slot];
+        }
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+}
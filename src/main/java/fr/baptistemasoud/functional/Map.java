@@ -1,40 +1,75 @@
 package fr.baptistemasoud.functional;
 
+import fr.baptistemasoud.functional.exception.AdventurerOnAdventurerException;
+import fr.baptistemasoud.functional.exception.AdventurerOnMountainException;
 import fr.baptistemasoud.functional.exception.DuplicateMountainsOrTreasuresException;
+import fr.baptistemasoud.functional.exception.NoTreasureOnCellException;
 import fr.baptistemasoud.functional.exception.OutOfBoundsException;
-import org.apache.commons.lang3.tuple.Pair;
 
-import java.awt.*;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class Map {
-    private final Cell[][] cells;
+    // below this amount of cells, a map is cheaper to complete on one thread
+    static final long MIN_PARALLEL_CELLS = 1 << 20;
+    // more ranges of rows than threads, so that threads finishing early take more rows
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final CellStorage storage;
     private final int height;
     private final int width;
+    // null when the map is built without summaries
+    private final MapSummaries summaries;
 
     /**
-     * @throws DuplicateMountainsOrTreasuresException if 2 treasure/mountain have the same coordinates
+     * @param storage the cells, with all mountains and treasures placed
+     * @param pool    the pool completing ranges of rows of large maps, null to complete the map on the calling thread
      */
-    private Map(int height, int width, Point[] mountainsCoords, Pair<Point, Integer>[] treasuresCoordsAndAmounts) {
-        this.cells = new Cell[height][width];
+    private Map(int height, int width, CellStorage storage, int summaryBlockSize, ForkJoinPool pool) {
         this.height = height;
         this.width = width;
+        this.storage = storage;
 
-        // validate that all coordinates are distinct
-        Stream<Point> treasuresPoints = Arrays.stream(treasuresCoordsAndAmounts).map((Pair::getLeft));
-        Stream<Point> mountainsPoints = Arrays.stream(mountainsCoords);
-        Set<Point> pointsSet = Stream.concat(mountainsPoints, treasuresPoints).collect(Collectors.toSet());
-        if (pointsSet.size() != mountainsCoords.length + treasuresCoordsAndAmounts.length) {
-            throw new DuplicateMountainsOrTreasuresException();
+        // remaining cells are plains
+        if (!completesInParallel(height, width, pool)) {
+            storage.complete(0, height);
+        } else {
+            completeInParallel(pool);
         }
+        this.summaries = summaryBlockSize == 0 ? null : new MapSummaries(height, width, summaryBlockSize, storage);
+    }
+
+    private static boolean completesInParallel(int height, int width, ForkJoinPool pool) {
+        return pool != null && pool.getParallelism() > 1 && (long) height * width >= MIN_PARALLEL_CELLS;
+    }
 
-        // init cells (plain, treasures or mountain)
-        initCells(mountainsCoords, treasuresCoordsAndAmounts);
+    private void completeInParallel(ForkJoinPool pool) {
+        int rangesCount = Math.min(height, pool.getParallelism() * RANGES_PER_THREAD);
+        int rangeHeight = (height + rangesCount - 1) / rangesCount;
+        List<Callable<Void>> tasks = new ArrayList<>(rangesCount);
+        for (int fromRow = 0; fromRow < height; fromRow += rangeHeight) {
+            int from = fromRow;
+            int to = Math.min(height, fromRow + rangeHeight);
+            tasks.add(() -> {
+                storage.complete(from, to);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while creating a map", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Map creation task failed", e.getCause());
+            }
+        }
     }
 
     /**
@@ -51,26 +86,9 @@ public class Map {
         return x < 0 || x >= height || y < 0 || y >= width;
     }
 
-    private void initCells(Point[] mountainsCoords, Pair<Point, Integer>[] treasuresCoordsAndAmounts) {
-        // create all mountains
-        for (Point mountainCoords : mountainsCoords) {
-            cells[mountainCoords.x][mountainCoords.y] = Cell.createMountainCell();
-        }
-
-        // create all treasures
-        for (Pair<Point, Integer> treasureCoordsAndAmount : treasuresCoordsAndAmounts) {
-            Point treasureCoords = treasureCoordsAndAmount.getLeft();
-            int treasureAmount = treasureCoordsAndAmount.getRight();
-            cells[treasureCoords.x][treasureCoords.y] = Cell.createTreasuresCell(treasureAmount);
-        }
-
-        // fill remaining empty cells with plains
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                if (cells[i][j] == null) {
-                    cells[i][j] = Cell.createPlainCell();
-                }
-            }
+    private void checkBounds(int x, int y) {
+        if (x < 0 || x >= height || y < 0 || y >= width) {
+            throw new OutOfBoundsException(height, width, x, y);
         }
     }
 
@@ -81,10 +99,174 @@ public class Map {
      * @throws OutOfBoundsException if coordinates are out of map bounds
      */
     public Cell getCell(int x, int y) {
-        if (areCoordsOutOfBounds(height, width, x, y)) {
-            throw new OutOfBoundsException(height, width, x, y);
+        checkBounds(x, y);
+        return storage.getCell(x, y);
+    }
+
+    /**
+     * Same as getCell(x, y).isMountain() without creating a Cell
+     * @throws OutOfBoundsException if coordinates are out of map bounds
+     */
+    public boolean isMountain(int x, int y) {
+        checkBounds(x, y);
+        return storage.isMountain(x, y);
+    }
+
+    /**
+     * Same as getCell(x, y).hasTreasures() without creating a Cell
+     * @throws OutOfBoundsException if coordinates are out of map bounds
+     */
+    public boolean hasTreasures(int x, int y) {
+        checkBounds(x, y);
+        return storage.getTreasures(x, y) > 0;
+    }
+
+    /**
+     * Same as getCell(x, y).getTreasures() without creating a Cell
+     * @throws OutOfBoundsException if coordinates are out of map bounds
+     */
+    public int getTreasures(int x, int y) {
+        checkBounds(x, y);
+        return storage.getTreasures(x, y);
+    }
+
+    /**
+     * Same as getCell(x, y).removeOneTreasure() without creating a Cell
+     * @throws OutOfBoundsException      if coordinates are out of map bounds
+     * @throws NoTreasureOnCellException if cell does not contain any treasure
+     */
+    public void removeOneTreasure(int x, int y) {
+        checkBounds(x, y);
+        if (storage.getTreasures(x, y) <= 0) throw new NoTreasureOnCellException("Cell does not contain any treasure");
+        storage.removeOneTreasure(x, y);
+        if (summaries != null) summaries.treasureRemoved(x, y);
+    }
+
+    /**
+     * Same as getCell(x, y).hasAdventurer() without creating a Cell
+     * @throws OutOfBoundsException if coordinates are out of map bounds
+     */
+    public boolean hasAdventurer(int x, int y) {
+        checkBounds(x, y);
+        return storage.getAdventurer(x, y) != null;
+    }
+
+    /**
+     * Same as getCell(x, y).getAdventurer() without creating a Cell
+     * @throws OutOfBoundsException if coordinates are out of map bounds
+     */
+    public Adventurer getAdventurer(int x, int y) {
+        checkBounds(x, y);
+        return storage.getAdventurer(x, y);
+    }
+
+    /**
+     * Same as getCell(x, y).placeAdventurer(adventurer) without creating a Cell
+     * @throws OutOfBoundsException            if coordinates are out of map bounds
+     * @throws AdventurerOnMountainException   if the cell is a Mountain
+     * @throws AdventurerOnAdventurerException if the cell already contains an Adventurer
+     */
+    public void placeAdventurer(int x, int y, Adventurer adventurer) {
+        checkBounds(x, y);
+        if (storage.isMountain(x, y)) throw new AdventurerOnMountainException();
+        if (storage.getAdventurer(x, y) != null) throw new AdventurerOnAdventurerException();
+        storage.placeAdventurer(x, y, adventurer);
+        if (summaries != null) summaries.adventurerPlaced(x, y);
+    }
+
+    /**
+     * Same as getCell(x, y).removeAdventurer() without creating a Cell
+     * @throws OutOfBoundsException if coordinates are out of map bounds
+     */
+    public void removeAdventurer(int x, int y) {
+        checkBounds(x, y);
+        if (summaries != null && storage.getAdventurer(x, y) != null) summaries.adventurerRemoved(x, y);
+        storage.removeAdventurer(x, y);
+    }
+
+    /**
+     * Move the Adventurer of a cell to another cell
+     * @throws OutOfBoundsException            if coordinates are out of map bounds
+     * @throws IllegalStateException           if the source cell does not contain any Adventurer
+     * @throws AdventurerOnMountainException   if the destination cell is a Mountain
+     * @throws AdventurerOnAdventurerException if the destination cell already contains an Adventurer
+     */
+    public void moveAdventurer(int fromX, int fromY, int toX, int toY) {
+        checkBounds(fromX, fromY);
+        checkBounds(toX, toY);
+        if (storage.getAdventurer(fromX, fromY) == null) throw new IllegalStateException(
+                "x=%d and y=%d does not contain any Adventurer".formatted(fromX, fromY)
+        );
+        if (storage.isMountain(toX, toY)) throw new AdventurerOnMountainException();
+        if (storage.getAdventurer(toX, toY) != null) throw new AdventurerOnAdventurerException();
+        storage.moveAdventurer(fromX, fromY, toX, toY);
+        if (summaries != null) summaries.adventurerMoved(fromX, fromY, toX, toY);
+    }
+
+    /**
+     * Summarize a rectangle of cells, clamped to the map bounds. Maps built with summaries answer from the widest
+     * summary blocks within the rectangle and only read the cells left on its edges, otherwise the cells are read one by
+     * one. Summaries only follow changes made through Map methods.
+     * @param fromX first x coordinate
+     * @param fromY first y coordinate
+     * @param toX   x coordinate following the last one
+     * @param toY   y coordinate following the last one
+     * @return the amounts of cells, mountains, treasures and adventurers of the rectangle
+     */
+    public BlockSummary summarize(int fromX, int fromY, int toX, int toY) {
+        fromX = Math.clamp(fromX, 0, height);
+        fromY = Math.clamp(fromY, 0, width);
+        toX = Math.clamp(toX, fromX, height);
+        toY = Math.clamp(toY, fromY, width);
+        if (fromX == toX || fromY == toY) return new BlockSummary(0, 0, 0, 0);
+
+        if (summaries != null) return summaries.summarize(fromX, fromY, toX, toY);
+        return count(storage, fromX, fromY, toX, toY);
+    }
+
+    /**
+     * Summarize a non empty rectangle within the map by reading its cells one by one
+     */
+    static BlockSummary count(CellStorage storage, int fromX, int fromY, int toX, int toY) {
+        long mountains = 0;
+        long treasures = 0;
+        long adventurers = 0;
+        for (int x = fromX; x < toX; x++) {
+            for (int y = fromY; y < toY; y++) {
+                if (storage.isMountain(x, y)) mountains++;
+                treasures += storage.getTreasures(x, y);
+                if (storage.getAdventurer(x, y) != null) adventurers++;
+            }
         }
-        return cells[x][y];
+        return new BlockSummary((long) (toX - fromX) * (toY - fromY), mountains, treasures, adventurers);
+    }
+
+    /**
+     * Visit all mountains, row by row
+     */
+    public void forEachMountain(CoordinatesConsumer consumer) {
+        storage.forEachMountain(consumer);
+    }
+
+    /**
+     * Visit all cells containing treasures, row by row
+     */
+    public void forEachTreasure(TreasuresConsumer consumer) {
+        storage.forEachTreasure(consumer);
+    }
+
+    /**
+     * Visit all cells containing an Adventurer, row by row
+     */
+    public void forEachAdventurer(AdventurerConsumer consumer) {
+        storage.forEachAdventurer(consumer);
+    }
+
+    /**
+     * @return true if adventurers on distinct cells can be moved concurrently
+     */
+    boolean supportsConcurrentMoves() {
+        return storage.supportsConcurrentMoves();
     }
 
     public int getHeight() {
@@ -95,11 +277,73 @@ public class Map {
         return width;
     }
 
+    /**
+     * How the cells of a map are held in memory
+     */
+    public enum Storage {
+        /**
+         * One Cell object per square, suited to small maps
+         */
+        DENSE,
+        /**
+         * Primitive arrays indexed by square, without any object per square. Limited to 2^31 squares
+         */
+        PRIMITIVE,
+        /**
+         * Only mountains, treasures and adventurers are stored, plains are implicit. Suited to huge maps that are
+         * mostly plains
+         */
+        SPARSE,
+        /**
+         * Square tiles of cells, only allocated once a mountain, a treasure or an adventurer is placed on them. Suited
+         * to large maps whose content is clustered
+         */
+        TILED
+    }
+
+    /**
+     * @param cells       amount of cells of the block
+     * @param mountains   amount of mountains
+     * @param treasures   total amount of treasures
+     * @param adventurers amount of adventurers
+     */
+    public record BlockSummary(long cells, long mountains, long treasures, long adventurers) {
+    }
+
+    @FunctionalInterface
+    public interface CoordinatesConsumer {
+        void accept(int x, int y);
+    }
+
+    @FunctionalInterface
+    public interface TreasuresConsumer {
+        void accept(int x, int y, int amount);
+    }
+
+    @FunctionalInterface
+    public interface AdventurerConsumer {
+        void accept(int x, int y, Adventurer adventurer);
+    }
+
+    /**
+     * Builder of a Map. Mountains and treasures are written to the cells of the map as they are placed, so the storage
+     * must be chosen before placing them, and a builder creates one map.
+     */
     public static class MapBuilder {
+        public static final int DEFAULT_TILE_SIZE = 64;
+        public static final int MAX_TILE_SIZE = TiledCellStorage.MAX_TILE_SIZE;
+
         private final int height;
         private final int width;
-        private final List<Point> mountainsCoords = new ArrayList<>();
-        private final List<Pair<Point, Integer>> treasuresCoordsAndAmounts = new ArrayList<>();
+        private Storage storage = Storage.DENSE;
+        private int tileSize = DEFAULT_TILE_SIZE;
+        private int summaryBlockSize = 0;
+        // created on the first placement, null before
+        private CellStorage cells;
+        private PlacedCells placedCells;
+        private long mountainsCount = 0;
+        private long treasuresCount = 0;
+        private boolean created = false;
 
         /**
          * @param height the height of the map, must be strictly positive
@@ -117,13 +361,15 @@ public class Map {
          * @param x coordinate
          * @param y coordinate
          * @return this MapBuilder
-         * @throws OutOfBoundsException if coordinates are out of map bounds
+         * @throws OutOfBoundsException                   if coordinates are out of map bounds
+         * @throws DuplicateMountainsOrTreasuresException if a mountain or a treasure is already placed on the cell
+         * @throws IllegalArgumentException               if the map is too large for the chosen storage
+         * @throws IllegalStateException                  if the map was already created
          */
         public MapBuilder placeMountain(int x, int y) {
-            if (areCoordsOutOfBounds(height, width, x, y)) {
-                throw new OutOfBoundsException(height, width, x, y);
-            }
-            mountainsCoords.add(new Point(x, y));
+            checkBounds(x, y);
+            place(x, y).placeMountain(x, y);
+            mountainsCount++;
             return this;
         }
 
@@ -132,29 +378,278 @@ public class Map {
          * @param y      coordinate
          * @param amount of treasures to be placed, must be strictly positive
          * @return this MapBuilder/
-         * @throws OutOfBoundsException     if coordinates are out of map bounds
-         * @throws IllegalArgumentException if amount is not strictly positive
+         * @throws OutOfBoundsException                   if coordinates are out of map bounds
+         * @throws IllegalArgumentException               if amount is not strictly positive
+         * @throws DuplicateMountainsOrTreasuresException if a mountain or a treasure is already placed on the cell
+         * @throws IllegalArgumentException               if the map is too large for the chosen storage
+         * @throws IllegalStateException                  if the map was already created
          */
         public MapBuilder placeTreasure(int x, int y, int amount) {
             if (amount <= 0) throw new IllegalArgumentException("amount=%d is not strictly positive".formatted(amount));
-            if (areCoordsOutOfBounds(height, width, x, y)) throw new OutOfBoundsException(height, width, x, y);
+            checkBounds(x, y);
+
+            place(x, y).placeTreasures(x, y, amount);
+            treasuresCount++;
+            return this;
+        }
+
+        /**
+         * Place a mountain on each (xs[i], ys[i]). All coordinates are checked before any mountain is placed, but the
+         * mountains placed before a duplicate stay placed
+         * @param xs x coordinates
+         * @param ys y coordinates, as many as x coordinates
+         * @return this MapBuilder
+         * @throws IllegalArgumentException               if xs and ys have different lengths
+         * @throws OutOfBoundsException                   if coordinates are out of map bounds
+         * @throws DuplicateMountainsOrTreasuresException if a mountain or a treasure is already placed on a cell
+         * @throws IllegalStateException                  if the map was already created
+         */
+        public MapBuilder placeMountains(int[] xs, int[] ys) {
+            if (xs.length != ys.length) throw new IllegalArgumentException(
+                    "%d x coordinates and %d y coordinates".formatted(xs.length, ys.length)
+            );
+            for (int i = 0; i < xs.length; i++) checkBounds(xs[i], ys[i]);
 
-            treasuresCoordsAndAmounts.add(Pair.of(new Point(x, y), amount));
+            CellStorage cells = cells();
+            for (int i = 0; i < xs.length; i++) {
+                if (!placedCells.add(xs[i], ys[i])) throw new DuplicateMountainsOrTreasuresException();
+                cells.placeMountain(xs[i], ys[i]);
+                mountainsCount++;
+            }
+            return this;
+        }
+
+        /**
+         * Place amounts[i] treasures on each (xs[i], ys[i]). All coordinates and amounts are checked before any
+         * treasure is placed, but the treasures placed before a duplicate stay placed
+         * @param xs      x coordinates
+         * @param ys      y coordinates, as many as x coordinates
+         * @param amounts amounts of treasures, as many as x coordinates, must be strictly positive
+         * @return this MapBuilder
+         * @throws IllegalArgumentException               if the arrays have different lengths or an amount is not
+         *                                                strictly positive
+         * @throws OutOfBoundsException                   if coordinates are out of map bounds
+         * @throws DuplicateMountainsOrTreasuresException if a mountain or a treasure is already placed on a cell
+         * @throws IllegalStateException                  if the map was already created
+         */
+        public MapBuilder placeTreasures(int[] xs, int[] ys, int[] amounts) {
+            if (xs.length != ys.length || xs.length != amounts.length) throw new IllegalArgumentException(
+                    "%d x coordinates, %d y coordinates and %d amounts".formatted(xs.length, ys.length, amounts.length)
+            );
+            for (int i = 0; i < xs.length; i++) {
+                if (amounts[i] <= 0) throw new IllegalArgumentException("amount=%d is not strictly positive".formatted(amounts[i]));
+                checkBounds(xs[i], ys[i]);
+            }
+
+            CellStorage cells = cells();
+            for (int i = 0; i < xs.length; i++) {
+                if (!placedCells.add(xs[i], ys[i])) throw new DuplicateMountainsOrTreasuresException();
+                cells.placeTreasures(xs[i], ys[i], amounts[i]);
+                treasuresCount++;
+            }
+            return this;
+        }
+
+        /**
+         * Place a mountain on each cell of the rectangle between two corners, included. Nothing is placed if the
+         * rectangle is out of bounds or covers a placed cell
+         * @param fromX x coordinate of a corner
+         * @param fromY y coordinate of a corner
+         * @param toX   x coordinate of the opposite corner
+         * @param toY   y coordinate of the opposite corner
+         * @return this MapBuilder
+         * @throws OutOfBoundsException                   if a corner is out of map bounds
+         * @throws DuplicateMountainsOrTreasuresException if a mountain or a treasure is already placed in the rectangle
+         * @throws IllegalStateException                  if the map was already created
+         */
+        public MapBuilder placeMountainRectangle(int fromX, int fromY, int toX, int toY) {
+            checkBounds(fromX, fromY);
+            checkBounds(toX, toY);
+            int minX = Math.min(fromX, toX);
+            int maxX = Math.max(fromX, toX);
+            int minY = Math.min(fromY, toY);
+            int maxY = Math.max(fromY, toY) + 1;
+
+            CellStorage cells = cells();
+            for (int x = minX; x <= maxX; x++) {
+                if (placedCells.containsAny(x, minY, maxY)) throw new DuplicateMountainsOrTreasuresException();
+            }
+            for (int x = minX; x <= maxX; x++) {
+                placedCells.addRange(x, minY, maxY);
+                cells.placeMountains(x, minY, maxY);
+            }
+            mountainsCount += (long) (maxX - minX + 1) * (maxY - minY);
+            return this;
+        }
+
+        /**
+         * Place a mountain on each cell of the segment between two cells, included: the cells of the row, column or
+         * diagonal between them, or the cells closest to the straight line between them otherwise. Nothing is placed
+         * if the segment is out of bounds or crosses a placed cell
+         * @param fromX x coordinate of an end
+         * @param fromY y coordinate of an end
+         * @param toX   x coordinate of the other end
+         * @param toY   y coordinate of the other end
+         * @return this MapBuilder
+         * @throws OutOfBoundsException                   if an end is out of map bounds
+         * @throws DuplicateMountainsOrTreasuresException if a mountain or a treasure is already placed on the segment
+         * @throws IllegalStateException                  if the map was already created
+         */
+        public MapBuilder placeMountainLine(int fromX, int fromY, int toX, int toY) {
+            if (fromX == toX || fromY == toY) return placeMountainRectangle(fromX, fromY, toX, toY);
+            checkBounds(fromX, fromY);
+            checkBounds(toX, toY);
+
+            CellStorage cells = cells();
+            boolean[] duplicate = {false};
+            forEachCellOfLine(fromX, fromY, toX, toY, (x, y) -> duplicate[0] |= placedCells.containsAny(x, y, y + 1));
+            if (duplicate[0]) throw new DuplicateMountainsOrTreasuresException();
+            forEachCellOfLine(fromX, fromY, toX, toY, (x, y) -> {
+                placedCells.add(x, y);
+                cells.placeMountain(x, y);
+                mountainsCount++;
+            });
+            return this;
+        }
+
+        /**
+         * Visit the cells of a segment with Bresenham's algorithm, one cell per row or column of the longest side
+         */
+        private static void forEachCellOfLine(int fromX, int fromY, int toX, int toY, CoordinatesConsumer consumer) {
+            int dx = Math.abs(toX - fromX);
+            int dy = -Math.abs(toY - fromY);
+            int stepX = fromX < toX ? 1 : -1;
+            int stepY = fromY < toY ? 1 : -1;
+            int error = dx + dy;
+            int x = fromX;
+            int y = fromY;
+            while (true) {
+                consumer.accept(x, y);
+                if (x == toX && y == toY) return;
+                int doubled = 2 * error;
+                if (doubled >= dy) {
+                    error += dy;
+                    x += stepX;
+                }
+                if (doubled <= dx) {
+                    error += dx;
+                    y += stepY;
+                }
+            }
+        }
+
+        /**
+         * Same as areCoordsOutOfBounds, without checking the dimensions again
+         */
+        private void checkBounds(int x, int y) {
+            if (x < 0 || x >= height || y < 0 || y >= width) throw new OutOfBoundsException(height, width, x, y);
+        }
+
+        /**
+         * Record that a cell is placed
+         * @return the cells to write the placement to
+         */
+        private CellStorage place(int x, int y) {
+            CellStorage cells = cells();
+            if (!placedCells.add(x, y)) throw new DuplicateMountainsOrTreasuresException();
+            return cells;
+        }
+
+        private CellStorage cells() {
+            if (created) throw new IllegalStateException("The map of this MapBuilder was already created");
+            if (cells == null) {
+                cells = switch (storage) {
+                    case DENSE -> new DenseCellStorage(height, width);
+                    case PRIMITIVE -> new PrimitiveCellStorage(height, width);
+                    case SPARSE -> new SparseCellStorage(width);
+                    case TILED -> new TiledCellStorage(height, width, tileSize);
+                };
+                placedCells = new PlacedCells(height, width, storage == Storage.SPARSE || storage == Storage.TILED);
+            }
+            return cells;
+        }
+
+        private void checkNotPlaced() {
+            if (cells != null) throw new IllegalStateException(
+                    "The storage must be chosen before placing mountains or treasures"
+            );
+        }
+
+        /**
+         * @param storage how the cells of the created map are held in memory, DENSE by default
+         * @return this MapBuilder
+         * @throws NullPointerException  if storage is null
+         * @throws IllegalStateException if mountains or treasures were already placed
+         */
+        public MapBuilder useStorage(Storage storage) {
+            Objects.requireNonNull(storage, "storage must not be null");
+            checkNotPlaced();
+            this.storage = storage;
+            return this;
+        }
+
+        /**
+         * @param tileSize height and width of the tiles of a TILED map, must be a power of 2 at most MAX_TILE_SIZE,
+         *                 DEFAULT_TILE_SIZE by default
+         * @return this MapBuilder
+         * @throws IllegalArgumentException if tileSize is not a power of 2 at most MAX_TILE_SIZE
+         * @throws IllegalStateException    if mountains or treasures were already placed
+         */
+        public MapBuilder useTileSize(int tileSize) {
+            TiledCellStorage.checkTileSize(tileSize);
+            checkNotPlaced();
+            this.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * Keep summaries of the map by blocks of cells, for fast summarize calls on large rectangles
+         * @param baseBlockSize width of the smallest summarized blocks, must be a power of 2 greater than 1. Blocks
+         *                      twice, four times... as wide are summarized too
+         * @return this MapBuilder
+         * @throws IllegalArgumentException if baseBlockSize is not a power of 2 greater than 1
+         */
+        public MapBuilder useSummaries(int baseBlockSize) {
+            if (baseBlockSize < 2 || Integer.bitCount(baseBlockSize) != 1) throw new IllegalArgumentException(
+                    "baseBlockSize=%d is not a power of 2 greater than 1".formatted(baseBlockSize)
+            );
+            this.summaryBlockSize = baseBlockSize;
             return this;
         }
 
         /**
          * @return the created Map
-         * @throws IllegalArgumentException               if height, width are not strictly positive
-         * @throws OutOfBoundsException                   if a mountain or a treasure is out of bounds
-         * @throws DuplicateMountainsOrTreasuresException if 2 mountain/treasure have the same coordinates
+         * @throws IllegalArgumentException if the map is too large for the chosen storage
+         * @throws IllegalStateException    if the map was already created
          */
         public Map createMap() {
-            return new Map(
-                    height,
-                    width,
-                    mountainsCoords.toArray(Point[]::new),
-                    treasuresCoordsAndAmounts.toArray(Pair[]::new));
+            return createMap(null);
+        }
+
+        /**
+         * Create the map as createMap does, completing the cells of large maps by ranges of rows on a pool
+         * @param pool the pool completing the cells, null to complete them on the calling thread
+         * @return the created Map
+         * @throws IllegalArgumentException if the map is too large for the chosen storage
+         * @throws IllegalStateException    if the map was already created
+         */
+        public Map createMap(ForkJoinPool pool) {
+            MapBuildEvent event = new MapBuildEvent();
+            event.begin();
+            Map map = new Map(height, width, cells(), summaryBlockSize, pool);
+            created = true;
+            cells = null;
+            placedCells = null;
+            if (event.shouldCommit()) {
+                event.height = height;
+                event.width = width;
+                event.storage = storage.name();
+                event.mountains = mountainsCount;
+                event.treasures = treasuresCount;
+                event.parallel = completesInParallel(height, width, pool);
+                event.commit();
+            }
+            return map;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package fr.baptistemasoud.functional;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the creation of a Map by a MapBuilder
+ */
+@Name("fr.baptistemasoud.MapBuild")
+@Label("Map Build")
+@Category({"Treasure Hunt", "Map"})
+@Description("Creation of a map, its storage and summaries")
+final class MapBuildEvent extends Event {
+    @Label("Height")
+    int height;
+
+    @Label("Width")
+    int width;
+
+    @Label("Storage")
+    String storage;
+
+    @Label("Mountains")
+    long mountains;
+
+    @Label("Treasures")
+    long treasures;
+
+    @Label("Parallel")
+    @Description("Whether the cells were completed by ranges of rows on several threads")
+    boolean parallel;
+}
@@ -0,0 +1,172 @@
+package fr.baptistemasoud.functional;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Amounts of mountains, treasures and adventurers per square block of cells, at several resolutions: blocks of the
+ * first level are baseBlockSize cells wide, each following level has blocks twice as wide, up to one block covering
+ * the whole map. Blocks on the bottom and right edges only count cells within the map.
+ * <p>
+ * Rectangles are summarized from the widest blocks within them, their edges from narrower blocks, and the cells left
+ * out of any block are read from the storage.
+ * <p>
+ * Treasures and adventurers amounts are kept up to date by Map, atomically, so that games played in parallel can
+ * update them.
+ */
+final class MapSummaries {
+    private final int height;
+    private final int width;
+    private final CellStorage storage;
+    // level l has blocks of 1 << shifts[l] cells wide
+    private final int[] shifts;
+    private final int[] columns;
+    private final long[][] mountains;
+    private final AtomicLongArray[] treasures;
+    private final AtomicLongArray[] adventurers;
+
+    /**
+     * @param baseBlockSize width of the blocks of the first level, a power of 2 greater than 1
+     * @param storage       cells of the map, summarized once at creation and read for cells out of any block
+     * @throws IllegalArgumentException if baseBlockSize is not a power of 2 greater than 1
+     */
+    MapSummaries(int height, int width, int baseBlockSize, CellStorage storage) {
+        if (baseBlockSize < 2 || Integer.bitCount(baseBlockSize) != 1) throw new IllegalArgumentException(
+                "baseBlockSize=%d is not a power of 2 greater than 1".formatted(baseBlockSize)
+        );
+        this.height = height;
+        this.width = width;
+        this.storage = storage;
+
+        int baseShift = Integer.numberOfTrailingZeros(baseBlockSize);
+        int levels = 1;
+        while ((long) Math.max(height, width) > 1L << (baseShift + levels - 1)) levels++;
+        shifts = new int[levels];
+        columns = new int[levels];
+        mountains = new long[levels][];
+        treasures = new AtomicLongArray[levels];
+        adventurers = new AtomicLongArray[levels];
+        for (int level = 0; level < levels; level++) {
+            int shift = baseShift + level;
+            shifts[level] = shift;
+            columns[level] = (int) ((width + (1L << shift) - 1) >>> shift);
+            int rows = (int) ((height + (1L << shift) - 1) >>> shift);
+            mountains[level] = new long[Math.multiplyExact(rows, columns[level])];
+            treasures[level] = new AtomicLongArray(rows * columns[level]);
+            adventurers[level] = new AtomicLongArray(rows * columns[level]);
+        }
+
+        storage.forEachMountain((x, y) -> {
+            for (int level = 0; level < shifts.length; level++) mountains[level][block(level, x, y)]++;
+        });
+        storage.forEachTreasure((x, y, amount) -> addTreasures(x, y, amount));
+        storage.forEachAdventurer((x, y, adventurer) -> addAdventurers(x, y, 1));
+    }
+
+    private int block(int level, int x, int y) {
+        return (x >>> shifts[level]) * columns[level] + (y >>> shifts[level]);
+    }
+
+    private void addTreasures(int x, int y, long amount) {
+        for (int level = 0; level < shifts.length; level++) treasures[level].addAndGet(block(level, x, y), amount);
+    }
+
+    private void addAdventurers(int x, int y, long amount) {
+        for (int level = 0; level < shifts.length; level++) adventurers[level].addAndGet(block(level, x, y), amount);
+    }
+
+    void treasureRemoved(int x, int y) {
+        addTreasures(x, y, -1);
+    }
+
+    void adventurerPlaced(int x, int y) {
+        addAdventurers(x, y, 1);
+    }
+
+    void adventurerRemoved(int x, int y) {
+        addAdventurers(x, y, -1);
+    }
+
+    void adventurerMoved(int fromX, int fromY, int toX, int toY) {
+        for (int level = 0; level < shifts.length; level++) {
+            int from = block(level, fromX, fromY);
+            int to = block(level, toX, toY);
+            // blocks are nested, both cells are in the same block at all following levels too
+            if (from == to) return;
+            adventurers[level].decrementAndGet(from);
+            adventurers[level].incrementAndGet(to);
+        }
+    }
+
+    /**
+     * @return the summary of the cells of a non empty rectangle within the map
+     */
+    Map.BlockSummary summarize(int fromX, int fromY, int toX, int toY) {
+        return summarize(shifts.length - 1, fromX, fromY, toX, toY);
+    }
+
+    /**
+     * Summarize a rectangle from the widest blocks of the given level or below within it, then its edges around them
+     */
+    private Map.BlockSummary summarize(int maxLevel, int fromX, int fromY, int toX, int toY) {
+        for (int level = maxLevel; level >= 0; level--) {
+            int shift = shifts[level];
+            int innerFromX = alignUp(fromX, shift, height);
+            int innerToX = alignDown(toX, shift, height);
+            int innerFromY = alignUp(fromY, shift, width);
+            int innerToY = alignDown(toY, shift, width);
+            if (innerFromX >= innerToX || innerFromY >= innerToY) continue;
+
+            Map.BlockSummary summary = summarizeBlocks(level, innerFromX, innerFromY, innerToX, innerToY);
+            // rows above and below the blocks, then columns left and right of them
+            summary = add(summary, edge(level, fromX, fromY, innerFromX, toY));
+            summary = add(summary, edge(level, innerToX, fromY, toX, toY));
+            summary = add(summary, edge(level, innerFromX, fromY, innerToX, innerFromY));
+            return add(summary, edge(level, innerFromX, innerToY, innerToX, toY));
+        }
+        return Map.count(storage, fromX, fromY, toX, toY);
+    }
+
+    private Map.BlockSummary edge(int level, int fromX, int fromY, int toX, int toY) {
+        if (fromX >= toX || fromY >= toY) return null;
+        // edges are narrower than the blocks of this level
+        return level == 0 ? Map.count(storage, fromX, fromY, toX, toY) : summarize(level - 1, fromX, fromY, toX, toY);
+    }
+
+    private static Map.BlockSummary add(Map.BlockSummary summary, Map.BlockSummary edge) {
+        if (edge == null) return summary;
+        return new Map.BlockSummary(summary.cells() + edge.cells(), summary.mountains() + edge.mountains(),
+                summary.treasures() + edge.treasures(), summary.adventurers() + edge.adventurers());
+    }
+
+    /**
+     * @return the first block boundary from the coordinate, the bound of the map included
+     */
+    private static int alignUp(int coordinate, int shift, int bound) {
+        return (int) Math.min(bound, (coordinate + (1L << shift) - 1) >>> shift << shift);
+    }
+
+    /**
+     * @return the last block boundary up to the coordinate, the bound of the map included
+     */
+    private static int alignDown(int coordinate, int shift, int bound) {
+        return coordinate == bound ? bound : coordinate >>> shift << shift;
+    }
+
+    private Map.BlockSummary summarizeBlocks(int level, int fromX, int fromY, int toX, int toY) {
+        int shift = shifts[level];
+        int lastRow = (toX - 1) >>> shift;
+        int lastColumn = (toY - 1) >>> shift;
+        long mountainsCount = 0;
+        long treasuresCount = 0;
+        long adventurersCount = 0;
+        for (int row = fromX >>> shift; row <= lastRow; row++) {
+            for (int column = fromY >>> shift; column <= lastColumn; column++) {
+                int block = row * columns[level] + column;
+                mountainsCount += mountains[level][block];
+                treasuresCount += treasures[level].get(block);
+                adventurersCount += adventurers[level].get(block);
+            }
+        }
+        return new Map.BlockSummary((long) (toX - fromX) * (toY - fromY), mountainsCount, treasuresCount, adventurersCount);
+    }
+}
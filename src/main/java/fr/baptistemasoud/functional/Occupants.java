@@ -0,0 +1,33 @@
+package fr.baptistemasoud.functional;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Registry of the adventurers placed on a map, so that storages can refer to them by a positive int
+ */
+final class Occupants {
+    private final java.util.Map<Adventurer, Integer> ids = new IdentityHashMap<>();
+    private Adventurer[] adventurers = new Adventurer[8];
+
+    /**
+     * @return the id of the adventurer, strictly positive, registering it on its first call
+     */
+    int idOf(Adventurer adventurer) {
+        Integer id = ids.get(adventurer);
+        if (id != null) return id;
+
+        id = ids.size() + 1;
+        if (id == adventurers.length) adventurers = Arrays.copyOf(adventurers, adventurers.length * 2);
+        adventurers[id] = adventurer;
+        ids.put(adventurer, id);
+        return id;
+    }
+
+    /**
+     * @param id a strictly positive id returned by idOf
+     */
+    Adventurer get(int id) {
+        return adventurers[id];
+    }
+}
@@ -0,0 +1,171 @@
+package fr.baptistemasoud.functional;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable sequence of movements stored as 2-bit codes, 32 movements per long: the Movement ordinal, or NONE for a
+ * null movement which only takes a turn.
+ */
+public final class PackedMovements implements Iterable<Game.Movement> {
+    static final int NONE = 3;
+    private static final Game.Movement[] MOVEMENTS = Game.Movement.values();
+    private static final int CODES_PER_WORD = 32;
+
+    private final long[] words;
+    private final int size;
+
+    private PackedMovements(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * @param movements the movements, null movements only take a turn
+     */
+    public static PackedMovements of(Game.Movement... movements) {
+        Builder builder = new Builder(movements.length);
+        for (Game.Movement movement : movements) {
+            builder.add(movement);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param words the codes, 32 per long from the lowest bits, as returned by toWords
+     * @param size  the amount of movements
+     * @throws IllegalArgumentException if size is negative or words are too few to hold size codes
+     */
+    public static PackedMovements ofWords(long[] words, int size) {
+        if (size < 0 || words.length < (size + CODES_PER_WORD - 1L) / CODES_PER_WORD) throw new IllegalArgumentException(
+                "%d words cannot hold %d movements".formatted(words.length, size)
+        );
+        int usedWords = Math.max(1, (size + CODES_PER_WORD - 1) / CODES_PER_WORD);
+        long[] copy = Arrays.copyOf(words, usedWords);
+        // codes beyond size are zeroed, as built ones
+        int lastCodes = size % CODES_PER_WORD;
+        if (lastCodes != 0) copy[usedWords - 1] &= (1L << (lastCodes * 2)) - 1;
+        if (size == 0) copy[0] = 0;
+        return new PackedMovements(copy, size);
+    }
+
+    /**
+     * @return the codes, 32 per long from the lowest bits: the Movement ordinal, or 3 for a null movement
+     */
+    public long[] toWords() {
+        return Arrays.copyOf(words, (size + CODES_PER_WORD - 1) / CODES_PER_WORD);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the movement at the index, null for a movement which only takes a turn
+     * @throws IndexOutOfBoundsException if index is out of bounds
+     */
+    public Game.Movement get(int index) {
+        int code = code(Objects.checkIndex(index, size));
+        return code == NONE ? null : MOVEMENTS[code];
+    }
+
+    int code(int index) {
+        return (int) (words[index / CODES_PER_WORD] >>> ((index % CODES_PER_WORD) * 2)) & 3;
+    }
+
+    public Game.Movement[] toArray() {
+        Game.Movement[] movements = new Game.Movement[size];
+        for (int i = 0; i < size; i++) {
+            int code = code(i);
+            movements[i] = code == NONE ? null : MOVEMENTS[code];
+        }
+        return movements;
+    }
+
+    /**
+     * @return an iterator decoding the movements in order, null movements included
+     */
+    @Override
+    public Iterator<Game.Movement> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Game.Movement next() {
+                if (index >= size) throw new NoSuchElementException();
+                int code = code(index++);
+                return code == NONE ? null : MOVEMENTS[code];
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PackedMovements other) || size != other.size) return false;
+        int usedWords = (size + CODES_PER_WORD - 1) / CODES_PER_WORD;
+        return Arrays.equals(words, 0, usedWords, other.words, 0, usedWords);
+    }
+
+    @Override
+    public int hashCode() {
+        int usedWords = (size + CODES_PER_WORD - 1) / CODES_PER_WORD;
+        int hash = size;
+        for (int i = 0; i < usedWords; i++) {
+            hash = 31 * hash + Long.hashCode(words[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * Append movements one by one, growing as needed
+     */
+    public static final class Builder {
+        private long[] words;
+        private int size = 0;
+
+        /**
+         * @param expectedSize the amount of movements expected, the builder grows beyond it
+         */
+        public Builder(int expectedSize) {
+            this.words = new long[Math.max(1, (expectedSize + CODES_PER_WORD - 1) / CODES_PER_WORD)];
+        }
+
+        /**
+         * @param movement the movement, null for a movement which only takes a turn
+         * @return this Builder
+         */
+        public Builder add(Game.Movement movement) {
+            return addCode(movement == null ? NONE : movement.ordinal());
+        }
+
+        Builder addCode(int code) {
+            int word = size / CODES_PER_WORD;
+            if (word == words.length) words = Arrays.copyOf(words, words.length * 2);
+            words[word] |= (long) code << ((size % CODES_PER_WORD) * 2);
+            size++;
+            return this;
+        }
+
+        /**
+         * @return the movements added so far. The builder can go on adding movements, they are not part of the
+         * built PackedMovements
+         */
+        public PackedMovements build() {
+            int usedWords = Math.max(1, (size + CODES_PER_WORD - 1) / CODES_PER_WORD);
+            // copied even when full, later codes would be written in the last word of the built movements
+            return new PackedMovements(Arrays.copyOf(words, usedWords), size);
+        }
+    }
+}
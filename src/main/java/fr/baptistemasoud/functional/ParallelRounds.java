@@ -0,0 +1,211 @@
+package fr.baptistemasoud.functional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Play rounds of a Game on several threads, with the same outcome as playing adventurers one by one in game order.
+ * <p>
+ * The map is split in strips of rows. A forward movement is independent when its target cell is free at the start of
+ * the round, is the target of no other movement, and its source cell is the target of no other movement: it succeeds
+ * whatever the order, and no other movement reads or writes its cells. Independent movements are played in parallel,
+ * one task per strip. The other movements are then played in game order, on cells independent movements never touch.
+ */
+final class ParallelRounds {
+    // below this amount of active adventurers, a round is cheaper to play sequentially
+    static final int MIN_ADVENTURERS = 1 << 12;
+    // more tasks than threads to balance strips of uneven crowd
+    private static final int TASKS_PER_THREAD = 4;
+    // target of an adventurer that does not move this round, or moves out of the map or onto a mountain
+    private static final long NO_TARGET = -1;
+
+    private final Map map;
+    private final AdventurerStore adventurers;
+    private final ForkJoinPool pool;
+    private final IntConsumer moveForward;
+    private final int width;
+    private final int regionsCount;
+    private final int regionHeight;
+    // amount of movements targeting each cell, one map per strip of rows
+    private final LongIntHashMap[] targetCounts;
+    // indexed by position in the active list
+    private long[] targets = new long[0];
+    private int[] targetRegions = new int[0];
+    private boolean[] conflicts = new boolean[0];
+    private boolean[] forwards = new boolean[0];
+    // positions in the active list, grouped by target region, in game order within a region
+    private int[] byRegion = new int[0];
+    private int nextRound;
+
+    /**
+     * @param moveForward play a forward movement of an adventurer, must be safe to call concurrently for adventurers
+     *                    moving on distinct cells
+     */
+    ParallelRounds(Map map, AdventurerStore adventurers, ForkJoinPool pool, IntConsumer moveForward) {
+        this.map = map;
+        this.adventurers = adventurers;
+        this.pool = pool;
+        this.moveForward = moveForward;
+        this.width = map.getWidth();
+        this.regionsCount = Math.min(map.getHeight(), Math.max(1, pool.getParallelism() * TASKS_PER_THREAD));
+        this.regionHeight = (map.getHeight() + regionsCount - 1) / regionsCount;
+        this.targetCounts = new LongIntHashMap[regionsCount];
+        for (int region = 0; region < regionsCount; region++) {
+            targetCounts[region] = new LongIntHashMap(16);
+        }
+    }
+
+    /**
+     * Play the forward movements of a round, and drop the adventurers which played their last forward movement
+     * @param active      ids of the active adventurers in game order, compacted in place
+     * @param activeCount amount of active adventurers
+     * @param round       the round to play
+     * @return the amount of adventurers still active
+     */
+    int playRound(int[] active, int activeCount, int round) {
+        ensureCapacity(activeCount);
+        int chunksCount = regionsCount;
+        int chunkSize = (activeCount + chunksCount - 1) / chunksCount;
+        int[][] regionCounts = new int[chunksCount][regionsCount];
+
+        // find the targets of forward movements
+        runTasks(chunksCount, chunk -> findTargets(active, round, chunk * chunkSize, Math.min(activeCount, (chunk + 1) * chunkSize), regionCounts[chunk]));
+
+        // group the movements by target region, keeping game order
+        int[] regionStarts = new int[regionsCount + 1];
+        int[][] chunkOffsets = new int[chunksCount][regionsCount];
+        int offset = 0;
+        for (int region = 0; region < regionsCount; region++) {
+            regionStarts[region] = offset;
+            for (int chunk = 0; chunk < chunksCount; chunk++) {
+                chunkOffsets[chunk][region] = offset;
+                offset += regionCounts[chunk][region];
+            }
+        }
+        regionStarts[regionsCount] = offset;
+        runTasks(chunksCount, chunk -> groupByRegion(chunk * chunkSize, Math.min(activeCount, (chunk + 1) * chunkSize), chunkOffsets[chunk]));
+
+        runTasks(regionsCount, region -> countTargets(regionStarts[region], regionStarts[region + 1], targetCounts[region]));
+        runTasks(regionsCount, region -> moveIndependent(active, regionStarts[region], regionStarts[region + 1]));
+
+        // play conflicting movements in game order, and drop finished adventurers
+        int remaining = 0;
+        nextRound = Integer.MAX_VALUE;
+        for (int i = 0; i < activeCount; i++) {
+            int id = active[i];
+            if (conflicts[i]) moveForward.accept(id);
+            if (forwards[i] && !adventurers.finishForward(id, round)) continue;
+
+            active[remaining++] = id;
+            nextRound = Math.min(nextRound, adventurers.readyRounds[id]);
+        }
+        return remaining;
+    }
+
+    /**
+     * @return the first round where an adventurer still active after the last played round moves forward
+     */
+    int nextRound() {
+        return nextRound;
+    }
+
+    private void ensureCapacity(int activeCount) {
+        if (targets.length >= activeCount) return;
+        targets = new long[activeCount];
+        targetRegions = new int[activeCount];
+        conflicts = new boolean[activeCount];
+        forwards = new boolean[activeCount];
+        byRegion = new int[activeCount];
+    }
+
+    private void findTargets(int[] active, int round, int from, int to, int[] regionCounts) {
+        int height = map.getHeight();
+        for (int i = from; i < to; i++) {
+            int id = active[i];
+            targets[i] = NO_TARGET;
+            conflicts[i] = false;
+            forwards[i] = adventurers.isReady(id, round);
+            // the last turn of a cut idle run has no forward movement
+            if (!forwards[i] || adventurers.forwardLeft[id] == 0) continue;
+
+            int orientation = adventurers.orientations[id];
+            int toX = adventurers.xs[id] + AdventurerStore.FORWARD_X[orientation];
+            int toY = adventurers.ys[id] + AdventurerStore.FORWARD_Y[orientation];
+            // moving out of the map or onto a mountain fails whatever the other adventurers do, it is played right away
+            // so that the game counts it, and changes nothing
+            if (toX < 0 || toX >= height || toY < 0 || toY >= width || map.isMountain(toX, toY)) {
+                moveForward.accept(id);
+                continue;
+            }
+
+            targets[i] = cellIndex(toX, toY);
+            targetRegions[i] = toX / regionHeight;
+            regionCounts[targetRegions[i]]++;
+        }
+    }
+
+    private void groupByRegion(int from, int to, int[] offsets) {
+        for (int i = from; i < to; i++) {
+            if (targets[i] != NO_TARGET) byRegion[offsets[targetRegions[i]]++] = i;
+        }
+    }
+
+    private void countTargets(int from, int to, LongIntHashMap counts) {
+        counts.clear();
+        for (int i = from; i < to; i++) {
+            long target = targets[byRegion[i]];
+            counts.put(target, counts.get(target) + 1);
+        }
+    }
+
+    private void moveIndependent(int[] active, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int position = byRegion[i];
+            int id = active[position];
+            long target = targets[position];
+            int toX = (int) (target / width);
+            int toY = (int) (target % width);
+            int fromX = adventurers.xs[id];
+            long source = cellIndex(fromX, adventurers.ys[id]);
+
+            boolean independent = targetCounts[targetRegions[position]].get(target) == 1
+                    && targetCounts[fromX / regionHeight].get(source) == 0
+                    && !map.hasAdventurer(toX, toY);
+            if (independent) moveForward.accept(id);
+            else conflicts[position] = true;
+        }
+    }
+
+    private long cellIndex(int x, int y) {
+        return (long) x * width + y;
+    }
+
+    /**
+     * Run tasks on the pool and wait for all of them
+     */
+    private void runTasks(int count, IntConsumer task) {
+        List<Callable<Void>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks.add(() -> {
+                task.accept(index);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while playing a round", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Round task failed", e.getCause());
+            }
+        }
+    }
+}
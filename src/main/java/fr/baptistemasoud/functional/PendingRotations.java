@@ -0,0 +1,73 @@
+package fr.baptistemasoud.functional;
+
+import java.util.Arrays;
+
+/**
+ * Rotations decoded ahead of their round, waiting to be sent in round order, then in game order within a round. A
+ * binary min heap of longs packing the round, the adventurer and its orientation after the rotation, without boxing.
+ */
+final class PendingRotations {
+    private long[] heap = new long[64];
+    private int size = 0;
+
+    /**
+     * @param round       the round of the rotation, not negative
+     * @param adventurer  the index of the adventurer, not negative
+     * @param orientation the Orientation ordinal after the rotation
+     */
+    void add(int round, int adventurer, int orientation) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        long rotation = (long) round << 33 | (long) adventurer << 2 | orientation;
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (Long.compareUnsigned(heap[parent], rotation) <= 0) break;
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = rotation;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the round of the first rotation, the queue must not be empty
+     */
+    int firstRound() {
+        return round(heap[0]);
+    }
+
+    /**
+     * Remove the first rotation, the queue must not be empty
+     * @return the rotation, read with round, adventurer and orientation
+     */
+    long poll() {
+        long first = heap[0];
+        long last = heap[--size];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && Long.compareUnsigned(heap[child + 1], heap[child]) < 0) child++;
+            if (Long.compareUnsigned(last, heap[child]) <= 0) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+        return first;
+    }
+
+    static int round(long rotation) {
+        return (int) (rotation >>> 33);
+    }
+
+    static int adventurer(long rotation) {
+        return (int) (rotation >>> 2) & Integer.MAX_VALUE;
+    }
+
+    static int orientation(long rotation) {
+        return (int) rotation & 3;
+    }
+}
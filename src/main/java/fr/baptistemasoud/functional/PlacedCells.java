@@ -0,0 +1,131 @@
+package fr.baptistemasoud.functional;
+
+/**
+ * Set of the cells holding a mountain or a treasure while a map is built, to detect duplicates as they are placed.
+ * Cells are indexed row by row in a bitset split into pages allocated on first write, so that placements on a part of
+ * a large map only cost the pages they touch. Maps too large for a table of pages, and maps whose storage only holds
+ * the placed cells, keep the indexes in a hash set, so that their memory also only depends on the placed cells.
+ */
+final class PlacedCells {
+    // 2^18 bits, 32 KiB per page
+    private static final int PAGE_SHIFT = 18;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    // largest map held in a bitset, its table of pages is at most 2 MiB
+    private static final long MAX_BITSET_CELLS = 1L << 36;
+
+    private final int width;
+    // null when indexes are in placedIndexes
+    private final long[][] pages;
+    private final LongIntHashMap placedIndexes;
+
+    /**
+     * @param sparse true if the storage of the map only holds the placed cells
+     */
+    PlacedCells(int height, int width, boolean sparse) {
+        this.width = width;
+        long cells = (long) height * width;
+        if (!sparse && cells <= MAX_BITSET_CELLS) {
+            this.pages = new long[(int) ((cells + PAGE_MASK) >>> PAGE_SHIFT)][];
+            this.placedIndexes = null;
+        } else {
+            this.pages = null;
+            this.placedIndexes = new LongIntHashMap(16);
+        }
+    }
+
+    /**
+     * @param x coordinate, within the map bounds
+     * @param y coordinate, within the map bounds
+     * @return true if the cell was not placed yet
+     */
+    boolean add(int x, int y) {
+        long index = (long) x * width + y;
+        if (pages == null) {
+            if (placedIndexes.get(index) != 0) return false;
+            placedIndexes.put(index, 1);
+            return true;
+        }
+
+        long[] page = page((int) (index >>> PAGE_SHIFT));
+        int bit = (int) index & PAGE_MASK;
+        long mask = 1L << bit;
+        long word = page[bit >>> 6];
+        if ((word & mask) != 0) return false;
+        page[bit >>> 6] = word | mask;
+        return true;
+    }
+
+    /**
+     * @param x     row, within the map bounds
+     * @param fromY first column, within the map bounds
+     * @param toY   column after the last column, at most the width
+     * @return true if a cell of the row range is placed
+     */
+    boolean containsAny(int x, int fromY, int toY) {
+        long from = (long) x * width + fromY;
+        long to = from + (toY - fromY);
+        if (pages == null) {
+            for (long index = from; index < to; index++) {
+                if (placedIndexes.get(index) != 0) return true;
+            }
+            return false;
+        }
+
+        while (from < to) {
+            int pageIndex = (int) (from >>> PAGE_SHIFT);
+            long pageEnd = Math.min(to, (long) (pageIndex + 1) << PAGE_SHIFT);
+            long[] page = pages[pageIndex];
+            if (page != null) {
+                int toBit = (int) (pageEnd - ((long) pageIndex << PAGE_SHIFT));
+                for (int bit = (int) from & PAGE_MASK; bit < toBit; bit = (bit | 63) + 1) {
+                    if ((page[bit >>> 6] & mask(bit, toBit)) != 0) return true;
+                }
+            }
+            from = pageEnd;
+        }
+        return false;
+    }
+
+    /**
+     * Add a range of cells of a row, none of them placed yet
+     * @param x     row, within the map bounds
+     * @param fromY first column, within the map bounds
+     * @param toY   column after the last column, at most the width
+     */
+    void addRange(int x, int fromY, int toY) {
+        long from = (long) x * width + fromY;
+        long to = from + (toY - fromY);
+        if (pages == null) {
+            for (long index = from; index < to; index++) placedIndexes.put(index, 1);
+            return;
+        }
+
+        while (from < to) {
+            int pageIndex = (int) (from >>> PAGE_SHIFT);
+            long pageEnd = Math.min(to, (long) (pageIndex + 1) << PAGE_SHIFT);
+            long[] page = page(pageIndex);
+            int toBit = (int) (pageEnd - ((long) pageIndex << PAGE_SHIFT));
+            for (int bit = (int) from & PAGE_MASK; bit < toBit; bit = (bit | 63) + 1) {
+                page[bit >>> 6] |= mask(bit, toBit);
+            }
+            from = pageEnd;
+        }
+    }
+
+    private long[] page(int pageIndex) {
+        long[] page = pages[pageIndex];
+        if (page == null) {
+            page = new long[1 << (PAGE_SHIFT - 6)];
+            pages[pageIndex] = page;
+        }
+        return page;
+    }
+
+    /**
+     * @return the bits of the word of bit, from bit to toBit excluded
+     */
+    private static long mask(int bit, int toBit) {
+        int count = Math.min(toBit, (bit | 63) + 1) - bit;
+        return (-1L >>> (64 - count)) << bit;
+    }
+}
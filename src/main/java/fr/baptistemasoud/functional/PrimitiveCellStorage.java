@@ -0,0 +1,226 @@
+package fr.baptistemasoud.functional;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Struct-of-arrays storage: cells are indexed row by row, mountains and occupied cells are held in bitsets, treasures
+ * amounts in a short array, and adventurers as ids of occupants in primitive hash maps. No object is allocated per
+ * cell, and a cell costs about 2 bytes.
+ */
+class PrimitiveCellStorage implements CellStorage {
+    // arrays are indexed by int, the largest supported map has this amount of cells
+    static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+    // amounts that do not fit in a short are stored in largeTreasures
+    private static final short LARGE_TREASURES = Short.MAX_VALUE;
+    // occupied cells are split by strips of rows, each locked on its own, so that distinct cells can be moved concurrently
+    private static final int OCCUPANCY_STRIPS = 64;
+
+    private final int height;
+    private final int width;
+    private final BitSet mountains;
+    // locked on, so that treasures of distinct cells can be removed from several threads
+    private final LongIntHashMap largeTreasures = new LongIntHashMap(16);
+    private final Occupants occupants = new Occupants();
+    // lazily allocated, null while the map has no treasure
+    private short[] treasures;
+    // atomic bitset of the occupied cells, so that empty cells are read without locking. Lazily allocated with
+    // occupancy, null while no adventurer is placed
+    private AtomicLongArray occupied;
+    // id of the adventurer in occupants of each occupied cell, one map per strip of rows
+    private LongIntHashMap[] occupancy;
+
+    /**
+     * @throws IllegalArgumentException if the map has more than MAX_CELLS cells
+     */
+    PrimitiveCellStorage(int height, int width) {
+        if ((long) height * width > MAX_CELLS) throw new IllegalArgumentException(
+                "height=%d and width=%d exceed the %d cells of a primitive map".formatted(height, width, MAX_CELLS)
+        );
+        this.height = height;
+        this.width = width;
+        this.mountains = new BitSet(height * width);
+    }
+
+    private int index(int x, int y) {
+        return x * width + y;
+    }
+
+    @Override
+    public void placeMountain(int x, int y) {
+        mountains.set(index(x, y));
+    }
+
+    @Override
+    public void placeMountains(int x, int fromY, int toY) {
+        mountains.set(index(x, fromY), index(x, toY));
+    }
+
+    @Override
+    public void placeTreasures(int x, int y, int amount) {
+        if (treasures == null) treasures = new short[height * width];
+        int index = index(x, y);
+        if (amount >= LARGE_TREASURES) {
+            treasures[index] = LARGE_TREASURES;
+            synchronized (largeTreasures) {
+                largeTreasures.put(index, amount);
+            }
+        } else {
+            treasures[index] = (short) amount;
+        }
+    }
+
+    @Override
+    public void complete(int fromRow, int toRow) {
+        // plains are implicit
+    }
+
+    @Override
+    public Cell getCell(int x, int y) {
+        return new CellView(this, x, y);
+    }
+
+    @Override
+    public boolean isMountain(int x, int y) {
+        return mountains.get(index(x, y));
+    }
+
+    @Override
+    public int getTreasures(int x, int y) {
+        if (treasures == null) return 0;
+        int index = index(x, y);
+        short amount = treasures[index];
+        return amount == LARGE_TREASURES ? largeTreasures(index) : amount;
+    }
+
+    private int largeTreasures(int index) {
+        synchronized (largeTreasures) {
+            return largeTreasures.get(index);
+        }
+    }
+
+    @Override
+    public void removeOneTreasure(int x, int y) {
+        int index = index(x, y);
+        short amount = treasures[index];
+        if (amount != LARGE_TREASURES) {
+            treasures[index] = (short) (amount - 1);
+            return;
+        }
+        synchronized (largeTreasures) {
+            int remaining = largeTreasures.get(index) - 1;
+            if (remaining < LARGE_TREASURES) {
+                largeTreasures.remove(index);
+                treasures[index] = (short) remaining;
+            } else {
+                largeTreasures.put(index, remaining);
+            }
+        }
+    }
+
+    private boolean isOccupied(int index) {
+        return (occupied.get(index >>> 6) & 1L << index) != 0;
+    }
+
+    private LongIntHashMap strip(int x) {
+        return occupancy[(int) ((long) x * occupancy.length / height)];
+    }
+
+    /**
+     * @return the id of the occupant of an occupied cell, 0 if it was emptied meanwhile
+     */
+    private int occupant(int x, int index) {
+        LongIntHashMap strip = strip(x);
+        synchronized (strip) {
+            return strip.get(index);
+        }
+    }
+
+    private void occupy(int x, int index, int occupant) {
+        LongIntHashMap strip = strip(x);
+        synchronized (strip) {
+            strip.put(index, occupant);
+        }
+        occupied.accumulateAndGet(index >>> 6, 1L << index, (bits, bit) -> bits | bit);
+    }
+
+    /**
+     * @return the id of the former occupant of an occupied cell
+     */
+    private int vacate(int x, int index) {
+        occupied.accumulateAndGet(index >>> 6, ~(1L << index), (bits, mask) -> bits & mask);
+        LongIntHashMap strip = strip(x);
+        synchronized (strip) {
+            int occupant = strip.get(index);
+            strip.remove(index);
+            return occupant;
+        }
+    }
+
+    @Override
+    public Adventurer getAdventurer(int x, int y) {
+        if (occupied == null) return null;
+        int index = index(x, y);
+        if (!isOccupied(index)) return null;
+        int occupant = occupant(x, index);
+        return occupant == 0 ? null : occupants.get(occupant);
+    }
+
+    @Override
+    public void placeAdventurer(int x, int y, Adventurer adventurer) {
+        if (occupied == null) {
+            occupied = new AtomicLongArray((int) (((long) height * width + 63) >>> 6));
+            occupancy = new LongIntHashMap[Math.min(OCCUPANCY_STRIPS, height)];
+            for (int strip = 0; strip < occupancy.length; strip++) {
+                occupancy[strip] = new LongIntHashMap(16);
+            }
+        }
+        occupy(x, index(x, y), occupants.idOf(adventurer));
+    }
+
+    @Override
+    public void removeAdventurer(int x, int y) {
+        if (occupied == null) return;
+        int index = index(x, y);
+        if (isOccupied(index)) vacate(x, index);
+    }
+
+    @Override
+    public void moveAdventurer(int fromX, int fromY, int toX, int toY) {
+        occupy(toX, index(toX, toY), vacate(fromX, index(fromX, fromY)));
+    }
+
+    @Override
+    public boolean supportsConcurrentMoves() {
+        return true;
+    }
+
+    @Override
+    public void forEachMountain(Map.CoordinatesConsumer consumer) {
+        for (int index = mountains.nextSetBit(0); index >= 0; index = mountains.nextSetBit(index + 1)) {
+            consumer.accept(index / width, index % width);
+        }
+    }
+
+    @Override
+    public void forEachTreasure(Map.TreasuresConsumer consumer) {
+        if (treasures == null) return;
+        for (int index = 0; index < treasures.length; index++) {
+            short amount = treasures[index];
+            if (amount != 0) {
+                consumer.accept(index / width, index % width, amount == LARGE_TREASURES ? largeTreasures(index) : amount);
+            }
+        }
+    }
+
+    @Override
+    public void forEachAdventurer(Map.AdventurerConsumer consumer) {
+        if (occupied == null) return;
+        for (int word = 0; word < occupied.length(); word++) {
+            for (long bits = occupied.get(word); bits != 0; bits &= bits - 1) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                consumer.accept(index / width, index % width, occupants.get(occupant(index / width, index)));
+            }
+        }
+    }
+}
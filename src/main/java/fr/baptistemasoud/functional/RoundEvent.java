@@ -0,0 +1,32 @@
+package fr.baptistemasoud.functional;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of a round of Game.play, only recorded when the round lasts longer than the threshold
+ */
+@Name("fr.baptistemasoud.Round")
+@Label("Game Round")
+@Category({"Treasure Hunt", "Game"})
+@Description("Forward movements of the active adventurers during one round")
+@Threshold("1 ms")
+final class RoundEvent extends Event {
+    @Label("Round")
+    int round;
+
+    @Label("Active Adventurers")
+    @Description("Adventurers with forward movements left at the start of the round")
+    int activeAdventurers;
+
+    @Label("Finished Adventurers")
+    @Description("Adventurers which played their last forward movement during the round")
+    int finishedAdventurers;
+
+    @Label("Parallel")
+    boolean parallel;
+}
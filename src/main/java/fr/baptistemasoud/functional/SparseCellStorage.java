@@ -0,0 +1,131 @@
+package fr.baptistemasoud.functional;
+
+import java.util.Arrays;
+
+/**
+ * Storage of maps that are mostly plains: only mountains, cells with treasures and occupied cells are stored, in
+ * primitive hash maps keyed by the index of the cell. Memory only depends on the amount of non-plain cells, so the
+ * map can have up to 2^62 cells.
+ */
+class SparseCellStorage implements CellStorage {
+    // value of a mountain in terrain, treasures are stored as their strictly positive amount
+    private static final int MOUNTAIN = -1;
+
+    private final int width;
+    private final LongIntHashMap terrain = new LongIntHashMap(16);
+    private final LongIntHashMap occupancy = new LongIntHashMap(16);
+    private final Occupants occupants = new Occupants();
+
+    SparseCellStorage(int width) {
+        this.width = width;
+    }
+
+    private long index(int x, int y) {
+        return (long) x * width + y;
+    }
+
+    @Override
+    public void placeMountain(int x, int y) {
+        terrain.put(index(x, y), MOUNTAIN);
+    }
+
+    @Override
+    public void placeTreasures(int x, int y, int amount) {
+        terrain.put(index(x, y), amount);
+    }
+
+    @Override
+    public void complete(int fromRow, int toRow) {
+        // plains are implicit
+    }
+
+    @Override
+    public Cell getCell(int x, int y) {
+        return new CellView(this, x, y);
+    }
+
+    @Override
+    public boolean isMountain(int x, int y) {
+        return terrain.get(index(x, y)) == MOUNTAIN;
+    }
+
+    @Override
+    public int getTreasures(int x, int y) {
+        return Math.max(0, terrain.get(index(x, y)));
+    }
+
+    @Override
+    public void removeOneTreasure(int x, int y) {
+        long index = index(x, y);
+        int remaining = terrain.get(index) - 1;
+        // a cell without treasures left is a plain, which is not stored
+        if (remaining == 0) terrain.remove(index);
+        else terrain.put(index, remaining);
+    }
+
+    @Override
+    public Adventurer getAdventurer(int x, int y) {
+        int occupant = occupancy.get(index(x, y));
+        return occupant == 0 ? null : occupants.get(occupant);
+    }
+
+    @Override
+    public void placeAdventurer(int x, int y, Adventurer adventurer) {
+        occupancy.put(index(x, y), occupants.idOf(adventurer));
+    }
+
+    @Override
+    public void removeAdventurer(int x, int y) {
+        occupancy.remove(index(x, y));
+    }
+
+    @Override
+    public void moveAdventurer(int fromX, int fromY, int toX, int toY) {
+        long from = index(fromX, fromY);
+        int occupant = occupancy.get(from);
+        occupancy.remove(from);
+        occupancy.put(index(toX, toY), occupant);
+    }
+
+    @Override
+    public boolean supportsConcurrentMoves() {
+        // hash maps are shared by all cells
+        return false;
+    }
+
+    @Override
+    public void forEachMountain(Map.CoordinatesConsumer consumer) {
+        for (long index : sortedKeys(terrain, true)) {
+            consumer.accept((int) (index / width), (int) (index % width));
+        }
+    }
+
+    @Override
+    public void forEachTreasure(Map.TreasuresConsumer consumer) {
+        for (long index : sortedKeys(terrain, false)) {
+            consumer.accept((int) (index / width), (int) (index % width), terrain.get(index));
+        }
+    }
+
+    @Override
+    public void forEachAdventurer(Map.AdventurerConsumer consumer) {
+        for (long index : sortedKeys(occupancy, false)) {
+            consumer.accept((int) (index / width), (int) (index % width), occupants.get(occupancy.get(index)));
+        }
+    }
+
+    /**
+     * @param mountains true to get the keys of mountains only, false to get the keys of other entries
+     * @return the keys in row by row order
+     */
+    private static long[] sortedKeys(LongIntHashMap map, boolean mountains) {
+        long[] keys = new long[map.size()];
+        int[] size = {0};
+        map.forEach((key, value) -> {
+            if ((value == MOUNTAIN) == mountains) keys[size[0]++] = key;
+        });
+        long[] sorted = Arrays.copyOf(keys, size[0]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,223 @@
+package fr.baptistemasoud.functional;
+
+import java.util.Arrays;
+
+/**
+ * Storage splitting the map in square tiles. All tiles start as one shared, never written, plain tile and get their
+ * own arrays when a mountain, a treasure or an adventurer is first written on them. Cells of a tile are close in
+ * memory, and areas that stay plains cost one reference per tile.
+ */
+class TiledCellStorage implements CellStorage {
+    // largest tile size, the cells of a tile are indexed by an int
+    static final int MAX_TILE_SIZE = 1 << 12;
+    private static final Tile PLAIN_TILE = new Tile();
+
+    private final int height;
+    private final int width;
+    private final int tileShift;
+    private final int tileMask;
+    private final int tilesPerRow;
+    private final Tile[] tiles;
+    private final Occupants occupants = new Occupants();
+
+    /**
+     * @param tileSize the height and width of a tile, a power of 2 at most MAX_TILE_SIZE
+     * @throws IllegalArgumentException if tileSize is not a power of 2 at most MAX_TILE_SIZE or if the map has too
+     *                                  many tiles
+     */
+    TiledCellStorage(int height, int width, int tileSize) {
+        checkTileSize(tileSize);
+        this.height = height;
+        this.width = width;
+        this.tileShift = Integer.numberOfTrailingZeros(tileSize);
+        this.tileMask = tileSize - 1;
+        this.tilesPerRow = (width + tileMask) >>> tileShift;
+        long tilesCount = (long) ((height + tileMask) >>> tileShift) * tilesPerRow;
+        if (tilesCount > PrimitiveCellStorage.MAX_CELLS) throw new IllegalArgumentException(
+                "height=%d and width=%d need %d tiles of size %d, use larger tiles".formatted(height, width, tilesCount, tileSize)
+        );
+        this.tiles = new Tile[(int) tilesCount];
+        Arrays.fill(tiles, PLAIN_TILE);
+    }
+
+    /**
+     * @throws IllegalArgumentException if tileSize is not a power of 2 at most MAX_TILE_SIZE
+     */
+    static void checkTileSize(int tileSize) {
+        if (tileSize <= 0 || tileSize > MAX_TILE_SIZE || Integer.bitCount(tileSize) != 1) throw new IllegalArgumentException(
+                "tileSize=%d is not a power of 2 at most %d".formatted(tileSize, MAX_TILE_SIZE)
+        );
+    }
+
+    private Tile tile(int x, int y) {
+        return tiles[(x >>> tileShift) * tilesPerRow + (y >>> tileShift)];
+    }
+
+    /**
+     * @return the tile of the cell, replacing the shared plain tile by a new tile if needed
+     */
+    private Tile writableTile(int x, int y) {
+        int index = (x >>> tileShift) * tilesPerRow + (y >>> tileShift);
+        Tile tile = tiles[index];
+        if (tile == PLAIN_TILE) {
+            tile = new Tile();
+            tiles[index] = tile;
+        }
+        return tile;
+    }
+
+    private int cellIndex(int x, int y) {
+        return ((x & tileMask) << tileShift) | (y & tileMask);
+    }
+
+    private int tileCells() {
+        return 1 << (tileShift * 2);
+    }
+
+    @Override
+    public void placeMountain(int x, int y) {
+        Tile tile = writableTile(x, y);
+        if (tile.mountains == null) tile.mountains = new long[(tileCells() + 63) >>> 6];
+        int index = cellIndex(x, y);
+        tile.mountains[index >>> 6] |= 1L << index;
+    }
+
+    @Override
+    public void placeTreasures(int x, int y, int amount) {
+        Tile tile = writableTile(x, y);
+        if (tile.treasures == null) tile.treasures = new int[tileCells()];
+        tile.treasures[cellIndex(x, y)] = amount;
+    }
+
+    @Override
+    public void complete(int fromRow, int toRow) {
+        // plains are implicit
+    }
+
+    @Override
+    public Cell getCell(int x, int y) {
+        return new CellView(this, x, y);
+    }
+
+    @Override
+    public boolean isMountain(int x, int y) {
+        long[] mountains = tile(x, y).mountains;
+        if (mountains == null) return false;
+        int index = cellIndex(x, y);
+        return (mountains[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public int getTreasures(int x, int y) {
+        int[] treasures = tile(x, y).treasures;
+        return treasures == null ? 0 : treasures[cellIndex(x, y)];
+    }
+
+    @Override
+    public void removeOneTreasure(int x, int y) {
+        tile(x, y).treasures[cellIndex(x, y)]--;
+    }
+
+    @Override
+    public Adventurer getAdventurer(int x, int y) {
+        int[] occupancy = tile(x, y).occupancy;
+        if (occupancy == null) return null;
+        int occupant = occupancy[cellIndex(x, y)];
+        return occupant == 0 ? null : occupants.get(occupant);
+    }
+
+    @Override
+    public void placeAdventurer(int x, int y, Adventurer adventurer) {
+        writableOccupancy(x, y)[cellIndex(x, y)] = occupants.idOf(adventurer);
+    }
+
+    private int[] writableOccupancy(int x, int y) {
+        Tile tile = writableTile(x, y);
+        if (tile.occupancy == null) tile.occupancy = new int[tileCells()];
+        return tile.occupancy;
+    }
+
+    @Override
+    public void removeAdventurer(int x, int y) {
+        int[] occupancy = tile(x, y).occupancy;
+        if (occupancy != null) occupancy[cellIndex(x, y)] = 0;
+    }
+
+    @Override
+    public void moveAdventurer(int fromX, int fromY, int toX, int toY) {
+        int[] source = tile(fromX, fromY).occupancy;
+        int sourceIndex = cellIndex(fromX, fromY);
+        writableOccupancy(toX, toY)[cellIndex(toX, toY)] = source[sourceIndex];
+        source[sourceIndex] = 0;
+    }
+
+    @Override
+    public boolean supportsConcurrentMoves() {
+        // tiles are allocated on first write
+        return false;
+    }
+
+    @Override
+    public void forEachMountain(Map.CoordinatesConsumer consumer) {
+        forEachCell((tile, x, y, index) -> {
+            if (tile.mountains != null && (tile.mountains[index >>> 6] & (1L << index)) != 0) consumer.accept(x, y);
+        });
+    }
+
+    @Override
+    public void forEachTreasure(Map.TreasuresConsumer consumer) {
+        forEachCell((tile, x, y, index) -> {
+            if (tile.treasures != null && tile.treasures[index] > 0) consumer.accept(x, y, tile.treasures[index]);
+        });
+    }
+
+    @Override
+    public void forEachAdventurer(Map.AdventurerConsumer consumer) {
+        forEachCell((tile, x, y, index) -> {
+            if (tile.occupancy != null && tile.occupancy[index] != 0) consumer.accept(x, y, occupants.get(tile.occupancy[index]));
+        });
+    }
+
+    /**
+     * Visit the cells of all allocated tiles, row by row, skipping the shared plain tile
+     */
+    private void forEachCell(TileCellConsumer consumer) {
+        int tileSize = tileMask + 1;
+        int[] allocatedColumns = new int[tilesPerRow];
+        for (int tileRow = 0; tileRow * tileSize < height; tileRow++) {
+            // allocated tiles of this row of tiles
+            int allocated = 0;
+            for (int tileColumn = 0; tileColumn < tilesPerRow; tileColumn++) {
+                if (tiles[tileRow * tilesPerRow + tileColumn] != PLAIN_TILE) allocatedColumns[allocated++] = tileColumn;
+            }
+            if (allocated == 0) continue;
+
+            int lastX = Math.min(height, (tileRow + 1) * tileSize);
+            for (int x = tileRow * tileSize; x < lastX; x++) {
+                for (int i = 0; i < allocated; i++) {
+                    int tileColumn = allocatedColumns[i];
+                    Tile tile = tiles[tileRow * tilesPerRow + tileColumn];
+                    int lastY = Math.min(width, (tileColumn + 1) * tileSize);
+                    for (int y = tileColumn * tileSize; y < lastY; y++) {
+                        consumer.accept(tile, x, y, cellIndex(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface TileCellConsumer {
+        void accept(Tile tile, int x, int y, int index);
+    }
+
+    /**
+     * Cells of a tile, row by row. Arrays are allocated on first write, a null array holds only zeros
+     */
+    private static final class Tile {
+        private long[] mountains;
+        private int[] treasures;
+        // 0 for an empty cell, the id of the adventurer in occupants otherwise
+        private int[] occupancy;
+    }
+}
@@ -1,14 +1,64 @@
 package fr.baptistemasoud.technical;
 
 import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.Coordinates;
 import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.functional.PackedMovements;
 
-import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
+/**
+ * @param packedMovements    the movements, null when they are streamed
+ * @param movementsLocation where the streamed movements are read from, null when they are in packedMovements
+ */
 public record AdventurerConfiguration(
         String name,
         Adventurer.Orientation orientation,
-        Point coords,
-        Game.Movement[] movements
+        Coordinates coords,
+        PackedMovements packedMovements,
+        MovementsLocation movementsLocation
 ) {
+    public AdventurerConfiguration(String name, Adventurer.Orientation orientation, Coordinates coords, PackedMovements packedMovements) {
+        this(name, orientation, coords, packedMovements, null);
+    }
+
+    /**
+     * @return the movements, decoded from packedMovements or read from their location
+     * @throws fr.baptistemasoud.technical.exception.ConfigurationFormatException if a streamed movement is invalid
+     * @throws UncheckedIOException                                                if streamed movements cannot be read
+     */
+    public Game.Movement[] movements() {
+        if (packedMovements != null) return packedMovements.toArray();
+
+        List<Game.Movement> movements = new ArrayList<>();
+        try (MovementFiles files = new MovementFiles()) {
+            streamMovements(files).forEachRemaining(movements::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return movements.toArray(Game.Movement[]::new);
+    }
+
+    /**
+     * @param files the files streamed movements are read from, must stay open while the movements are read
+     * @return the movements, read lazily when they are streamed. Invalid streamed movements are only reported when
+     * they are read
+     */
+    public Iterator<Game.Movement> streamMovements(MovementFiles files) {
+        if (packedMovements != null) return packedMovements.iterator();
+        return new StreamedMovements(files.channel(movementsLocation.file()), movementsLocation.from(), movementsLocation.to());
+    }
+
+    /**
+     * @param file the file containing the movements
+     * @param from offset of the first movement
+     * @param to   offset following the last movement
+     */
+    public record MovementsLocation(Path file, long from, long to) {
+    }
 }
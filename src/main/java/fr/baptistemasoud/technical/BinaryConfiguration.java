@@ -0,0 +1,238 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.Coordinates;
+import fr.baptistemasoud.functional.PackedMovements;
+import fr.baptistemasoud.technical.exception.ConfigurationFormatException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary configuration format, read by mapping the file and copying its columns in bulk, which are then placed on the
+ * map with the bulk MapBuilder methods. All numbers are little endian, mountains and treasures are sorted row by row:
+ * <pre>
+ * int magic "TRMP", int version
+ * int width, int height
+ * int mountains count, int[] xs, int[] ys
+ * int treasures count, int[] xs, int[] ys, int[] amounts
+ * int adventurers count, then for each adventurer: int name length, UTF-8 name, byte orientation ordinal,
+ *     int x, int y, int movements count, long[] movements packed as PackedMovements.toWords
+ * </pre>
+ */
+public final class BinaryConfiguration {
+    private static final int MAGIC = 0x504D5254;
+    private static final int VERSION = 2;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final Adventurer.Orientation[] ORIENTATIONS = Adventurer.Orientation.values();
+
+    private BinaryConfiguration() {
+    }
+
+    /**
+     * @return true if the segment starts as a binary configuration
+     */
+    static boolean isBinary(MemorySegment segment) {
+        return segment.byteSize() >= Integer.BYTES && segment.get(INT, 0) == MAGIC;
+    }
+
+    /**
+     * Convert a configuration to the binary format
+     * @param map         the map, its mountains and treasures are sorted row by row
+     * @param adventurers the adventurers, in game order
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(MapConfiguration map, AdventurerConfiguration[] adventurers, Path file) throws IOException {
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            DataOutputStream output = new DataOutputStream(stream);
+            writeInt(output, MAGIC);
+            writeInt(output, VERSION);
+            writeInt(output, map.width());
+            writeInt(output, map.height());
+
+            Placements mountains = map.mountains();
+            long[] mountainsKeys = sortedRowByRow(mountains);
+            writeInt(output, mountains.size());
+            writeColumns(output, mountainsKeys);
+            Placements treasures = map.treasures();
+            long[] treasuresKeys = sortedRowByRow(treasures);
+            writeInt(output, treasures.size());
+            writeColumns(output, treasuresKeys);
+            for (int amount : sortedAmounts(treasures, treasuresKeys)) {
+                writeInt(output, amount);
+            }
+
+            writeInt(output, adventurers.length);
+            for (AdventurerConfiguration adventurer : adventurers) {
+                byte[] name = adventurer.name().getBytes(StandardCharsets.UTF_8);
+                writeInt(output, name.length);
+                output.write(name);
+                output.writeByte(adventurer.orientation().ordinal());
+                writeInt(output, adventurer.coords().x());
+                writeInt(output, adventurer.coords().y());
+                PackedMovements movements = adventurer.packedMovements() != null
+                        ? adventurer.packedMovements()
+                        : PackedMovements.of(adventurer.movements());
+                writeInt(output, movements.size());
+                for (long word : movements.toWords()) {
+                    output.writeLong(Long.reverseBytes(word));
+                }
+            }
+        }
+    }
+
+    private static void writeInt(DataOutputStream output, int value) throws IOException {
+        output.writeInt(Integer.reverseBytes(value));
+    }
+
+    private static void writeColumns(DataOutputStream output, long[] keys) throws IOException {
+        for (long key : keys) {
+            writeInt(output, (int) (key >> 32));
+        }
+        for (long key : keys) {
+            writeInt(output, (int) key ^ Integer.MIN_VALUE);
+        }
+    }
+
+    /**
+     * @return the coordinates of the placements packed as x, then y with its sign flipped, so that the longs sort row
+     * by row
+     */
+    private static long[] sortedRowByRow(Placements placements) {
+        long[] keys = new long[placements.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key(placements.x(i), placements.y(i));
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static long key(int x, int y) {
+        return (long) x << 32 | (y ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @return the amounts of the treasures in the order of their sorted keys, placements on the same cell keep their
+     * order
+     */
+    private static int[] sortedAmounts(Placements treasures, long[] keys) {
+        int[] amounts = new int[keys.length];
+        boolean[] filled = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            long key = key(treasures.x(i), treasures.y(i));
+            int index = Arrays.binarySearch(keys, key);
+            while (index > 0 && keys[index - 1] == key) index--;
+            while (filled[index]) index++;
+            amounts[index] = treasures.amount(i);
+            filled[index] = true;
+        }
+        return amounts;
+    }
+
+    /**
+     * Read a binary configuration and append its content to the given buffers
+     * @return the width and height of the map
+     * @throws ConfigurationFormatException if the segment is not a complete binary configuration
+     */
+    static int[] read(MemorySegment segment, Placements mountains, Placements treasures, List<AdventurerConfiguration> adventurers) {
+        Reader reader = new Reader(segment);
+        if (reader.readInt() != MAGIC) throw new ConfigurationFormatException("File is not a binary configuration");
+        int version = reader.readInt();
+        if (version != VERSION) throw new ConfigurationFormatException(
+                "Binary configuration version %d is not supported, expected %d".formatted(version, VERSION)
+        );
+        int width = reader.readInt();
+        int height = reader.readInt();
+
+        int mountainsCount = reader.readCount(2 * Integer.BYTES);
+        mountains.addColumns(segment, INT, reader.position, mountainsCount, false);
+        reader.position += 2L * mountainsCount * Integer.BYTES;
+        int treasuresCount = reader.readCount(3 * Integer.BYTES);
+        treasures.addColumns(segment, INT, reader.position, treasuresCount, true);
+        reader.position += 3L * treasuresCount * Integer.BYTES;
+
+        int adventurersCount = reader.readCount(4 * Integer.BYTES + 1);
+        for (int i = 0; i < adventurersCount; i++) {
+            String name = reader.readString(reader.readCount(1));
+            int orientation = reader.readByte();
+            if (orientation < 0 || orientation >= ORIENTATIONS.length) throw new ConfigurationFormatException(
+                    "Adventurer orientation ordinal cannot be %d".formatted(orientation)
+            );
+            int x = reader.readInt();
+            int y = reader.readInt();
+            int movementsCount = reader.readCount(0);
+            long[] words = reader.readLongs((int) ((movementsCount + 31L) / 32));
+            adventurers.add(new AdventurerConfiguration(name, ORIENTATIONS[orientation], new Coordinates(x, y),
+                    PackedMovements.ofWords(words, movementsCount)));
+        }
+        if (reader.position != segment.byteSize()) throw new ConfigurationFormatException(
+                "Binary configuration has %d unexpected trailing bytes".formatted(segment.byteSize() - reader.position)
+        );
+        return new int[]{width, height};
+    }
+
+    private static final class Reader {
+        private final MemorySegment segment;
+        private long position = 0;
+
+        private Reader(MemorySegment segment) {
+            this.segment = segment;
+        }
+
+        private void require(long bytes) {
+            if (bytes > segment.byteSize() - position) throw new ConfigurationFormatException(
+                    "Binary configuration is truncated at offset %d".formatted(position)
+            );
+        }
+
+        private int readInt() {
+            require(Integer.BYTES);
+            int value = segment.get(INT, position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        private int readByte() {
+            require(1);
+            return segment.get(ValueLayout.JAVA_BYTE, position++);
+        }
+
+        /**
+         * @param elementBytes the least amount of bytes of each element, to detect counts beyond the end early
+         */
+        private int readCount(int elementBytes) {
+            int count = readInt();
+            if (count < 0) throw new ConfigurationFormatException(
+                    "Binary configuration has a negative count at offset %d".formatted(position - Integer.BYTES)
+            );
+            require((long) count * elementBytes);
+            return count;
+        }
+
+        private String readString(int length) {
+            require(length);
+            byte[] bytes = segment.asSlice(position, length).toArray(ValueLayout.JAVA_BYTE);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private long[] readLongs(int count) {
+            require((long) count * Long.BYTES);
+            long[] values = new long[count];
+            MemorySegment.copy(segment, LONG, position, values, 0, count);
+            position += (long) count * Long.BYTES;
+            return values;
+        }
+    }
+}
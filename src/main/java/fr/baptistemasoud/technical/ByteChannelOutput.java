@@ -0,0 +1,133 @@
+package fr.baptistemasoud.technical;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered text output to a channel, writing integers and ASCII text straight into a byte buffer. Text is encoded in
+ * UTF-8, and lines end with the system line separator, as PrintStream does.
+ */
+final class ByteChannelOutput {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    // "-2147483648" is the longest int
+    private static final int MAX_INT_LENGTH = 11;
+
+    private final WritableByteChannel channel;
+    private final byte[] buffer;
+    private final ByteBuffer byteBuffer;
+    private int position = 0;
+    private long written = 0;
+    private long lines = 0;
+
+    ByteChannelOutput(WritableByteChannel channel) {
+        this(channel, BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize the size of the buffer, at least MAX_INT_LENGTH
+     */
+    ByteChannelOutput(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = new byte[bufferSize];
+        this.byteBuffer = ByteBuffer.wrap(buffer);
+    }
+
+    ByteChannelOutput writeInt(int value) {
+        ensureRoom(MAX_INT_LENGTH);
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[position++] = '-';
+            remaining = -remaining;
+        }
+        int length = 1;
+        for (long power = 10; power <= remaining; power *= 10) length++;
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        position += length;
+        return this;
+    }
+
+    /**
+     * @param text text containing only ASCII characters
+     */
+    ByteChannelOutput writeAscii(String text) {
+        ensureRoom(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            buffer[position++] = (byte) text.charAt(i);
+        }
+        return this;
+    }
+
+    ByteChannelOutput writeAscii(char c) {
+        ensureRoom(1);
+        buffer[position++] = (byte) c;
+        return this;
+    }
+
+    ByteChannelOutput writeText(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) return writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return writeAscii(text);
+    }
+
+    ByteChannelOutput newLine() {
+        lines++;
+        return writeBytes(LINE_SEPARATOR);
+    }
+
+    private ByteChannelOutput writeBytes(byte[] bytes) {
+        if (bytes.length > buffer.length) {
+            flush();
+            write(ByteBuffer.wrap(bytes));
+            return this;
+        }
+        ensureRoom(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+
+    private void ensureRoom(int length) {
+        if (position + length > buffer.length) flush();
+    }
+
+    /**
+     * Write the buffered bytes to the channel
+     * @throws UncheckedIOException if the channel cannot be written
+     */
+    void flush() {
+        byteBuffer.clear().limit(position);
+        write(byteBuffer);
+        position = 0;
+    }
+
+    /**
+     * @return the amount of bytes written to the channel
+     */
+    long written() {
+        return written;
+    }
+
+    /**
+     * @return the amount of line separators written
+     */
+    long lines() {
+        return lines;
+    }
+
+    private void write(ByteBuffer bytes) {
+        written += bytes.remaining();
+        try {
+            while (bytes.hasRemaining()) channel.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
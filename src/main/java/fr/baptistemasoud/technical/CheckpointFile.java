@@ -0,0 +1,103 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.GameCheckpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * File holding the latest checkpoint of a game. Checkpoints are written by a background thread so that the game is not
+ * stalled: a checkpoint still waiting when a newer one arrives is skipped. Each checkpoint is written to a temporary
+ * file then moved over the previous one, so the file always holds a complete checkpoint.
+ */
+public final class CheckpointFile implements Consumer<GameCheckpoint>, AutoCloseable {
+    private final Path file;
+    private final Path temporaryFile;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // the checkpoint waiting to be written, null if none
+    private final AtomicReference<GameCheckpoint> pending = new AtomicReference<>();
+    // the first write error, reported on close
+    private volatile IOException error;
+
+    public CheckpointFile(Path file) {
+        this.file = file;
+        this.temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a checkpoint
+     */
+    public static GameCheckpoint read(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return GameCheckpoint.read(input);
+        }
+    }
+
+    /**
+     * Write a checkpoint to a file, replacing it atomically
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(GameCheckpoint checkpoint, Path file) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        write(checkpoint, file, temporaryFile);
+    }
+
+    private static void write(GameCheckpoint checkpoint, Path file, Path temporaryFile) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            checkpoint.write(output);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Schedule the writing of a checkpoint, without waiting for it
+     */
+    @Override
+    public void accept(GameCheckpoint checkpoint) {
+        // a write is already scheduled when a checkpoint is pending, it will write this one instead
+        if (pending.getAndSet(checkpoint) == null) writer.execute(this::writePending);
+    }
+
+    private void writePending() {
+        GameCheckpoint checkpoint = pending.getAndSet(null);
+        if (checkpoint == null || error != null) return;
+        try {
+            write(checkpoint, file, temporaryFile);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * Wait for the scheduled checkpoint to be written
+     * @throws IOException if a checkpoint could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            while (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting, the last checkpoint is the one to resume from
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing checkpoint", e);
+        }
+        if (error != null) throw error;
+    }
+}
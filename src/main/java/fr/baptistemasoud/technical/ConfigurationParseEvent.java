@@ -0,0 +1,59 @@
+package fr.baptistemasoud.technical;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.nio.file.Path;
+
+/**
+ * Flight recorder event of the reading of a configuration by ConfigurationReader
+ */
+@Name("fr.baptistemasoud.ConfigurationParse")
+@Label("Configuration Parse")
+@Category({"Treasure Hunt", "I/O"})
+@Description("Reading of a text or binary configuration")
+final class ConfigurationParseEvent extends Event {
+    @Label("Source")
+    @Description("The configuration file, - if not read from a file")
+    String source;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Binary")
+    boolean binary;
+
+    @Label("Parallel")
+    boolean parallel;
+
+    @Label("Mountains")
+    int mountains;
+
+    @Label("Treasures")
+    int treasures;
+
+    @Label("Adventurers")
+    int adventurers;
+
+    /**
+     * Commit the event if it is recorded, with the counts of the configuration read
+     * @param file  the configuration file, null if not read from a file
+     * @param bytes the size of the configuration, -1 if unknown
+     */
+    void commit(Path file, long bytes, boolean binary, boolean parallel, MapConfiguration map, int adventurers) {
+        if (!shouldCommit()) return;
+        this.source = file == null ? "-" : file.toString();
+        this.bytes = bytes;
+        this.binary = binary;
+        this.parallel = parallel;
+        this.mountains = map.mountains().size();
+        this.treasures = map.treasures().size();
+        this.adventurers = adventurers;
+        commit();
+    }
+}
@@ -1,29 +1,45 @@
 package fr.baptistemasoud.technical;
 
 import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.Coordinates;
 import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.functional.PackedMovements;
 import fr.baptistemasoud.technical.exception.ConfigurationFormatException;
-import org.apache.commons.lang3.tuple.Pair;
 
-import java.awt.*;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class ConfigurationReader {
     private final List<AdventurerConfiguration> adventurersConfigurations = new ArrayList<>();
-    private final List<Point> mountainsCoords = new ArrayList<>();
-    private final List<Pair<Point, Integer>> treasuresCoordsAndAmount = new ArrayList<>();
+    private final Placements mountains = new Placements();
+    private final Placements treasures = new Placements();
     private MapConfiguration mapConfiguration;
     private int height;
     private int width;
     private boolean foundDimensions = false;
 
+    /**
+     * Read a configuration line by line
+     * @param reader the configuration
+     * @throws IOException                  if the reader fails
+     * @throws ConfigurationFormatException if the configuration is not correctly formatted
+     */
     public ConfigurationReader(BufferedReader reader) throws IOException {
+        ConfigurationParseEvent event = new ConfigurationParseEvent();
+        event.begin();
         String line;
         while ((line = reader.readLine()) != null) {
             line = line.replace(" ", "");
+            if (line.isEmpty()) continue;
 
             char c = line.charAt(0);
             if (c == '#') continue;
@@ -40,6 +56,124 @@ public class ConfigurationReader {
         }
 
         initConfiguration();
+        event.commit(null, -1, false, false, mapConfiguration, adventurersConfigurations.size());
+    }
+
+    /**
+     * Read a configuration file by memory mapping it and parsing its bytes directly, which avoids creating Strings
+     * for each line. Gives the same results and errors as reading the file line by line. Files written by
+     * BinaryConfiguration.write are recognized and loaded without parsing.
+     * @param file the configuration file, encoded in UTF-8
+     * @throws IOException                  if the file cannot be read
+     * @throws ConfigurationFormatException if the configuration is not correctly formatted
+     */
+    public ConfigurationReader(Path file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Read a configuration file as ConfigurationReader(Path) does. The movements of an adventurer line may also be
+     * given as "@path" to a file containing only movements, resolved against the directory of the configuration file.
+     * As in any part, spaces are ignored and '-' separates parts, so the path cannot contain them.
+     * @param file            the configuration file, encoded in UTF-8
+     * @param streamMovements true to only record where the movements are, see AdventurerConfiguration.streamMovements.
+     *                        Invalid movements are then reported when they are read. Ignored for binary
+     *                        configurations, whose movements are already packed
+     * @throws IOException                  if the file or a movements file cannot be read
+     * @throws ConfigurationFormatException if the configuration is not correctly formatted
+     */
+    public ConfigurationReader(Path file, boolean streamMovements) throws IOException {
+        ConfigurationParseEvent event = new ConfigurationParseEvent();
+        event.begin();
+        long bytes;
+        boolean binary;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            bytes = channel.size();
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes, arena);
+            binary = BinaryConfiguration.isBinary(segment);
+            if (binary) {
+                readBinary(segment);
+            } else {
+                MappedConfigurationParser parser = new MappedConfigurationParser(segment, file, streamMovements, mountains, treasures, adventurersConfigurations);
+                parser.parse(0, segment.byteSize());
+                foundDimensions = parser.foundDimensions();
+                width = parser.width();
+                height = parser.height();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        initConfiguration();
+        event.commit(file, bytes, binary, false, mapConfiguration, adventurersConfigurations.size());
+    }
+
+    /**
+     * Read a configuration file as ConfigurationReader(Path) does, parsing chunks of the file in parallel. Gives the
+     * same results and errors as reading the file sequentially.
+     * @param file the configuration file, encoded in UTF-8
+     * @param pool the pool parsing the chunks of the file
+     * @throws IOException                  if the file or a movements file cannot be read
+     * @throws ConfigurationFormatException if the configuration is not correctly formatted
+     */
+    public ConfigurationReader(Path file, ForkJoinPool pool) throws IOException {
+        ConfigurationParseEvent event = new ConfigurationParseEvent();
+        event.begin();
+        long bytes;
+        boolean binary;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.ofShared()) {
+            bytes = channel.size();
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes, arena);
+            binary = BinaryConfiguration.isBinary(segment);
+            if (binary) {
+                readBinary(segment);
+            } else {
+                ParallelConfigurationParser parser = new ParallelConfigurationParser(segment, file, false, pool);
+                parser.parse(mountains, treasures, adventurersConfigurations);
+                foundDimensions = parser.foundDimensions();
+                width = parser.width();
+                height = parser.height();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        initConfiguration();
+        event.commit(file, bytes, binary, true, mapConfiguration, adventurersConfigurations.size());
+    }
+
+    /**
+     * Read a configuration held in memory, text or binary, as ConfigurationReader(Path) does. Movements cannot be given
+     * as "@path", so that the configuration cannot make the reader open files.
+     * @param configuration the configuration, text encoded in UTF-8 or binary
+     * @throws ConfigurationFormatException if the configuration is not correctly formatted
+     */
+    public ConfigurationReader(byte[] configuration) {
+        ConfigurationParseEvent event = new ConfigurationParseEvent();
+        event.begin();
+        MemorySegment segment = MemorySegment.ofArray(configuration);
+        boolean binary = BinaryConfiguration.isBinary(segment);
+        if (binary) {
+            readBinary(segment);
+        } else {
+            MappedConfigurationParser parser = new MappedConfigurationParser(segment, mountains, treasures, adventurersConfigurations);
+            parser.parse(0, segment.byteSize());
+            foundDimensions = parser.foundDimensions();
+            width = parser.width();
+            height = parser.height();
+        }
+
+        initConfiguration();
+        event.commit(null, configuration.length, binary, false, mapConfiguration, adventurersConfigurations.size());
+    }
+
+    private void readBinary(MemorySegment segment) {
+        int[] dimensions = BinaryConfiguration.read(segment, mountains, treasures, adventurersConfigurations);
+        foundDimensions = true;
+        width = dimensions[0];
+        height = dimensions[1];
     }
 
     public MapConfiguration getMapConfiguration() {
@@ -52,7 +186,7 @@ public class ConfigurationReader {
 
     private void initConfiguration() {
         if (!foundDimensions) throw new ConfigurationFormatException("File must contain a map dimensions line");
-        mapConfiguration = new MapConfiguration(width, height, mountainsCoords, treasuresCoordsAndAmount);
+        mapConfiguration = new MapConfiguration(width, height, mountains, treasures);
     }
 
     private void handleTreasureLine(String line) {
@@ -61,9 +195,9 @@ public class ConfigurationReader {
                 "A treasure line must contain 4 parts separated with '-'"
         );
 
-        Point coords = new Point(Integer.parseInt(split[2]), Integer.parseInt(split[1]));
-        int amount = Integer.parseInt(split[3]);
-        treasuresCoordsAndAmount.add(Pair.of(coords, amount));
+        int x = Integer.parseInt(split[2]);
+        int y = Integer.parseInt(split[1]);
+        treasures.add(x, y, Integer.parseInt(split[3]));
     }
 
     private void handleMountainLine(String line) {
@@ -72,7 +206,8 @@ public class ConfigurationReader {
                 "A treasure line must contain 3 parts separated with '-'"
         );
 
-        mountainsCoords.add(new Point(Integer.parseInt(split[2]), Integer.parseInt(split[1])));
+        int x = Integer.parseInt(split[2]);
+        mountains.add(x, Integer.parseInt(split[1]));
     }
 
     private void handleMapDimensionsLine(String line) {
@@ -98,12 +233,12 @@ public class ConfigurationReader {
         adventurersConfigurations.add(new AdventurerConfiguration(
                 split[1],
                 getOrientationFromChar(split[4].charAt(0)),
-                new Point(Integer.parseInt(split[3]), Integer.parseInt(split[2])),
+                new Coordinates(Integer.parseInt(split[3]), Integer.parseInt(split[2])),
                 getMovementsFromCharArray(split[5].toCharArray())
         ));
     }
 
-    private Adventurer.Orientation getOrientationFromChar(char orientationChar) {
+    static Adventurer.Orientation getOrientationFromChar(char orientationChar) {
         return switch (orientationChar) {
             case 'S' -> Adventurer.Orientation.SOUTH;
             case 'N' -> Adventurer.Orientation.NORTH;
@@ -116,19 +251,18 @@ public class ConfigurationReader {
         };
     }
 
-    private Game.Movement[] getMovementsFromCharArray(char[] movementsCharArray) {
-        Game.Movement[] movements = new Game.Movement[movementsCharArray.length];
-        for (int i = 0; i < movementsCharArray.length; i++) {
-            char c = movementsCharArray[i];
-            movements[i] = switch (c) {
+    static PackedMovements getMovementsFromCharArray(char[] movementsCharArray) {
+        PackedMovements.Builder movements = new PackedMovements.Builder(movementsCharArray.length);
+        for (char c : movementsCharArray) {
+            movements.add(switch (c) {
                 case 'A' -> Game.Movement.FORWARD;
                 case 'D' -> Game.Movement.ROTATE_RIGHT;
                 case 'G' -> Game.Movement.ROTATE_LEFT;
                 default -> throw new ConfigurationFormatException(
                         "Adventurer movement char cannot be %s, it must be either A, D, G".formatted(c)
                 );
-            };
+            });
         }
-        return movements;
+        return movements.build();
     }
 }
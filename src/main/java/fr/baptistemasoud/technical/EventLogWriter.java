@@ -0,0 +1,81 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.GameEvent;
+import fr.baptistemasoud.functional.GameEventSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write game events to a channel as fixed size little endian records, batched in a buffer:
+ * <pre>
+ * byte GameEvent ordinal, byte Orientation ordinal, int round, int adventurer index, int x, int y
+ * </pre>
+ * The buffer is written when full, and at the end of a round when it was last written long enough ago, so that readers
+ * follow the game while it is played. A write error does not stop the game: later events are dropped and the error is
+ * reported on close.
+ */
+public final class EventLogWriter implements GameEventSink, AutoCloseable {
+    public static final int RECORD_SIZE = 2 + 4 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE - BUFFER_SIZE % RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long lastFlush = System.nanoTime();
+    // the first write error, events are dropped after it
+    private IOException error;
+
+    /**
+     * @param channel the channel events are written to, closed with this writer
+     */
+    public EventLogWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void onEvent(GameEvent event, int round, int adventurer, int x, int y, Adventurer.Orientation orientation) {
+        if (buffer.remaining() < RECORD_SIZE) flush();
+        buffer.put((byte) event.ordinal())
+                .put((byte) orientation.ordinal())
+                .putInt(round)
+                .putInt(adventurer)
+                .putInt(x)
+                .putInt(y);
+    }
+
+    @Override
+    public void onRoundPlayed(int round) {
+        if (buffer.position() > 0 && System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS) flush();
+    }
+
+    /**
+     * Write the buffered events to the channel
+     */
+    public void flush() {
+        buffer.flip();
+        try {
+            while (error == null && buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            error = e;
+        }
+        buffer.clear();
+        lastFlush = System.nanoTime();
+    }
+
+    /**
+     * Write the buffered events and close the channel
+     * @throws IOException if events could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            flush();
+        }
+        if (error != null) throw error;
+    }
+}
@@ -0,0 +1,39 @@
+package fr.baptistemasoud.technical;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the writing of a game or a map by MapGameWriter
+ */
+@Name("fr.baptistemasoud.GameWrite")
+@Label("Game Write")
+@Category({"Treasure Hunt", "I/O"})
+@Description("Writing of the details of a game or of a map to a channel")
+final class GameWriteEvent extends Event {
+    @Label("Output")
+    @Description("What is written: game details or map")
+    String output;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Lines")
+    long lines;
+
+    /**
+     * Commit the event if it is recorded, with the amounts written by the output
+     */
+    void commit(String output, ByteChannelOutput channelOutput) {
+        if (!shouldCommit()) return;
+        this.output = output;
+        this.bytes = channelOutput.written();
+        this.lines = channelOutput.lines();
+        commit();
+    }
+}
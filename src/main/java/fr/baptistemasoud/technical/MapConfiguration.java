@@ -1,14 +1,36 @@
 package fr.baptistemasoud.technical;
 
+import fr.baptistemasoud.functional.Coordinates;
 import org.apache.commons.lang3.tuple.Pair;
 
-import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 
 public record MapConfiguration(
         int width,
         int height,
-        List<Point> mountainsCoords,
-        List<Pair<Point, Integer>> treasuresCoordsAndAmount
+        Placements mountains,
+        Placements treasures
 ) {
+    /**
+     * @return a new list holding the coordinates of all mountains
+     */
+    public List<Coordinates> mountainsCoords() {
+        List<Coordinates> mountainsCoords = new ArrayList<>(mountains.size());
+        for (int i = 0; i < mountains.size(); i++) {
+            mountainsCoords.add(new Coordinates(mountains.x(i), mountains.y(i)));
+        }
+        return mountainsCoords;
+    }
+
+    /**
+     * @return a new list holding the coordinates and amount of all treasures
+     */
+    public List<Pair<Coordinates, Integer>> treasuresCoordsAndAmount() {
+        List<Pair<Coordinates, Integer>> treasuresCoordsAndAmount = new ArrayList<>(treasures.size());
+        for (int i = 0; i < treasures.size(); i++) {
+            treasuresCoordsAndAmount.add(Pair.of(new Coordinates(treasures.x(i), treasures.y(i)), treasures.amount(i)));
+        }
+        return treasuresCoordsAndAmount;
+    }
 }
@@ -1,30 +1,72 @@
 package fr.baptistemasoud.technical;
 
 import fr.baptistemasoud.functional.Adventurer;
-import fr.baptistemasoud.functional.Cell;
 import fr.baptistemasoud.functional.Game;
 import fr.baptistemasoud.functional.Map;
-import org.apache.commons.lang3.tuple.Pair;
 
-import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 public class MapGameWriter {
+    private static final int SMALL_BUFFER_SIZE = 1 << 13;
+
     private MapGameWriter() {}
 
     public static void printBeautifulMap(Map map, PrintStream stream) {
-        int height = map.getHeight();
-        int width = map.getWidth();
+        printMapView(map, 0, 0, map.getHeight(), map.getWidth(), 1, stream);
+    }
+
+    /**
+     * Print a rectangle of the map. With a zoom of 1, each cell is printed as in printBeautifulMap. With a greater
+     * zoom, each square block of zoom x zoom cells is printed as one symbol: A if it contains an adventurer, M if more
+     * than half of its cells are mountains, the total of its treasures if any, . otherwise. Blocks are aligned on
+     * multiples of zoom, the viewport is extended to whole blocks.
+     * @param fromX first x coordinate of the viewport
+     * @param fromY first y coordinate of the viewport
+     * @param toX   x coordinate following the last one of the viewport, clamped to the map height
+     * @param toY   y coordinate following the last one of the viewport, clamped to the map width
+     * @param zoom  width of the blocks printed as one symbol, must be strictly positive
+     * @throws IllegalArgumentException if zoom is not strictly positive, or the viewport has a negative coordinate or
+     *                                  is empty
+     */
+    public static void printMapView(Map map, int fromX, int fromY, int toX, int toY, int zoom, PrintStream stream) {
+        if (zoom <= 0) throw new IllegalArgumentException("zoom=%d is not strictly positive".formatted(zoom));
+        if (fromX < 0 || fromY < 0) throw new IllegalArgumentException(
+                "fromX=%d and fromY=%d must not be negative".formatted(fromX, fromY)
+        );
+        toX = Math.min(toX, map.getHeight());
+        toY = Math.min(toY, map.getWidth());
+        if (fromX >= toX || fromY >= toY) throw new IllegalArgumentException(
+                "viewport from x=%d y=%d to x=%d y=%d is empty".formatted(fromX, fromY, toX, toY)
+        );
+
+        if (zoom == 1) {
+            for (int x = fromX; x < toX; x++) {
+                for (int y = fromY; y < toY; y++) {
+                    Adventurer adventurer = map.getAdventurer(x, y);
+                    if (adventurer != null) stream.print(adventurer.getName().charAt(0));
+                    else if (map.isMountain(x, y)) stream.print("M");
+                    else if (map.hasTreasures(x, y)) stream.print(map.getTreasures(x, y));
+                    else stream.print(".");
+                    stream.print(" ");
+                }
+                stream.println();
+            }
+            return;
+        }
 
-        for (int x = 0; x < height; x++) {
-            for (int y = 0; y < width; y++) {
-                Cell cell = map.getCell(x, y);
-                if (cell.hasAdventurer()) stream.print(cell.getAdventurer().getName().charAt(0));
-                else if (cell.isPlain()) stream.print(".");
-                else if (cell.isMountain()) stream.print("M");
-                else if (cell.hasTreasures()) stream.print(cell.getTreasures());
+        for (long blockX = fromX / zoom * (long) zoom; blockX < toX; blockX += zoom) {
+            for (long blockY = fromY / zoom * (long) zoom; blockY < toY; blockY += zoom) {
+                Map.BlockSummary summary = map.summarize((int) blockX, (int) blockY,
+                        (int) Math.min(blockX + zoom, map.getHeight()), (int) Math.min(blockY + zoom, map.getWidth()));
+                if (summary.adventurers() > 0) stream.print("A");
+                else if (summary.mountains() * 2 > summary.cells()) stream.print("M");
+                else if (summary.treasures() > 0) stream.print(summary.treasures());
+                else stream.print(".");
                 stream.print(" ");
             }
             stream.println();
@@ -33,38 +75,95 @@ public class MapGameWriter {
 
     public static void printGameDetails(Game game, PrintStream stream) {
         Map map = game.getMap();
-        int width = map.getWidth();
+
+        stream.printf("C - %d - %d%n", map.getWidth(), map.getHeight());
+        map.forEachMountain((x, y) -> stream.printf("M - %d - %d%n", y, x));
+        map.forEachTreasure((x, y, amount) -> stream.printf("T - %d - %d - %d%n", y, x, amount));
+        map.forEachAdventurer((x, y, adventurer) -> stream.printf("A - %s - %d - %d - %s - %d%n",
+                adventurer.getName(),
+                y,
+                x,
+                adventurer.getOrientation().toString().charAt(0),
+                game.getCollectedTreasures(adventurer)));
+    }
+
+    /**
+     * Same output as printBeautifulMap, written through a large buffer
+     * @throws IOException if the channel cannot be written
+     */
+    public static void writeBeautifulMap(Map map, WritableByteChannel channel) throws IOException {
+        GameWriteEvent event = new GameWriteEvent();
+        event.begin();
+        ByteChannelOutput output = new ByteChannelOutput(channel);
         int height = map.getHeight();
-        List<Point> mountainsCoords = new ArrayList<>();
-        List<Pair<Point, Integer>> treasuresCoordsAndAmounts = new ArrayList<>();
-        List<Pair<Adventurer, Point>> adventurersCoords = new ArrayList<>();
-
-        for (int x = 0; x < height; x++) {
-            for (int y = 0; y < width; y++) {
-                Cell cell = map.getCell(x, y);
-                if (cell.isMountain()) mountainsCoords.add(new Point(x, y));
-                if (cell.hasTreasures()) treasuresCoordsAndAmounts.add(Pair.of(new Point(x, y), cell.getTreasures()));
-                if (cell.hasAdventurer()) adventurersCoords.add(Pair.of(cell.getAdventurer(), new Point(x, y)));
+        int width = map.getWidth();
+
+        try {
+            for (int x = 0; x < height; x++) {
+                for (int y = 0; y < width; y++) {
+                    Adventurer adventurer = map.getAdventurer(x, y);
+                    if (adventurer != null) writeChar(output, adventurer.getName().charAt(0));
+                    else if (map.isMountain(x, y)) output.writeAscii('M');
+                    else if (map.hasTreasures(x, y)) output.writeInt(map.getTreasures(x, y));
+                    else output.writeAscii('.');
+                    output.writeAscii(' ');
+                }
+                output.newLine();
             }
+            output.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        event.commit("map", output);
+    }
 
-        stream.printf("C - %d - %d%n", width, height);
-        for (Point mountainCoords : mountainsCoords) {
-            stream.printf("M - %d - %d%n", mountainCoords.y, mountainCoords.x);
-        }
-        for (Pair<Point, Integer> treasureCoordsAndAmount : treasuresCoordsAndAmounts) {
-            Point treasureCoords = treasureCoordsAndAmount.getLeft();
-            stream.printf("T - %d - %d - %d%n", treasureCoords.y, treasureCoords.x, treasureCoordsAndAmount.getRight());
+    /**
+     * Same output as printGameDetails, streamed through a large buffer without intermediate collections
+     * @throws IOException if the channel cannot be written
+     */
+    public static void writeGameDetails(Game game, WritableByteChannel channel) throws IOException {
+        writeGameDetails(game, new ByteChannelOutput(channel));
+    }
+
+    /**
+     * Same output as printGameDetails, for small games whose details are sent at once
+     * @return the details, encoded in UTF-8
+     */
+    public static byte[] getGameDetails(Game game) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            writeGameDetails(game, new ByteChannelOutput(Channels.newChannel(bytes), SMALL_BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing to memory cannot fail", e);
         }
-        for (Pair<Adventurer, Point> adventurerCoords : adventurersCoords) {
-            Point coords = adventurerCoords.getRight();
-            Adventurer adventurer = adventurerCoords.getLeft();
-            stream.printf("A - %s - %d - %d - %s - %d%n",
-                    adventurer.getName(),
-                    coords.y,
-                    coords.x,
-                    adventurer.getOrientation().toString().charAt(0),
-                    game.getCollectedTreasures(adventurer));
+        return bytes.toByteArray();
+    }
+
+    private static void writeGameDetails(Game game, ByteChannelOutput output) throws IOException {
+        GameWriteEvent event = new GameWriteEvent();
+        event.begin();
+        Map map = game.getMap();
+
+        try {
+            output.writeAscii("C - ").writeInt(map.getWidth()).writeAscii(" - ").writeInt(map.getHeight()).newLine();
+            map.forEachMountain((x, y) -> output.writeAscii("M - ").writeInt(y).writeAscii(" - ").writeInt(x).newLine());
+            map.forEachTreasure((x, y, amount) -> output.writeAscii("T - ").writeInt(y).writeAscii(" - ").writeInt(x)
+                    .writeAscii(" - ").writeInt(amount).newLine());
+            map.forEachAdventurer((x, y, adventurer) -> output.writeAscii("A - ").writeText(adventurer.getName())
+                    .writeAscii(" - ").writeInt(y)
+                    .writeAscii(" - ").writeInt(x)
+                    .writeAscii(" - ").writeAscii(adventurer.getOrientation().toString().charAt(0))
+                    .writeAscii(" - ").writeInt(game.getCollectedTreasures(adventurer))
+                    .newLine());
+            output.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        event.commit("game details", output);
+    }
+
+    private static void writeChar(ByteChannelOutput output, char c) {
+        if (c < 0x80) output.writeAscii(c);
+        else output.writeText(String.valueOf(c));
     }
 }
@@ -0,0 +1,331 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.Coordinates;
+import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.functional.PackedMovements;
+import fr.baptistemasoud.technical.exception.ConfigurationFormatException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Parse configuration lines directly from the bytes of a memory segment, with the same results and errors as
+ * ConfigurationReader parsing lines of text: spaces are ignored, parts are separated by '-' and trailing empty parts
+ * are dropped. Mountains and treasures lines are parsed without allocating, only adventurers names and movements are
+ * allocated.
+ */
+final class MappedConfigurationParser {
+    // the most parts a valid line can have, parts beyond are counted but not recorded
+    private static final int MAX_PARTS = 6;
+
+    private final MemorySegment segment;
+    // the parsed file, null if unknown
+    private final Path file;
+    private final boolean streamMovements;
+    private final Placements mountains;
+    private final Placements treasures;
+    private final List<AdventurerConfiguration> adventurers;
+    private final long[] partsStarts = new long[MAX_PARTS];
+    private final long[] partsEnds = new long[MAX_PARTS];
+    private int parts;
+    private long lineStart;
+    private long dimensionsLineStart = -1;
+    private boolean foundDimensions = false;
+    private int width;
+    private int height;
+
+    MappedConfigurationParser(MemorySegment segment, Placements mountains, Placements treasures, List<AdventurerConfiguration> adventurers) {
+        this(segment, null, false, mountains, treasures, adventurers);
+    }
+
+    /**
+     * @param file            the file mapped by the segment from its first byte, movements files are resolved against it.
+     *                        Null if the segment is not a file, movements files are then rejected
+     * @param streamMovements true to record where movements are instead of parsing them
+     */
+    MappedConfigurationParser(MemorySegment segment, Path file, boolean streamMovements, Placements mountains, Placements treasures, List<AdventurerConfiguration> adventurers) {
+        this.segment = segment;
+        this.file = file;
+        this.streamMovements = streamMovements;
+        this.mountains = mountains;
+        this.treasures = treasures;
+        this.adventurers = adventurers;
+    }
+
+    boolean foundDimensions() {
+        return foundDimensions;
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    /**
+     * @return the offset of the line being parsed, or of the line which failed to be parsed
+     */
+    long lineStart() {
+        return lineStart;
+    }
+
+    /**
+     * @return the offset of the first map dimensions line, -1 if none was met
+     */
+    long dimensionsLineStart() {
+        return dimensionsLineStart;
+    }
+
+    /**
+     * Parse the lines between two offsets of the segment
+     * @param from offset of the first byte of the first line
+     * @param to   offset following the last byte to parse
+     * @throws ConfigurationFormatException if a line is not correctly formatted
+     * @throws NumberFormatException        if a coordinate or an amount is not a number
+     * @throws UncheckedIOException         if a movements file cannot be read
+     */
+    void parse(long from, long to) {
+        long position = from;
+        while (position < to) {
+            lineStart = position;
+            position = parseLine(position, to);
+        }
+    }
+
+    /**
+     * @return the offset of the next line
+     */
+    private long parseLine(long lineStart, long to) {
+        // split the line in parts, ignoring spaces
+        int firstByte = -1;
+        int lastNonEmptyPart = -1;
+        boolean partNonEmpty = false;
+        long partStart = lineStart;
+        long position = lineStart;
+        parts = 0;
+        for (; position < to; position++) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, position);
+            if (b == '\n' || b == '\r') break;
+            if (b == '-') {
+                if (partNonEmpty) lastNonEmptyPart = parts;
+                recordPart(partStart, position);
+                partStart = position + 1;
+                partNonEmpty = false;
+            } else if (b != ' ') {
+                if (firstByte < 0) firstByte = b;
+                partNonEmpty = true;
+            }
+        }
+        if (partNonEmpty) lastNonEmptyPart = parts;
+        recordPart(partStart, position);
+        // as String.split, trailing empty parts are dropped
+        parts = lastNonEmptyPart + 1;
+
+        handleLine(firstByte, lineStart, position);
+
+        // skip the line terminator: \n, \r or \r\n
+        if (position < to && segment.get(ValueLayout.JAVA_BYTE, position++) == '\r'
+                && position < to && segment.get(ValueLayout.JAVA_BYTE, position) == '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    private void recordPart(long start, long end) {
+        if (parts < MAX_PARTS) {
+            partsStarts[parts] = start;
+            partsEnds[parts] = end;
+        }
+        parts++;
+    }
+
+    private void handleLine(int firstByte, long lineStart, long lineEnd) {
+        // blank line
+        if (firstByte < 0) return;
+
+        switch (firstByte) {
+            case '#' -> {
+            }
+            case 'C' -> handleMapDimensionsLine();
+            case 'M' -> handleMountainLine();
+            case 'T' -> handleTreasureLine();
+            case 'A' -> handleAdventurerLine();
+            default -> throw new ConfigurationFormatException(
+                    "A line cannot start with %s, it must start with one of the following characters: #, C, M, T or A"
+                            .formatted(decode(lineStart, lineEnd).charAt(0))
+            );
+        }
+    }
+
+    private void handleTreasureLine() {
+        if (parts != 4) throw new ConfigurationFormatException(
+                "A treasure line must contain 4 parts separated with '-'"
+        );
+
+        int x = parseInt(2);
+        int y = parseInt(1);
+        treasures.add(x, y, parseInt(3));
+    }
+
+    private void handleMountainLine() {
+        if (parts != 3) throw new ConfigurationFormatException(
+                "A treasure line must contain 3 parts separated with '-'"
+        );
+
+        int x = parseInt(2);
+        mountains.add(x, parseInt(1));
+    }
+
+    private void handleMapDimensionsLine() {
+        if (foundDimensions) throw new ConfigurationFormatException("File must define map dimensions once");
+
+        foundDimensions = true;
+        dimensionsLineStart = lineStart;
+
+        if (parts != 3) throw new ConfigurationFormatException(
+                "A map dimensions line must contain 3 parts separated with '-'"
+        );
+
+        width = parseInt(1);
+        height = parseInt(2);
+    }
+
+    private void handleAdventurerLine() {
+        if (parts != 6) throw new ConfigurationFormatException(
+                "An adventurer line must contain 6 parts separated with '-'"
+        );
+
+        String name = decodePart(1);
+        Adventurer.Orientation orientation = ConfigurationReader.getOrientationFromChar(firstChar(4));
+        int x = parseInt(3);
+        int y = parseInt(2);
+        Coordinates coords = new Coordinates(x, y);
+
+        // "@path" refers to a file containing the movements
+        long movementsStart = partsStarts[5];
+        while (movementsStart < partsEnds[5] && segment.get(ValueLayout.JAVA_BYTE, movementsStart) == ' ') movementsStart++;
+        if (movementsStart < partsEnds[5] && segment.get(ValueLayout.JAVA_BYTE, movementsStart) == '@') {
+            if (file == null) throw new ConfigurationFormatException(
+                    "Movements files can only be referenced from a configuration file"
+            );
+            Path movementsFile = resolve(decode(movementsStart + 1, partsEnds[5]));
+            if (streamMovements) {
+                adventurers.add(new AdventurerConfiguration(name, orientation, coords, null,
+                        new AdventurerConfiguration.MovementsLocation(movementsFile, 0, size(movementsFile))));
+            } else {
+                adventurers.add(new AdventurerConfiguration(name, orientation, coords, readMovements(movementsFile)));
+            }
+        } else if (streamMovements) {
+            adventurers.add(new AdventurerConfiguration(name, orientation, coords, null,
+                    new AdventurerConfiguration.MovementsLocation(file, partsStarts[5], partsEnds[5])));
+        } else {
+            adventurers.add(new AdventurerConfiguration(name, orientation, coords, parseMovements(5)));
+        }
+    }
+
+    private Path resolve(String movementsFile) {
+        return file.resolveSibling(movementsFile);
+    }
+
+    private static long size(Path movementsFile) {
+        try {
+            return Files.size(movementsFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PackedMovements readMovements(Path movementsFile) {
+        try (FileChannel channel = FileChannel.open(movementsFile, StandardOpenOption.READ)) {
+            PackedMovements.Builder movements = new PackedMovements.Builder((int) Math.min(Integer.MAX_VALUE, channel.size()));
+            new StreamedMovements(channel, 0, channel.size()).forEachRemaining(movements::add);
+            return movements.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private char firstChar(int part) {
+        for (long position = partsStarts[part]; position < partsEnds[part]; position++) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, position);
+            if (b >= 0 && b != ' ') return (char) b;
+            if (b < 0) break;
+        }
+        // not ASCII, or empty as "".charAt(0)
+        return decodePart(part).charAt(0);
+    }
+
+    private PackedMovements parseMovements(int part) {
+        long start = partsStarts[part];
+        long end = partsEnds[part];
+
+        PackedMovements.Builder movements = new PackedMovements.Builder((int) Math.min(Integer.MAX_VALUE, end - start));
+        for (long position = start; position < end; position++) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, position);
+            switch (b) {
+                case ' ' -> {
+                }
+                case 'A' -> movements.add(Game.Movement.FORWARD);
+                case 'D' -> movements.add(Game.Movement.ROTATE_RIGHT);
+                case 'G' -> movements.add(Game.Movement.ROTATE_LEFT);
+                // invalid or not ASCII, let the char based parsing report the invalid char
+                default -> {
+                    return ConfigurationReader.getMovementsFromCharArray(decodePart(part).toCharArray());
+                }
+            }
+        }
+        return movements.build();
+    }
+
+    /**
+     * Parse a part as Integer.parseInt would, without allocating in the common case
+     * @throws NumberFormatException if the part is not a number
+     */
+    private int parseInt(int part) {
+        long position = partsStarts[part];
+        long end = partsEnds[part];
+        long value = 0;
+        int digits = 0;
+        boolean signed = false;
+        for (; position < end; position++) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, position);
+            if (b == ' ') continue;
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits++;
+                if (value > Integer.MAX_VALUE) break;
+            } else if (b == '+' && digits == 0 && !signed) {
+                signed = true;
+            } else {
+                break;
+            }
+        }
+        if (position == end && digits > 0) return (int) value;
+
+        // anything unusual is left to Integer.parseInt, which also gives the same error message
+        return Integer.parseInt(decodePart(part));
+    }
+
+    private String decodePart(int part) {
+        return decode(partsStarts[part], partsEnds[part]);
+    }
+
+    /**
+     * @return the text between two offsets, without spaces
+     */
+    private String decode(long start, long end) {
+        byte[] bytes = segment.asSlice(start, end - start).toArray(ValueLayout.JAVA_BYTE);
+        return new String(bytes, StandardCharsets.UTF_8).replace(" ", "");
+    }
+}
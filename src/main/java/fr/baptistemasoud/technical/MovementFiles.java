@@ -0,0 +1,45 @@
+package fr.baptistemasoud.technical;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Files read by streamed movements. Each file is opened once and shared by all the adventurers streaming from it, the
+ * files are closed with this object.
+ */
+public final class MovementFiles implements AutoCloseable {
+    private final java.util.Map<Path, FileChannel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * @return the channel reading the file, opened on first use
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    FileChannel channel(Path file) {
+        return channels.computeIfAbsent(file.toAbsolutePath().normalize(), path -> {
+            try {
+                return FileChannel.open(path, StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (FileChannel channel : channels.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (error == null) error = e;
+                else error.addSuppressed(e);
+            }
+        }
+        channels.clear();
+        if (error != null) throw error;
+    }
+}
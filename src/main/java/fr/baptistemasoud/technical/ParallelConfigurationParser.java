@@ -0,0 +1,161 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.technical.exception.ConfigurationFormatException;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parse a memory segment in chunks of whole lines, in parallel, then merge the chunks in order. The result and the
+ * reported error are the same as parsing the segment sequentially: adventurers keep their declaration order, and the
+ * first error of the segment is reported, a second map dimensions line included.
+ */
+final class ParallelConfigurationParser {
+    // below this size per chunk, splitting costs more than it saves
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    // more chunks than threads to balance chunks of uneven parsing cost
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final MemorySegment segment;
+    private final Path file;
+    private final boolean streamMovements;
+    private final ForkJoinPool pool;
+    private final long minChunkSize;
+    private boolean foundDimensions = false;
+    private int width;
+    private int height;
+
+    /**
+     * @param segment the segment to parse, must be accessible from the pool threads
+     * @param pool    the pool parsing the chunks
+     */
+    ParallelConfigurationParser(MemorySegment segment, ForkJoinPool pool) {
+        this(segment, null, false, pool, MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * @param file            the file mapped by the segment, see MappedConfigurationParser
+     * @param streamMovements true to record where movements are instead of parsing them
+     */
+    ParallelConfigurationParser(MemorySegment segment, Path file, boolean streamMovements, ForkJoinPool pool) {
+        this(segment, file, streamMovements, pool, MIN_CHUNK_SIZE);
+    }
+
+    ParallelConfigurationParser(MemorySegment segment, ForkJoinPool pool, long minChunkSize) {
+        this(segment, null, false, pool, minChunkSize);
+    }
+
+    private ParallelConfigurationParser(MemorySegment segment, Path file, boolean streamMovements, ForkJoinPool pool, long minChunkSize) {
+        this.segment = segment;
+        this.file = file;
+        this.streamMovements = streamMovements;
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+    }
+
+    boolean foundDimensions() {
+        return foundDimensions;
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    /**
+     * Parse the whole segment and append its content to the given buffers
+     * @throws ConfigurationFormatException if a line is not correctly formatted
+     * @throws NumberFormatException        if a coordinate or an amount is not a number
+     */
+    void parse(Placements mountains, Placements treasures, List<AdventurerConfiguration> adventurers) {
+        List<Chunk> chunks = split();
+        List<Future<Chunk>> parsedChunks = pool.invokeAll(chunks);
+
+        for (Future<Chunk> parsedChunk : parsedChunks) {
+            Chunk chunk = getChunk(parsedChunk);
+
+            // the first map dimensions line of the chunk is either the first of the file or a duplicate
+            boolean chunkHasDimensions = chunk.parser.dimensionsLineStart() >= 0;
+            if (chunkHasDimensions) {
+                if (foundDimensions) throw new ConfigurationFormatException("File must define map dimensions once");
+                foundDimensions = true;
+            }
+            if (chunk.error != null) throw chunk.error;
+            if (chunkHasDimensions) {
+                width = chunk.parser.width();
+                height = chunk.parser.height();
+            }
+
+            mountains.addAll(chunk.mountains);
+            treasures.addAll(chunk.treasures);
+            adventurers.addAll(chunk.adventurers);
+        }
+    }
+
+    private static Chunk getChunk(Future<Chunk> parsedChunk) {
+        try {
+            return parsedChunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing configuration", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Configuration chunk parsing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Split the segment in chunks, each chunk ending right after a '\n'
+     */
+    private List<Chunk> split() {
+        long size = segment.byteSize();
+        int maxChunks = Math.max(1, pool.getParallelism() * CHUNKS_PER_THREAD);
+        long chunkSize = Math.max(minChunkSize, size / maxChunks + 1);
+
+        List<Chunk> chunks = new ArrayList<>();
+        long from = 0;
+        while (from < size) {
+            long to = Math.min(size, from + chunkSize);
+            while (to < size && segment.get(ValueLayout.JAVA_BYTE, to - 1) != '\n') to++;
+            chunks.add(new Chunk(from, to));
+            from = to;
+        }
+        return chunks;
+    }
+
+    private final class Chunk implements Callable<Chunk> {
+        private final long from;
+        private final long to;
+        private final Placements mountains = new Placements();
+        private final Placements treasures = new Placements();
+        private final List<AdventurerConfiguration> adventurers = new ArrayList<>();
+        private final MappedConfigurationParser parser;
+        // the first error of the chunk, parsing stops there
+        private RuntimeException error;
+
+        private Chunk(long from, long to) {
+            this.from = from;
+            this.to = to;
+            this.parser = new MappedConfigurationParser(segment, file, streamMovements, mountains, treasures, adventurers);
+        }
+
+        @Override
+        public Chunk call() {
+            try {
+                parser.parse(from, to);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package fr.baptistemasoud.technical;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent in each phase of a run, accumulated when a phase is timed more than once
+ */
+public final class PhaseTimings implements PhaseTimingsMBean {
+    private static final Phase[] PHASES = Phase.values();
+
+    private final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+
+    /**
+     * @param phase the phase
+     * @param start System.nanoTime() when the phase started
+     * @return System.nanoTime() now, the start of the next phase
+     */
+    public long record(Phase phase, long start) {
+        long now = System.nanoTime();
+        nanos.addAndGet(phase.ordinal(), now - start);
+        return now;
+    }
+
+    public long millis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.get(phase.ordinal()));
+    }
+
+    @Override
+    public long getParseMillis() {
+        return millis(Phase.PARSE);
+    }
+
+    @Override
+    public long getMapBuildMillis() {
+        return millis(Phase.MAP_BUILD);
+    }
+
+    @Override
+    public long getAdventurerSetupMillis() {
+        return millis(Phase.ADVENTURER_SETUP);
+    }
+
+    @Override
+    public long getPlayMillis() {
+        return millis(Phase.PLAY);
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return millis(Phase.WRITE);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (Phase phase : PHASES) {
+            if (!summary.isEmpty()) summary.append(' ');
+            summary.append(phase.name().toLowerCase()).append('=').append(millis(phase)).append("ms");
+        }
+        return summary.toString();
+    }
+
+    public enum Phase {
+        PARSE,
+        MAP_BUILD,
+        ADVENTURER_SETUP,
+        PLAY,
+        WRITE
+    }
+}
@@ -0,0 +1,16 @@
+package fr.baptistemasoud.technical;
+
+/**
+ * Management interface of PhaseTimings
+ */
+public interface PhaseTimingsMBean {
+    long getParseMillis();
+
+    long getMapBuildMillis();
+
+    long getAdventurerSetupMillis();
+
+    long getPlayMillis();
+
+    long getWriteMillis();
+}
@@ -0,0 +1,113 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.Map;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+/**
+ * Growable primitive list of placements read from a configuration: coordinates and, for treasures, an amount
+ */
+public final class Placements {
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private int[] amounts = new int[16];
+    private int size = 0;
+
+    void add(int x, int y) {
+        add(x, y, 0);
+    }
+
+    void add(int x, int y, int amount) {
+        grow(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        amounts[size] = amount;
+        size++;
+    }
+
+    void addAll(Placements placements) {
+        int required = size + placements.size;
+        grow(required);
+        System.arraycopy(placements.xs, 0, xs, size, placements.size);
+        System.arraycopy(placements.ys, 0, ys, size, placements.size);
+        System.arraycopy(placements.amounts, 0, amounts, size, placements.size);
+        size = required;
+    }
+
+    /**
+     * Append placements stored as columns, straight into the backing arrays: all the xs, then all the ys, then all
+     * the amounts if there are some
+     * @param offset the offset of the first x in the segment
+     */
+    void addColumns(MemorySegment segment, ValueLayout.OfInt layout, long offset, int count, boolean withAmounts) {
+        if (size == 0) {
+            // columns of exactly count placements are handed to the builder without being copied again
+            xs = new int[count];
+            ys = new int[count];
+            amounts = new int[count];
+        }
+        grow(size + count);
+        long column = (long) count * layout.byteSize();
+        MemorySegment.copy(segment, layout, offset, xs, size, count);
+        MemorySegment.copy(segment, layout, offset + column, ys, size, count);
+        if (withAmounts) MemorySegment.copy(segment, layout, offset + 2 * column, amounts, size, count);
+        size += count;
+    }
+
+    /**
+     * Place a mountain on each placement, with one bulk call to the builder
+     * @see Map.MapBuilder#placeMountains(int[], int[])
+     */
+    public void placeMountainsInto(Map.MapBuilder builder) {
+        trim();
+        builder.placeMountains(xs, ys);
+    }
+
+    /**
+     * Place the treasures of each placement, with one bulk call to the builder
+     * @see Map.MapBuilder#placeTreasures(int[], int[], int[])
+     */
+    public void placeTreasuresInto(Map.MapBuilder builder) {
+        trim();
+        builder.placeTreasures(xs, ys, amounts);
+    }
+
+    /**
+     * Shrink the columns to the placements, so that they can be given whole to the builder
+     */
+    private void trim() {
+        if (xs.length == size) return;
+        xs = Arrays.copyOf(xs, size);
+        ys = Arrays.copyOf(ys, size);
+        amounts = Arrays.copyOf(amounts, size);
+    }
+
+    private void grow(int required) {
+        if (required <= xs.length) return;
+        int capacity = Math.max(required, size * 2);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int x(int index) {
+        return xs[index];
+    }
+
+    public int y(int index) {
+        return ys[index];
+    }
+
+    /**
+     * @return the amount of treasures of the placement, 0 for mountains
+     */
+    public int amount(int index) {
+        return amounts[index];
+    }
+}
@@ -0,0 +1,90 @@
+package fr.baptistemasoud.technical;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of the requests served, from reading the request to sending the response. Percentiles are read from a
+ * histogram of power of two buckets, so they are upper bounds at most twice the actual latency.
+ */
+public final class RequestMetrics implements RequestMetricsMBean {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    // bucket i counts the latencies of less than 2^i nanoseconds and at least 2^(i-1)
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+    /**
+     * @param nanos  the latency of the request
+     * @param failed true if the request was not served successfully
+     */
+    public void record(long nanos, boolean failed) {
+        nanos = Math.max(0, nanos);
+        requests.increment();
+        if (failed) failures.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(nanos));
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long count = requests.sum();
+        return count == 0 ? 0 : totalNanos.sum() / 1e3 / count;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+    }
+
+    @Override
+    public long getMedianMicros() {
+        return percentileMicros(0.5);
+    }
+
+    @Override
+    public long getP99Micros() {
+        return percentileMicros(0.99);
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the percentile, 0 if no request was served
+     */
+    private long percentileMicros(double percentile) {
+        long[] counts = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i == Long.SIZE - 1 ? getMaxMicros() : TimeUnit.NANOSECONDS.toMicros(Math.min(1L << i, maxNanos.get()));
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "requests=%d failures=%d meanMicros=%.1f medianMicros=%d p99Micros=%d maxMicros=%d".formatted(
+                getRequests(), getFailures(), getMeanMicros(), getMedianMicros(), getP99Micros(), getMaxMicros());
+    }
+}
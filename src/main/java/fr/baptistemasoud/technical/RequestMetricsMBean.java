@@ -0,0 +1,18 @@
+package fr.baptistemasoud.technical;
+
+/**
+ * Management interface of RequestMetrics
+ */
+public interface RequestMetricsMBean {
+    long getRequests();
+
+    long getFailures();
+
+    double getMeanMicros();
+
+    long getMaxMicros();
+
+    long getMedianMicros();
+
+    long getP99Micros();
+}
@@ -0,0 +1,91 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.technical.exception.ConfigurationFormatException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Movements read lazily from a range of a file, through a small buffer: memory does not depend on the amount of
+ * movements. Spaces and line terminators are ignored, other chars must be A, D or G.
+ */
+final class StreamedMovements implements Iterator<Game.Movement> {
+    // bytes read ahead per adventurer
+    static final int READ_AHEAD = 1 << 10;
+
+    private final FileChannel channel;
+    private final long to;
+    private long position;
+    // allocated on first read, released once the range is read
+    private ByteBuffer buffer;
+
+    /**
+     * @param channel the file, read with positional reads so that it can be shared
+     * @param from    offset of the first movement
+     * @param to      offset following the last movement
+     */
+    StreamedMovements(FileChannel channel, long from, long to) {
+        this.channel = channel;
+        this.position = from;
+        this.to = to;
+    }
+
+    /**
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (buffer == null || !buffer.hasRemaining()) {
+                if (!fill()) return false;
+            }
+            byte b = buffer.get(buffer.position());
+            if (b != ' ' && b != '\n' && b != '\r') return true;
+            buffer.get();
+        }
+    }
+
+    /**
+     * @throws ConfigurationFormatException if the next char is not a movement
+     * @throws UncheckedIOException         if the file cannot be read
+     */
+    @Override
+    public Game.Movement next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        byte b = buffer.get();
+        return switch (b) {
+            case 'A' -> Game.Movement.FORWARD;
+            case 'D' -> Game.Movement.ROTATE_RIGHT;
+            case 'G' -> Game.Movement.ROTATE_LEFT;
+            default -> throw new ConfigurationFormatException(
+                    "Adventurer movement char cannot be %s, it must be either A, D, G".formatted((char) (b & 0xFF))
+            );
+        };
+    }
+
+    /**
+     * @return false if the whole range was read
+     */
+    private boolean fill() {
+        if (position >= to) {
+            buffer = null;
+            return false;
+        }
+        if (buffer == null) buffer = ByteBuffer.allocate((int) Math.min(READ_AHEAD, to - position));
+        buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+        try {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("File ended before the movements of an adventurer");
+            position += read;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package fr.baptistemasoud;
+
+import fr.baptistemasoud.functional.Map;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTest {
+
+    @Test
+    void run_DirectoryWithInvalidGame_PlaysOtherGamesAndReportsFailure() throws IOException {
+        Path inputDirectory = Files.createTempDirectory("games");
+        Path outputDirectory = inputDirectory.resolve("output");
+        try {
+            Files.writeString(inputDirectory.resolve("a.txt"), "C - 3 - 4\nM - 1 - 0\nT - 0 - 3 - 2\nA - Lara - 1 - 1 - S - AADADAGGA\n");
+            Files.writeString(inputDirectory.resolve("b.txt"), "C - 3 - 4\nX - 1 - 0\n");
+            Files.writeString(inputDirectory.resolve("c.txt"), "C - 2 - 2\n");
+
+            List<Path> inputs = Batch.listInputs(inputDirectory);
+            List<Batch.Failure> failures = new Batch(outputDirectory, Map.Storage.DENSE, 2).run(inputs);
+
+            assertEquals(List.of(inputDirectory.resolve("a.txt"), inputDirectory.resolve("b.txt"), inputDirectory.resolve("c.txt")), inputs);
+            assertEquals(1, failures.size());
+            assertEquals(inputDirectory.resolve("b.txt"), failures.get(0).input());
+            assertTrue(failures.get(0).message().startsWith("ConfigurationFormatException"));
+            assertEquals("C - 3 - 4\nM - 1 - 0\nA - Lara - 0 - 3 - S - 2\n".replace("\n", System.lineSeparator()),
+                    Files.readString(outputDirectory.resolve("a.txt")));
+            assertEquals("C - 2 - 2" + System.lineSeparator(), Files.readString(outputDirectory.resolve("c.txt")));
+            assertFalse(Files.exists(outputDirectory.resolve("b.txt")));
+        } finally {
+            delete(inputDirectory);
+        }
+    }
+
+    @Test
+    void run_SameFileNameInTwoDirectories_PlaysFirstAndReportsSecond() throws IOException {
+        Path inputDirectory = Files.createTempDirectory("games");
+        Path outputDirectory = inputDirectory.resolve("output");
+        try {
+            Path first = Files.createDirectories(inputDirectory.resolve("a")).resolve("game.txt");
+            Path second = Files.createDirectories(inputDirectory.resolve("b")).resolve("game.txt");
+            Files.writeString(first, "C - 2 - 2\n");
+            Files.writeString(second, "C - 3 - 3\n");
+
+            List<Batch.Failure> failures = new Batch(outputDirectory, Map.Storage.DENSE, 2).run(List.of(first, second));
+
+            assertEquals(1, failures.size());
+            assertEquals(second, failures.get(0).input());
+            assertTrue(failures.get(0).message().contains(first.toString()));
+            assertEquals("C - 2 - 2" + System.lineSeparator(), Files.readString(outputDirectory.resolve("game.txt")));
+        } finally {
+            delete(inputDirectory);
+        }
+    }
+
+    @Test
+    void listInputs_FileList_SkipsBlankLines() throws IOException {
+        Path list = Files.createTempFile("games", ".txt");
+        try {
+            Files.writeString(list, "first.txt\n\n  second.txt \n");
+
+            assertEquals(List.of(Path.of("first.txt"), Path.of("second.txt")), Batch.listInputs(list));
+        } finally {
+            Files.delete(list);
+        }
+    }
+
+    @Test
+    void constructor_ParallelismNotPositive_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> new Batch(Path.of("output"), Map.Storage.DENSE, 0));
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package fr.baptistemasoud;
+
+import fr.baptistemasoud.functional.Map;
+import fr.baptistemasoud.technical.RequestMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTest {
+
+    @Test
+    void play_ValidAndInvalidConfigurations_RespondsWithDetailsOrError() throws IOException, InterruptedException {
+        RequestMetrics metrics = new RequestMetrics();
+        try (Server server = new Server(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Map.Storage.DENSE, 2, 4, metrics);
+             HttpClient client = HttpClient.newHttpClient()) {
+            server.start();
+            URI play = URI.create("http://localhost:%d/play".formatted(server.port()));
+
+            HttpResponse<String> played = client.send(HttpRequest.newBuilder(play)
+                    .POST(HttpRequest.BodyPublishers.ofString("C - 3 - 4\nM - 1 - 0\nT - 0 - 3 - 2\nA - Lara - 1 - 1 - S - AADADAGGA\n"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, played.statusCode());
+            assertEquals("C - 3 - 4\nM - 1 - 0\nA - Lara - 0 - 3 - S - 2\n".replace("\n", System.lineSeparator()), played.body());
+
+            HttpResponse<String> invalid = client.send(HttpRequest.newBuilder(play)
+                    .POST(HttpRequest.BodyPublishers.ofString("C - 3 - 4\nA - Lara - 1 - 1 - S - @/etc/passwd\n"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, invalid.statusCode());
+            assertTrue(invalid.body().startsWith("ConfigurationFormatException"));
+
+            // latencies are recorded once the response is sent
+            for (int wait = 0; wait < 100 && metrics.getRequests() < 2; wait++) Thread.sleep(50);
+            assertEquals(2, metrics.getRequests());
+            assertEquals(1, metrics.getFailures());
+            assertTrue(metrics.getMedianMicros() > 0);
+        }
+    }
+
+    @Test
+    void play_MapLargerThanLimit_RespondsTooLargeAndKeepsServing() throws IOException, InterruptedException {
+        try (Server server = new Server(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Map.Storage.DENSE, 2, 4, new RequestMetrics());
+             HttpClient client = HttpClient.newHttpClient()) {
+            server.start();
+            URI play = URI.create("http://localhost:%d/play".formatted(server.port()));
+
+            HttpResponse<String> tooLarge = client.send(HttpRequest.newBuilder(play)
+                    .POST(HttpRequest.BodyPublishers.ofString("C - 50000 - 50000\n"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(413, tooLarge.statusCode());
+
+            HttpResponse<String> played = client.send(HttpRequest.newBuilder(play)
+                    .POST(HttpRequest.BodyPublishers.ofString("C - 3 - 4\n"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, played.statusCode());
+        }
+    }
+
+    @Test
+    void constructor_ThreadsNotPositive_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Server(new InetSocketAddress(0), Map.Storage.DENSE, 0, 4, new RequestMetrics()));
+    }
+}
@@ -0,0 +1,66 @@
+package fr.baptistemasoud.functional;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdventurerStoreTest {
+    private static final Game.Movement F = Game.Movement.FORWARD;
+    private static final Game.Movement L = Game.Movement.ROTATE_LEFT;
+    private static final Game.Movement R = Game.Movement.ROTATE_RIGHT;
+
+    @Test
+    void start_FullTurnAndOppositeRotations_NotActiveAndSameOrientation() {
+        AdventurerStore store = new AdventurerStore(2);
+        store.set(0, new Adventurer(Adventurer.Orientation.NORTH, "Lara"), 0, 0, PackedMovements.of(R, R, R, R));
+        store.set(1, new Adventurer(Adventurer.Orientation.WEST, "Indiana"), 0, 1, PackedMovements.of(L, R, null));
+
+        assertFalse(store.start(0));
+        assertFalse(store.start(1));
+        assertEquals(Adventurer.Orientation.NORTH.ordinal(), store.orientations[0]);
+        assertEquals(Adventurer.Orientation.WEST.ordinal(), store.orientations[1]);
+        assertEquals(0, store.rotations);
+    }
+
+    @Test
+    void start_TrailingRotations_NotActiveAndRotated() {
+        AdventurerStore store = new AdventurerStore(1);
+        store.set(0, new Adventurer(Adventurer.Orientation.NORTH, "Lara"), 0, 0, PackedMovements.of(R, R, R));
+
+        assertFalse(store.start(0));
+        assertEquals(Adventurer.Orientation.WEST.ordinal(), store.orientations[0]);
+    }
+
+    @Test
+    void finishForward_ForwardRuns_OneInstructionPerRun() {
+        AdventurerStore store = new AdventurerStore(1);
+        PackedMovements movements = PackedMovements.of(F, F, R, L, null, F, R, L);
+        store.set(0, new Adventurer(Adventurer.Orientation.NORTH, "Lara"), 0, 0, movements);
+
+        assertTrue(store.start(0));
+        assertEquals(2, store.forwardLeft[0]);
+        assertTrue(store.finishForward(0, 0));
+        // R, L and the null movement take rounds 2 to 4
+        assertTrue(store.finishForward(0, 1));
+        assertEquals(5, store.readyRounds[0]);
+        assertEquals(6, store.cursors[0]);
+        assertFalse(store.finishForward(0, 5));
+        assertEquals(Adventurer.Orientation.NORTH.ordinal(), store.orientations[0]);
+        // the packed movements are the only copy of the program
+        assertSame(movements, store.programs[0]);
+    }
+
+    @Test
+    void start_RotationsThenForward_ReadyAfterRotationTurns() {
+        AdventurerStore store = new AdventurerStore(1);
+        store.set(0, new Adventurer(Adventurer.Orientation.NORTH, "Lara"), 0, 0, PackedMovements.of(R, R, L, F, F));
+
+        assertTrue(store.start(0));
+        assertEquals(Adventurer.Orientation.EAST.ordinal(), store.orientations[0]);
+        assertFalse(store.isReady(0, 2));
+        assertTrue(store.isReady(0, 3));
+        assertTrue(store.finishForward(0, 3));
+        assertTrue(store.isReady(0, 4));
+        assertFalse(store.finishForward(0, 4));
+    }
+}
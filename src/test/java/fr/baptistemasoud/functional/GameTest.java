@@ -4,10 +4,20 @@ import org.apache.commons.lang3.tuple.Triple;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
-import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 class GameTest {
 
@@ -26,16 +36,16 @@ class GameTest {
         builder.placeTreasure(3, 1, 3);
         Map map = builder.createMap();
 
-        List<Triple<Adventurer, Point, Game.Movement[]>> adventurers = new ArrayList<>();
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
         Adventurer adventurer = new Adventurer(Adventurer.Orientation.NORTH, "Lara");
         adventurers.add(Triple.of(
                 adventurer,
-                new Point(1, 1),
+                new Coordinates(1, 1),
                 new Game.Movement[]{Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.ROTATE_RIGHT, Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.ROTATE_RIGHT, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD, null}));
 
         adventurers.add(Triple.of(
                 new Adventurer(Adventurer.Orientation.NORTH, "Blocker"),
-                new Point(1, 0),
+                new Coordinates(1, 0),
                 new Game.Movement[]{}
         ));
 
@@ -50,17 +60,41 @@ class GameTest {
         Assertions.assertEquals(2, map.getCell(3, 1).getTreasures());
     }
 
+    @Test
+    void play_PrimitiveStorage_SameOutcome() {
+        Map map = builder.useStorage(Map.Storage.PRIMITIVE)
+                .placeMountain(0, 1)
+                .placeTreasure(3, 0, 2)
+                .createMap();
+
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        Adventurer adventurer = new Adventurer(Adventurer.Orientation.SOUTH, "Lara");
+        adventurers.add(Triple.of(
+                adventurer,
+                new Coordinates(1, 0),
+                new Game.Movement[]{Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD}));
+
+        Game game = new Game(map, adventurers.toArray(Triple[]::new));
+
+        game.play();
+
+        Assertions.assertEquals(1, game.getCollectedTreasures(adventurer));
+        Assertions.assertEquals(adventurer, map.getCell(3, 1).getAdventurer());
+        Assertions.assertEquals(1, map.getCell(3, 0).getTreasures());
+        Assertions.assertFalse(map.hasAdventurer(1, 0));
+    }
+
     @Test
     void getCollectedTreasures() {
         builder.placeTreasure(1, 0, 1);
         builder.placeTreasure(2, 0, 1);
         Map map = builder.createMap();
 
-        List<Triple<Adventurer, Point, Game.Movement[]>> adventurers = new ArrayList<>();
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
         Adventurer adventurer = new Adventurer(Adventurer.Orientation.SOUTH, "Lara");
         adventurers.add(Triple.of(
                 adventurer,
-                new Point(0, 0),
+                new Coordinates(0, 0),
                 new Game.Movement[]{Game.Movement.FORWARD, Game.Movement.FORWARD}));
 
         Game game = new Game(map, adventurers.toArray(Triple[]::new));
@@ -69,4 +103,680 @@ class GameTest {
 
         Assertions.assertEquals(2, game.getCollectedTreasures(adventurer));
     }
-}
\ No newline at end of file
+
+    @Test
+    void play_SparseStorageHugeMap_MovesAndCollects() {
+        Map map = new Map.MapBuilder(1_000_000, 1_000_000)
+                .useStorage(Map.Storage.SPARSE)
+                .placeMountain(999_998, 999_999)
+                .placeTreasure(999_999, 999_998, 2)
+                .createMap();
+
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        Adventurer adventurer = new Adventurer(Adventurer.Orientation.SOUTH, "Lara");
+        adventurers.add(Triple.of(
+                adventurer,
+                new Coordinates(999_998, 999_998),
+                new Game.Movement[]{Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD}));
+
+        Game game = new Game(map, adventurers.toArray(Triple[]::new));
+
+        game.play();
+
+        Assertions.assertEquals(1, game.getCollectedTreasures(adventurer));
+        Assertions.assertEquals(adventurer, map.getCell(999_999, 999_999).getAdventurer());
+        Assertions.assertEquals(1, map.getTreasures(999_999, 999_998));
+    }
+
+    @Test
+    void play_MapWiderThanHigh_MovesUpToTheWidth() {
+        Map map = new Map.MapBuilder(2, 5).createMap();
+
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        Adventurer adventurer = new Adventurer(Adventurer.Orientation.EAST, "Lara");
+        adventurers.add(Triple.of(
+                adventurer,
+                new Coordinates(0, 0),
+                new Game.Movement[]{Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.FORWARD}));
+
+        Game game = new Game(map, adventurers.toArray(Triple[]::new));
+
+        game.play();
+
+        Assertions.assertEquals(adventurer, map.getCell(0, 4).getAdventurer());
+    }
+
+    @Test
+    void play_Rotations_UpdateAdventurerOrientation() {
+        Map map = builder.createMap();
+
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        Adventurer adventurer = new Adventurer(Adventurer.Orientation.NORTH, "Lara");
+        adventurers.add(Triple.of(
+                adventurer,
+                new Coordinates(0, 0),
+                new Game.Movement[]{Game.Movement.ROTATE_LEFT, Game.Movement.ROTATE_LEFT, Game.Movement.ROTATE_LEFT}));
+
+        new Game(map, adventurers.toArray(Triple[]::new)).play();
+
+        Assertions.assertEquals(Adventurer.Orientation.EAST, adventurer.getOrientation());
+    }
+
+    @Test
+    void play_ProgramsOfDifferentLengths_OneMovementPerAdventurerAndPerRound() {
+        Map map = builder.createMap();
+
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        Adventurer lara = new Adventurer(Adventurer.Orientation.EAST, "Lara");
+        Adventurer indiana = new Adventurer(Adventurer.Orientation.WEST, "Indiana");
+        Adventurer oriane = new Adventurer(Adventurer.Orientation.SOUTH, "Oriane");
+        // Lara waits one round, Indiana takes the cell first
+        adventurers.add(Triple.of(lara, new Coordinates(0, 0), new Game.Movement[]{null, Game.Movement.FORWARD}));
+        adventurers.add(Triple.of(indiana, new Coordinates(0, 2), new Game.Movement[]{Game.Movement.FORWARD}));
+        adventurers.add(Triple.of(oriane, new Coordinates(1, 2), new Game.Movement[]{Game.Movement.FORWARD, Game.Movement.ROTATE_RIGHT, Game.Movement.ROTATE_RIGHT, Game.Movement.FORWARD, Game.Movement.FORWARD}));
+
+        new Game(map, adventurers.toArray(Triple[]::new)).play();
+
+        Assertions.assertEquals(lara, map.getCell(0, 0).getAdventurer());
+        Assertions.assertEquals(indiana, map.getCell(0, 1).getAdventurer());
+        Assertions.assertEquals(oriane, map.getCell(0, 2).getAdventurer());
+        Assertions.assertEquals(Adventurer.Orientation.NORTH, oriane.getOrientation());
+    }
+
+    @Test
+    void getCollectedTreasures_UnknownAdventurer_ThrowsIllegalArgument() {
+        Game game = new Game(builder.createMap(), new Triple[0]);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> game.getCollectedTreasures(new Adventurer(Adventurer.Orientation.NORTH, "Lara")));
+    }
+
+    @Test
+    void play_RedundantRotations_KeepTurnTiming() {
+        Map map = builder.createMap();
+        Adventurer lara = new Adventurer(Adventurer.Orientation.SOUTH, "Lara");
+        Adventurer indiana = new Adventurer(Adventurer.Orientation.NORTH, "Indiana");
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        // Lara turns around for 4 rounds before moving, Indiana takes the cell at the 4th round
+        adventurers.add(Triple.of(lara, new Coordinates(0, 0), new Game.Movement[]{
+                Game.Movement.ROTATE_RIGHT, Game.Movement.ROTATE_RIGHT, Game.Movement.ROTATE_RIGHT, Game.Movement.ROTATE_RIGHT, Game.Movement.FORWARD}));
+        adventurers.add(Triple.of(indiana, new Coordinates(2, 0), new Game.Movement[]{
+                Game.Movement.ROTATE_RIGHT, Game.Movement.ROTATE_LEFT, null, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.ROTATE_LEFT}));
+
+        Game game = new Game(map, adventurers.toArray(Triple[]::new));
+        game.play();
+
+        Assertions.assertEquals(lara, map.getAdventurer(0, 0));
+        Assertions.assertEquals(Adventurer.Orientation.SOUTH, lara.getOrientation());
+        Assertions.assertEquals(indiana, map.getAdventurer(1, 0));
+        Assertions.assertEquals(Adventurer.Orientation.SOUTH, indiana.getOrientation());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Map.Storage.class)
+    void play_WithPoolCrowdedMap_SameOutcomeAsSequential(Map.Storage storage) {
+        Game sequentialGame = createCrowdedGame(storage);
+        Game parallelGame = createCrowdedGame(storage);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        sequentialGame.play();
+        try {
+            parallelGame.play(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> sequentialOutcome = describe(sequentialGame);
+        List<String> parallelOutcome = describe(parallelGame);
+        Assertions.assertEquals(sequentialOutcome, parallelOutcome);
+    }
+
+    @Test
+    void play_CrowdedMap_SameOutcomeAsMovementByMovement() {
+        Game game = createCrowdedGame(Map.Storage.DENSE);
+        Map referenceMap = createCrowdedMap(Map.Storage.DENSE);
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> referenceAdventurers = createCrowdedAdventurers(referenceMap);
+
+        game.play();
+        java.util.Map<Adventurer, Integer> collected = playMovementByMovement(referenceMap, referenceAdventurers);
+
+        List<String> expected = new ArrayList<>();
+        referenceMap.forEachTreasure((x, y, amount) -> expected.add("T %d %d %d".formatted(x, y, amount)));
+        referenceMap.forEachAdventurer((x, y, adventurer) -> expected.add("A %s %d %d %s %d".formatted(
+                adventurer.getName(), x, y, adventurer.getOrientation(), collected.get(adventurer))));
+        Assertions.assertEquals(expected, describe(game));
+    }
+
+    @Test
+    void play_MovementSources_SameOutcomeAsPackedMovements() {
+        Game packedGame = createCrowdedGame(Map.Storage.DENSE);
+        Map map = createCrowdedMap(Map.Storage.DENSE);
+        List<Triple<Adventurer, Coordinates, Iterator<Game.Movement>>> sources = new ArrayList<>();
+        for (Triple<Adventurer, Coordinates, Game.Movement[]> adventurer : createCrowdedAdventurers(map)) {
+            sources.add(Triple.of(adventurer.getLeft(), adventurer.getMiddle(), Arrays.asList(adventurer.getRight()).iterator()));
+        }
+        Game streamedGame = Game.withMovementSources(map, sources.toArray(Triple[]::new));
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        packedGame.play();
+        try {
+            streamedGame.play(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(describe(packedGame), describe(streamedGame));
+    }
+
+    /**
+     * Lara moves, picks a treasure, tries to leave the map, rotates and is blocked by an adventurer. Indiana is blocked
+     * by a mountain
+     */
+    private Game createEventfulGame() {
+        builder.placeMountain(1, 1);
+        builder.placeTreasure(2, 0, 1);
+        Map map = builder.createMap();
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        adventurers.add(Triple.of(new Adventurer(Adventurer.Orientation.SOUTH, "Lara"), new Coordinates(0, 0), new Game.Movement[]{
+                Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD}));
+        adventurers.add(Triple.of(new Adventurer(Adventurer.Orientation.WEST, "Indiana"), new Coordinates(1, 2), new Game.Movement[]{
+                Game.Movement.FORWARD}));
+        adventurers.add(Triple.of(new Adventurer(Adventurer.Orientation.NORTH, "Blocker"), new Coordinates(3, 1), new Game.Movement[]{}));
+        return new Game(map, adventurers.toArray(Triple[]::new));
+    }
+
+    @Test
+    void play_WithMetrics_CountsWhatHappened() {
+        Game game = createEventfulGame();
+        GameMetrics metrics = new GameMetrics();
+        game.recordMetrics(metrics);
+
+        game.play();
+
+        Assertions.assertEquals(3, metrics.getMoves());
+        Assertions.assertEquals(1, metrics.getRotations());
+        Assertions.assertEquals(1, metrics.getBlockedByMountain());
+        Assertions.assertEquals(1, metrics.getBlockedByAdventurer());
+        Assertions.assertEquals(1, metrics.getOutOfBounds());
+        Assertions.assertEquals(1, metrics.getTreasuresCollected());
+        Assertions.assertEquals(6, metrics.getTurns());
+    }
+
+    @Test
+    void play_WithPoolAndMetrics_SameCountsAsSequential() {
+        Game sequentialGame = createCrowdedGame(Map.Storage.DENSE);
+        Game parallelGame = createCrowdedGame(Map.Storage.DENSE);
+        GameMetrics sequentialMetrics = new GameMetrics();
+        GameMetrics parallelMetrics = new GameMetrics();
+        sequentialGame.recordMetrics(sequentialMetrics);
+        parallelGame.recordMetrics(parallelMetrics);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        sequentialGame.play();
+        try {
+            parallelGame.play(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertTrue(sequentialMetrics.getMoves() > 0);
+        Assertions.assertEquals(sequentialMetrics.getMoves(), parallelMetrics.getMoves());
+        Assertions.assertEquals(sequentialMetrics.getRotations(), parallelMetrics.getRotations());
+        Assertions.assertEquals(sequentialMetrics.getBlockedByMountain(), parallelMetrics.getBlockedByMountain());
+        Assertions.assertEquals(sequentialMetrics.getBlockedByAdventurer(), parallelMetrics.getBlockedByAdventurer());
+        Assertions.assertEquals(sequentialMetrics.getOutOfBounds(), parallelMetrics.getOutOfBounds());
+        Assertions.assertEquals(sequentialMetrics.getTreasuresCollected(), parallelMetrics.getTreasuresCollected());
+        Assertions.assertEquals(sequentialMetrics.getTurns(), parallelMetrics.getTurns());
+    }
+
+    @Test
+    void play_WithEvents_SendsEventsInRoundOrder() {
+        Game game = createEventfulGame();
+        List<String> events = new ArrayList<>();
+        game.sendEvents(new GameEventSink() {
+            @Override
+            public void onEvent(GameEvent event, int round, int adventurer, int x, int y, Adventurer.Orientation orientation) {
+                events.add("%s %d %d %d %d %s".formatted(event, round, adventurer, x, y, orientation));
+            }
+
+            @Override
+            public void onRoundPlayed(int round) {
+                events.add("round " + round);
+            }
+        });
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            game.play(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(List.of(
+                "MOVED 0 0 1 0 SOUTH",
+                "BLOCKED_BY_MOUNTAIN 0 1 1 1 WEST",
+                "round 0",
+                "MOVED 1 0 2 0 SOUTH",
+                "TREASURE_PICKED 1 0 2 0 SOUTH",
+                "round 1",
+                "MOVED 2 0 3 0 SOUTH",
+                "round 2",
+                "OUT_OF_BOUNDS 3 0 4 0 SOUTH",
+                "round 3",
+                "ROTATED 4 0 3 0 EAST",
+                "round 4",
+                "BLOCKED_BY_ADVENTURER 5 0 3 1 EAST",
+                "round 5"
+        ), events);
+    }
+
+    @Test
+    void play_WithEvents_SendsEachRotationInItsRound() {
+        Game.Movement f = Game.Movement.FORWARD;
+        Game.Movement l = Game.Movement.ROTATE_LEFT;
+        Game.Movement r = Game.Movement.ROTATE_RIGHT;
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        // a full turn and a left then right rotation have no net rotation
+        adventurers.add(Triple.of(new Adventurer(Adventurer.Orientation.SOUTH, "Lara"), new Coordinates(0, 0), new Game.Movement[]{
+                r, r, r, r, f, l, r}));
+        Game game = new Game(builder.createMap(), adventurers.toArray(Triple[]::new));
+        List<String> events = new ArrayList<>();
+        game.sendEvents(new GameEventSink() {
+            @Override
+            public void onEvent(GameEvent event, int round, int adventurer, int x, int y, Adventurer.Orientation orientation) {
+                events.add("%s %d %d %d %d %s".formatted(event, round, adventurer, x, y, orientation));
+            }
+
+            @Override
+            public void onRoundPlayed(int round) {
+                events.add("round " + round);
+            }
+        });
+
+        game.play();
+
+        Assertions.assertEquals(List.of(
+                "ROTATED 0 0 0 0 WEST",
+                "round 0",
+                "ROTATED 1 0 0 0 NORTH",
+                "round 1",
+                "ROTATED 2 0 0 0 EAST",
+                "round 2",
+                "ROTATED 3 0 0 0 SOUTH",
+                "round 3",
+                "MOVED 4 0 1 0 SOUTH",
+                "round 4",
+                "ROTATED 5 0 1 0 EAST",
+                "round 5",
+                "ROTATED 6 0 1 0 SOUTH",
+                "round 6"
+        ), events);
+    }
+
+    @Test
+    void play_StreamedRotationsWithEvents_ReadsSourceBoundedAheadOfRounds() {
+        int rotations = 2 * AdventurerStore.MAX_REPORTED_ROTATIONS + 3;
+        int[] read = {0};
+        Iterator<Game.Movement> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return read[0] <= rotations;
+            }
+
+            @Override
+            public Game.Movement next() {
+                return read[0]++ < rotations ? Game.Movement.ROTATE_RIGHT : Game.Movement.FORWARD;
+            }
+        };
+        List<Triple<Adventurer, Coordinates, Iterator<Game.Movement>>> adventurers = new ArrayList<>();
+        adventurers.add(Triple.of(new Adventurer(Adventurer.Orientation.SOUTH, "Lara"), new Coordinates(0, 0), source));
+        Game game = Game.withMovementSources(new Map.MapBuilder(3, 3).createMap(), adventurers.toArray(Triple[]::new));
+        List<String> events = new ArrayList<>();
+        game.sendEvents(new GameEventSink() {
+            @Override
+            public void onEvent(GameEvent event, int round, int adventurer, int x, int y, Adventurer.Orientation orientation) {
+                Assertions.assertTrue(read[0] - round <= AdventurerStore.MAX_REPORTED_ROTATIONS + 1);
+                events.add("%s %d %d %d %d %s".formatted(event, round, adventurer, x, y, orientation));
+            }
+
+            @Override
+            public void onRoundPlayed(int round) {
+                events.add("round " + round);
+            }
+        });
+
+        game.play();
+
+        List<String> expected = new ArrayList<>();
+        for (int round = 0; round < rotations; round++) {
+            expected.add("ROTATED %d 0 0 0 %s".formatted(round, Adventurer.Orientation.values()[(round + 3) & 3]));
+            expected.add("round " + round);
+        }
+        expected.add("MOVED %d 0 0 1 EAST".formatted(rotations));
+        expected.add("round " + rotations);
+        Assertions.assertEquals(expected, events);
+    }
+
+    @Test
+    void stateAt_RecordedReplay_StateAfterEachTurn() {
+        Game game = createEventfulGame();
+        GameReplay replay = game.recordReplay(2);
+        game.play();
+
+        Assertions.assertEquals(6, replay.turns());
+        GameReplay.State initial = replay.stateAt(0);
+        Assertions.assertEquals(0, initial.getX(0));
+        Assertions.assertEquals(Adventurer.Orientation.SOUTH, initial.getOrientation(0));
+        Assertions.assertEquals(1, initial.getTreasures(2, 0));
+
+        GameReplay.State treasurePicked = replay.stateAt(2);
+        Assertions.assertEquals(2, treasurePicked.getX(0));
+        Assertions.assertEquals(1, treasurePicked.getCollectedTreasures(0));
+        Assertions.assertEquals(0, treasurePicked.getTreasures(2, 0));
+        Assertions.assertEquals(1, treasurePicked.getX(1));
+        Assertions.assertEquals(2, treasurePicked.getY(1));
+
+        Assertions.assertEquals(Adventurer.Orientation.SOUTH, replay.stateAt(4).getOrientation(0));
+        GameReplay.State rotated = replay.stateAt(5);
+        Assertions.assertEquals(3, rotated.getX(0));
+        Assertions.assertEquals(0, rotated.getY(0));
+        Assertions.assertEquals(Adventurer.Orientation.EAST, rotated.getOrientation(0));
+        Assertions.assertEquals("Lara", rotated.createMap().getAdventurer(3, 0).getName());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> replay.stateAt(7));
+    }
+
+    @Test
+    void stateAt_TurnsWithinRotations_OrientationOfEachTurn() {
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        adventurers.add(Triple.of(new Adventurer(Adventurer.Orientation.SOUTH, "Lara"), new Coordinates(0, 1), new Game.Movement[]{
+                Game.Movement.FORWARD, Game.Movement.ROTATE_RIGHT, Game.Movement.ROTATE_RIGHT, null,
+                Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT}));
+        Game game = new Game(builder.createMap(), adventurers.toArray(Triple[]::new));
+        GameReplay replay = game.recordReplay(2);
+        game.play();
+
+        Assertions.assertEquals(7, replay.turns());
+        Assertions.assertEquals(Adventurer.Orientation.SOUTH, replay.stateAt(1).getOrientation(0));
+        Assertions.assertEquals(Adventurer.Orientation.WEST, replay.stateAt(2).getOrientation(0));
+        Assertions.assertEquals(Adventurer.Orientation.NORTH, replay.stateAt(3).getOrientation(0));
+        Assertions.assertEquals(Adventurer.Orientation.NORTH, replay.stateAt(4).getOrientation(0));
+        GameReplay.State beforeForward = replay.stateAt(5);
+        Assertions.assertEquals(Adventurer.Orientation.WEST, beforeForward.getOrientation(0));
+        Assertions.assertEquals(1, beforeForward.getY(0));
+        Assertions.assertEquals(0, replay.stateAt(6).getY(0));
+        // the rotation after the last forward movement is part of the final state
+        Assertions.assertEquals(Adventurer.Orientation.SOUTH, replay.stateAt(7).getOrientation(0));
+    }
+
+    @Test
+    void stateAt_RecordedReplay_SameStatesAsCheckpoints() {
+        Game game = createCrowdedGame(Map.Storage.DENSE);
+        List<GameCheckpoint> checkpoints = new ArrayList<>();
+        game.checkpointEvery(1, checkpoints::add);
+        GameReplay replay = game.recordReplay(13);
+        game.play();
+
+        Assertions.assertTrue(replay.snapshotsCount() > 2);
+        for (GameCheckpoint checkpoint : checkpoints) {
+            GameReplay.State state = replay.stateAt(checkpoint.turns());
+            for (int id = 0; id < state.adventurersCount(); id++) {
+                Assertions.assertEquals(checkpoint.xs[id], state.getX(id));
+                Assertions.assertEquals(checkpoint.ys[id], state.getY(id));
+                Assertions.assertEquals(checkpoint.collectedTreasures[id], state.getCollectedTreasures(id));
+            }
+            for (int i = 0; i < checkpoint.treasures.size(); i++) {
+                Assertions.assertEquals(checkpoint.treasures.amount(i),
+                        state.getTreasures(checkpoint.treasures.x(i), checkpoint.treasures.y(i)));
+            }
+        }
+    }
+
+    @Test
+    void recordReplay_PlayedGame_ThrowsIllegalState() {
+        Game game = createEventfulGame();
+        game.play();
+        Assertions.assertThrows(IllegalStateException.class, () -> game.recordReplay(10));
+    }
+
+    @Test
+    void restore_Checkpoints_SameOutcomeAsUninterruptedGame() throws IOException {
+        Game game = createCrowdedGame(Map.Storage.DENSE);
+        List<GameCheckpoint> checkpoints = new ArrayList<>();
+        game.checkpointEvery(7, checkpoints::add);
+        game.play();
+        List<String> expected = describe(game);
+
+        Assertions.assertTrue(checkpoints.size() > 2);
+        for (GameCheckpoint checkpoint : checkpoints) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            checkpoint.write(new DataOutputStream(bytes));
+            GameCheckpoint read = GameCheckpoint.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            Assertions.assertEquals(0, read.turns() % 7);
+
+            Game resumedGame = createCrowdedGame(Map.Storage.SPARSE);
+            resumedGame.restore(read);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                resumedGame.play(pool);
+            } finally {
+                pool.shutdown();
+            }
+            Assertions.assertEquals(expected, describe(resumedGame));
+        }
+    }
+
+    @Test
+    void restore_CheckpointOfAnotherGame_ThrowsIllegalArgument() {
+        Game game = createCrowdedGame(Map.Storage.DENSE);
+        List<GameCheckpoint> checkpoints = new ArrayList<>();
+        game.checkpointEvery(10, checkpoints::add);
+        game.play();
+
+        Game otherGame = new Game(builder.createMap(), new Triple[0]);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> otherGame.restore(checkpoints.get(0)));
+    }
+
+    @Test
+    void restore_AdventurerOutOfBounds_ThrowsIllegalArgumentAndKeepsMap() {
+        GameCheckpoint checkpoint = lastCheckpointWithCollectedTreasures();
+        int[] xs = checkpoint.xs.clone();
+        xs[0] = -1;
+        Game resumedGame = createCrowdedGame(Map.Storage.DENSE);
+        List<String> initial = describeTreasures(resumedGame.getMap());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> resumedGame.restore(withPositions(checkpoint, xs, checkpoint.ys)));
+        Assertions.assertEquals(initial, describeTreasures(resumedGame.getMap()));
+    }
+
+    @Test
+    void restore_TwoAdventurersOnOneCell_ThrowsIllegalArgument() {
+        GameCheckpoint checkpoint = lastCheckpointWithCollectedTreasures();
+        int[] xs = checkpoint.xs.clone();
+        int[] ys = checkpoint.ys.clone();
+        xs[1] = xs[0];
+        ys[1] = ys[0];
+        Game resumedGame = createCrowdedGame(Map.Storage.DENSE);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> resumedGame.restore(withPositions(checkpoint, xs, ys)));
+    }
+
+    @Test
+    void restore_ActiveAdventurerOutOfRange_ThrowsIllegalArgument() {
+        GameCheckpoint checkpoint = lastCheckpointWithCollectedTreasures();
+        int[] active = checkpoint.activeAdventurers.clone();
+        active[active.length - 1] = checkpoint.xs.length;
+        GameCheckpoint corrupted = new GameCheckpoint(checkpoint.height, checkpoint.width, checkpoint.turns,
+                checkpoint.nextRound, checkpoint.programsHash, checkpoint.mountains, checkpoint.treasures,
+                checkpoint.xs, checkpoint.ys, checkpoint.orientations, checkpoint.collectedTreasures,
+                checkpoint.cursors, checkpoint.readyRounds, checkpoint.forwardLeft, active);
+        Game resumedGame = createCrowdedGame(Map.Storage.DENSE);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> resumedGame.restore(corrupted));
+    }
+
+    @Test
+    void checkpointEvery_PlayedOnPool_SameCheckpointsAsSequential() throws IOException {
+        Game sequentialGame = createCrowdedGame(Map.Storage.PRIMITIVE);
+        Game parallelGame = createCrowdedGame(Map.Storage.PRIMITIVE);
+        List<GameCheckpoint> sequentialCheckpoints = new ArrayList<>();
+        List<GameCheckpoint> parallelCheckpoints = new ArrayList<>();
+        sequentialGame.checkpointEvery(5, sequentialCheckpoints::add);
+        parallelGame.checkpointEvery(5, parallelCheckpoints::add);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        sequentialGame.play();
+        try {
+            parallelGame.play(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(sequentialCheckpoints.size(), parallelCheckpoints.size());
+        for (int i = 0; i < sequentialCheckpoints.size(); i++) {
+            Assertions.assertArrayEquals(toBytes(sequentialCheckpoints.get(i)), toBytes(parallelCheckpoints.get(i)));
+        }
+    }
+
+    @Test
+    void restore_PlayedGame_ThrowsIllegalState() {
+        Game game = createCrowdedGame(Map.Storage.DENSE);
+        List<GameCheckpoint> checkpoints = new ArrayList<>();
+        game.checkpointEvery(10, checkpoints::add);
+        game.play();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> game.restore(checkpoints.get(0)));
+    }
+
+    @Test
+    void checkpointEvery_NotStrictlyPositive_ThrowsIllegalArgument() {
+        Game game = createCrowdedGame(Map.Storage.DENSE);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> game.checkpointEvery(0, checkpoint -> {
+        }));
+    }
+
+    /**
+     * Play movements one at a time, in game order, through the Map and Adventurer methods
+     * @return the treasures collected by each adventurer
+     */
+    private static java.util.Map<Adventurer, Integer> playMovementByMovement(Map map, List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers) {
+        java.util.Map<Adventurer, Integer> collected = new java.util.IdentityHashMap<>();
+        List<Coordinates> positions = new ArrayList<>();
+        int turns = 0;
+        for (Triple<Adventurer, Coordinates, Game.Movement[]> adventurer : adventurers) {
+            map.placeAdventurer(adventurer.getMiddle().x(), adventurer.getMiddle().y(), adventurer.getLeft());
+            collected.put(adventurer.getLeft(), 0);
+            positions.add(adventurer.getMiddle());
+            turns = Math.max(turns, adventurer.getRight().length);
+        }
+
+        for (int turn = 0; turn < turns; turn++) {
+            for (int i = 0; i < adventurers.size(); i++) {
+                Adventurer adventurer = adventurers.get(i).getLeft();
+                Game.Movement[] movements = adventurers.get(i).getRight();
+                if (turn >= movements.length || movements[turn] == null) continue;
+                switch (movements[turn]) {
+                    case ROTATE_LEFT -> adventurer.rotateLeft();
+                    case ROTATE_RIGHT -> adventurer.rotateRight();
+                    case FORWARD -> {
+                        Coordinates position = positions.get(i);
+                        int toX = position.x() + AdventurerStore.FORWARD_X[adventurer.getOrientation().ordinal()];
+                        int toY = position.y() + AdventurerStore.FORWARD_Y[adventurer.getOrientation().ordinal()];
+                        if (Map.areCoordsOutOfBounds(map.getHeight(), map.getWidth(), toX, toY)
+                                || map.isMountain(toX, toY) || map.hasAdventurer(toX, toY)) continue;
+                        map.moveAdventurer(position.x(), position.y(), toX, toY);
+                        positions.set(i, new Coordinates(toX, toY));
+                        if (map.hasTreasures(toX, toY)) {
+                            map.removeOneTreasure(toX, toY);
+                            collected.merge(adventurer, 1, Integer::sum);
+                        }
+                    }
+                }
+            }
+        }
+        return collected;
+    }
+
+    private static Game createCrowdedGame(Map.Storage storage) {
+        Map map = createCrowdedMap(storage);
+        return new Game(map, createCrowdedAdventurers(map).toArray(Triple[]::new));
+    }
+
+    private static Map createCrowdedMap(Map.Storage storage) {
+        Random random = new Random(42);
+        int size = 100;
+        Map.MapBuilder crowdedBuilder = new Map.MapBuilder(size, size).useStorage(storage);
+        boolean[] used = new boolean[size * size];
+        for (int i = 0; i < 500; i++) {
+            int cell = random.nextInt(size * size);
+            if (used[cell]) continue;
+            used[cell] = true;
+            if (i % 2 == 0) crowdedBuilder.placeMountain(cell / size, cell % size);
+            else crowdedBuilder.placeTreasure(cell / size, cell % size, 1 + random.nextInt(3));
+        }
+        return crowdedBuilder.createMap();
+    }
+
+    private static List<Triple<Adventurer, Coordinates, Game.Movement[]>> createCrowdedAdventurers(Map map) {
+        Random random = new Random(7);
+        int size = map.getWidth();
+        Game.Movement[] allMovements = {Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.ROTATE_RIGHT, null};
+        List<Triple<Adventurer, Coordinates, Game.Movement[]>> adventurers = new ArrayList<>();
+        for (int cell = 0; cell < size * size && adventurers.size() < 6000; cell += 1 + random.nextInt(2)) {
+            if (map.isMountain(cell / size, cell % size)) continue;
+            Game.Movement[] movements = new Game.Movement[random.nextInt(60)];
+            for (int i = 0; i < movements.length; i++) {
+                movements[i] = allMovements[random.nextInt(allMovements.length)];
+            }
+            Adventurer.Orientation orientation = Adventurer.Orientation.values()[random.nextInt(4)];
+            adventurers.add(Triple.of(new Adventurer(orientation, "A" + cell), new Coordinates(cell / size, cell % size), movements));
+        }
+        return adventurers;
+    }
+
+    /**
+     * @return the last checkpoint of the crowded game taken while adventurers are still active, after treasures were
+     * collected
+     */
+    private static GameCheckpoint lastCheckpointWithCollectedTreasures() {
+        Game game = createCrowdedGame(Map.Storage.DENSE);
+        List<GameCheckpoint> checkpoints = new ArrayList<>();
+        game.checkpointEvery(3, checkpoints::add);
+        game.play();
+        GameCheckpoint checkpoint = checkpoints.stream()
+                .filter(candidate -> candidate.activeAdventurers.length > 0)
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        int collected = 0;
+        for (int id = 0; id < checkpoint.collectedTreasures.length; id++) collected += checkpoint.collectedTreasures[id];
+        Assertions.assertTrue(collected > 0);
+        return checkpoint;
+    }
+
+    private static GameCheckpoint withPositions(GameCheckpoint checkpoint, int[] xs, int[] ys) {
+        return new GameCheckpoint(checkpoint.height, checkpoint.width, checkpoint.turns, checkpoint.nextRound,
+                checkpoint.programsHash, checkpoint.mountains, checkpoint.treasures, xs, ys, checkpoint.orientations,
+                checkpoint.collectedTreasures, checkpoint.cursors, checkpoint.readyRounds, checkpoint.forwardLeft,
+                checkpoint.activeAdventurers);
+    }
+
+    private static byte[] toBytes(GameCheckpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        checkpoint.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static List<String> describeTreasures(Map map) {
+        List<String> treasures = new ArrayList<>();
+        map.forEachTreasure((x, y, amount) -> treasures.add("T %d %d %d".formatted(x, y, amount)));
+        return treasures;
+    }
+
+    private static List<String> describe(Game game) {
+        List<String> outcome = new ArrayList<>();
+        game.getMap().forEachTreasure((x, y, amount) -> outcome.add("T %d %d %d".formatted(x, y, amount)));
+        game.getMap().forEachAdventurer((x, y, adventurer) -> outcome.add("A %s %d %d %s %d".formatted(
+                adventurer.getName(), x, y, adventurer.getOrientation(), game.getCollectedTreasures(adventurer))));
+        return outcome;
+    }
+}
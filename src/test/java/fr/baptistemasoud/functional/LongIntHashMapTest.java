@@ -0,0 +1,44 @@
+package fr.baptistemasoud.functional;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntHashMapTest {
+    @Test
+    void get_MissingKey_ReturnsZero() {
+        LongIntHashMap map = new LongIntHashMap(4);
+
+        assertEquals(0, map.get(42));
+    }
+
+    @Test
+    void putGetRemove_RandomOperations_SameAsHashMap() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        java.util.Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) * 1_000_003L;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                int value = 1 + random.nextInt(100);
+                map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertEquals((int) expected.getOrDefault(key * 1_000_003L, 0), map.get(key * 1_000_003L));
+        }
+        java.util.Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
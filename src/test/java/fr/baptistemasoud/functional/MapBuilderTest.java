@@ -1,13 +1,23 @@
 package fr.baptistemasoud.functional;
 
+import com.sun.management.ThreadMXBean;
 import fr.baptistemasoud.functional.exception.DuplicateMountainsOrTreasuresException;
 import fr.baptistemasoud.functional.exception.OutOfBoundsException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
-import java.awt.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -58,31 +68,226 @@ class MapBuilderTest {
         assertThrows(OutOfBoundsException.class, () -> builder.placeTreasure(x, y, 1));
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {-4, 0, 3, 48})
+    void useTileSize_NotPowerOfTwo_ThrowsIllegalArgument(int tileSize) {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5);
+        assertThrows(IllegalArgumentException.class, () -> builder.useTileSize(tileSize));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1 << 13, 1 << 16, 1 << 30})
+    void useTileSize_LargerThanMax_ThrowsIllegalArgument(int tileSize) {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5);
+        assertThrows(IllegalArgumentException.class, () -> builder.useTileSize(tileSize));
+    }
+
     @Test
-    void createMap_MountainsAndTreasuresCoordsNotDistinct_ThrowsDuplicateMountainsOrTreasures() {
+    void useTileSize_Max_CellsWritable() {
+        Map map = new Map.MapBuilder(5, 5)
+                .useStorage(Map.Storage.TILED)
+                .useTileSize(Map.MapBuilder.MAX_TILE_SIZE)
+                .placeMountain(4, 4)
+                .placeTreasure(0, 1, 3)
+                .createMap();
+
+        assertTrue(map.getCell(4, 4).isMountain());
+        assertEquals(3, map.getCell(0, 1).getTreasures());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-2, 0, 1, 6})
+    void useSummaries_NotPowerOfTwoGreaterThanOne_ThrowsIllegalArgument(int baseBlockSize) {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5);
+        assertThrows(IllegalArgumentException.class, () -> builder.useSummaries(baseBlockSize));
+    }
+
+    @Test
+    void placeTreasure_OnPlacedMountain_ThrowsDuplicateMountainsOrTreasures() {
         Map.MapBuilder builder = new Map.MapBuilder(5, 5);
         builder.placeMountain(2, 2);
-        builder.placeTreasure(2, 2, 1);
 
-        assertThrows(DuplicateMountainsOrTreasuresException.class, builder::createMap);
+        assertThrows(DuplicateMountainsOrTreasuresException.class, () -> builder.placeTreasure(2, 2, 1));
     }
 
     @Test
-    void createMap_MountainsCoordsNotDistinct_ThrowsDuplicateMountainsOrTreasures() {
+    void placeMountain_OnPlacedMountain_ThrowsDuplicateMountainsOrTreasures() {
         Map.MapBuilder builder = new Map.MapBuilder(5, 5);
         builder.placeMountain(2, 2);
-        builder.placeMountain(2, 2);
 
-        assertThrows(DuplicateMountainsOrTreasuresException.class, builder::createMap);
+        assertThrows(DuplicateMountainsOrTreasuresException.class, () -> builder.placeMountain(2, 2));
     }
 
     @Test
-    void createMap_TreasuresCoordsNotDistinct_ThrowsDuplicateMountainsOrTreasures() {
+    void placeTreasure_OnPlacedTreasure_ThrowsDuplicateMountainsOrTreasures() {
         Map.MapBuilder builder = new Map.MapBuilder(5, 5);
         builder.placeTreasure(2, 2, 4);
-        builder.placeTreasure(2, 2, 1);
 
-        assertThrows(DuplicateMountainsOrTreasuresException.class, builder::createMap);
+        assertThrows(DuplicateMountainsOrTreasuresException.class, () -> builder.placeTreasure(2, 2, 1));
+    }
+
+    @Test
+    void useStorage_AfterPlacement_ThrowsIllegalState() {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5);
+        builder.placeMountain(2, 2);
+
+        assertThrows(IllegalStateException.class, () -> builder.useStorage(Map.Storage.SPARSE));
+    }
+
+    @Test
+    void createMap_Twice_ThrowsIllegalState() {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5);
+        builder.createMap();
+
+        assertThrows(IllegalStateException.class, builder::createMap);
+    }
+
+    @Test
+    void placeMountains_Arrays_MountainsOnEachCell() {
+        Map map = new Map.MapBuilder(5, 5)
+                .placeMountains(new int[]{0, 2, 4}, new int[]{1, 2, 0})
+                .placeTreasures(new int[]{3}, new int[]{3}, new int[]{7})
+                .createMap();
+
+        assertTrue(map.getCell(0, 1).isMountain());
+        assertTrue(map.getCell(2, 2).isMountain());
+        assertTrue(map.getCell(4, 0).isMountain());
+        assertEquals(7, map.getCell(3, 3).getTreasures());
+        assertTrue(map.getCell(1, 1).isPlain());
+    }
+
+    @Test
+    void placeMountains_OneOutOfBounds_ThrowsOutOfBoundsAndPlacesNothing() {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5);
+
+        assertThrows(OutOfBoundsException.class, () -> builder.placeMountains(new int[]{0, 5}, new int[]{0, 0}));
+        assertTrue(builder.createMap().getCell(0, 0).isPlain());
+    }
+
+    @Test
+    void placeMountains_DifferentLengths_ThrowsIllegalArgument() {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.placeMountains(new int[]{0, 1}, new int[]{0}));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"DENSE", "PRIMITIVE", "SPARSE", "TILED"})
+    void placeMountainRectangle_AnyCorners_MountainsOnRectangleOnly(String storage) {
+        Map map = new Map.MapBuilder(6, 7)
+                .useStorage(Map.Storage.valueOf(storage))
+                .useTileSize(2)
+                .placeMountainRectangle(4, 5, 1, 2)
+                .createMap();
+
+        for (int x = 0; x < 6; x++) {
+            for (int y = 0; y < 7; y++) {
+                assertEquals(x >= 1 && x <= 4 && y >= 2 && y <= 5, map.getCell(x, y).isMountain(), "(%d, %d)".formatted(x, y));
+            }
+        }
+    }
+
+    @Test
+    void placeMountainRectangle_OverPlacedTreasure_ThrowsDuplicateAndPlacesNothing() {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5).placeTreasure(3, 3, 1);
+
+        assertThrows(DuplicateMountainsOrTreasuresException.class, () -> builder.placeMountainRectangle(1, 1, 3, 4));
+        Map map = builder.createMap();
+        assertTrue(map.getCell(1, 1).isPlain());
+        assertTrue(map.getCell(3, 3).hasTreasures());
+    }
+
+    @Test
+    void placeMountainRectangle_RowsAcrossBitsetPages_DetectsDuplicate() {
+        // rows of 2^17 cells, so that rectangles cross the 2^18 cells pages of PlacedCells
+        int width = 1 << 17;
+        Map.MapBuilder builder = new Map.MapBuilder(8, width).useStorage(Map.Storage.PRIMITIVE);
+        builder.placeMountainRectangle(1, width - 70, 2, width - 1);
+        builder.placeMountainRectangle(3, 0, 3, 70);
+
+        assertThrows(DuplicateMountainsOrTreasuresException.class, () -> builder.placeMountainRectangle(2, width - 1, 3, width - 1));
+        assertThrows(DuplicateMountainsOrTreasuresException.class, () -> builder.placeMountain(3, 70));
+        builder.placeMountain(3, 71);
+        builder.placeMountain(1, width - 71);
+    }
+
+    @Test
+    void placeMountains_ScatteredOnLargeSparseMap_AllocatesForPlacedCellsOnly() {
+        // 2^35 cells, a page of bits per placement would take gigabytes
+        int size = 200_000;
+        int count = 100_000;
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = (int) ((long) i * 7919 % size);
+            ys[i] = (int) ((long) i * 104_729 % size);
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+        Map map = new Map.MapBuilder(size, size).useStorage(Map.Storage.SPARSE).placeMountains(xs, ys).createMap();
+
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        assertTrue(allocated < 64L << 20, "%d bytes allocated".formatted(allocated));
+        assertTrue(map.isMountain(xs[count - 1], ys[count - 1]));
+    }
+
+    @Test
+    void placeMountainLine_Diagonal_MountainsOnDiagonal() {
+        Map map = new Map.MapBuilder(5, 5).placeMountainLine(4, 0, 0, 4).createMap();
+
+        for (int x = 0; x < 5; x++) {
+            for (int y = 0; y < 5; y++) {
+                assertEquals(x + y == 4, map.getCell(x, y).isMountain());
+            }
+        }
+    }
+
+    @Test
+    void placeMountainLine_Steep_OneMountainPerRow() {
+        Map map = new Map.MapBuilder(7, 3).placeMountainLine(0, 0, 6, 2).createMap();
+
+        for (int x = 0; x < 7; x++) {
+            int mountains = 0;
+            for (int y = 0; y < 3; y++) if (map.getCell(x, y).isMountain()) mountains++;
+            assertEquals(1, mountains);
+        }
+        assertTrue(map.getCell(0, 0).isMountain());
+        assertTrue(map.getCell(3, 1).isMountain());
+        assertTrue(map.getCell(6, 2).isMountain());
+    }
+
+    @Test
+    void placeMountainLine_CrossingMountain_ThrowsDuplicateAndPlacesNothing() {
+        Map.MapBuilder builder = new Map.MapBuilder(5, 5).placeMountain(2, 2);
+
+        assertThrows(DuplicateMountainsOrTreasuresException.class, () -> builder.placeMountainLine(0, 0, 4, 4));
+        assertTrue(builder.createMap().getCell(1, 1).isPlain());
+    }
+
+    @Test
+    void createMap_PoolOnLargeMap_SameCellsAsSequential() {
+        int size = 1 << 10;
+        Map.MapBuilder builder = new Map.MapBuilder(size, size)
+                .placeMountainRectangle(10, 10, 20, 900)
+                .placeTreasure(1000, 3, 2);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        Map map;
+        try {
+            map = builder.createMap(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                Cell cell = map.getCell(x, y);
+                assertEquals(x >= 10 && x <= 20 && y >= 10 && y <= 900, cell.isMountain());
+                assertEquals(x == 1000 && y == 3 ? 2 : 0, cell.getTreasures());
+            }
+        }
     }
 
     @Test
@@ -106,14 +311,14 @@ class MapBuilderTest {
         // arrange
         int height = 5;
         int width = 10;
-        Point[] mountainsCoords = {new Point(3, 4), new Point(2, 1)};
-        Point[] treasuresCoords = {new Point(1, 1), new Point(4, 1)};
+        Coordinates[] mountainsCoords = {new Coordinates(3, 4), new Coordinates(2, 1)};
+        Coordinates[] treasuresCoords = {new Coordinates(1, 1), new Coordinates(4, 1)};
         Map.MapBuilder builder = new Map.MapBuilder(height, width);
-        for (Point mountainCoords : mountainsCoords) {
-            builder.placeMountain(mountainCoords.x, mountainCoords.y);
+        for (Coordinates mountainCoords : mountainsCoords) {
+            builder.placeMountain(mountainCoords.x(), mountainCoords.y());
         }
-        for (Point treasureCoords : treasuresCoords) {
-            builder.placeTreasure(treasureCoords.x, treasureCoords.y, 1);
+        for (Coordinates treasureCoords : treasuresCoords) {
+            builder.placeTreasure(treasureCoords.x(), treasureCoords.y(), 1);
         }
 
         // act
@@ -126,11 +331,11 @@ class MapBuilderTest {
             for (int y = 0; y < width; y++) {
                 Cell cell = map.getCell(x, y);
 
-                if (Arrays.stream(mountainsCoords).toList().contains(new Point(x, y))) {
+                if (Arrays.stream(mountainsCoords).toList().contains(new Coordinates(x, y))) {
                     assertTrue(cell.isMountain());
                     continue;
                 }
-                if (Arrays.stream(treasuresCoords).toList().contains(new Point(x, y))) {
+                if (Arrays.stream(treasuresCoords).toList().contains(new Coordinates(x, y))) {
                     assertTrue(cell.hasTreasures());
                     continue;
                 }
@@ -138,4 +343,28 @@ class MapBuilderTest {
             }
         }
     }
+
+    @Test
+    void createMap_Recording_CommitsMapBuildEvent() throws IOException {
+        Path file = Files.createTempFile("recording", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(MapBuildEvent.class);
+            recording.start();
+            new Map.MapBuilder(3, 4)
+                    .placeMountain(0, 1)
+                    .placeTreasure(2, 3, 2)
+                    .createMap();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(1, events.size());
+        RecordedEvent event = events.getFirst();
+        assertEquals(3, event.getInt("height"));
+        assertEquals(4, event.getInt("width"));
+        assertEquals(1, event.getLong("mountains"));
+        assertEquals(1, event.getLong("treasures"));
+        Files.delete(file);
+    }
 }
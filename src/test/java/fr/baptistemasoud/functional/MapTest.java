@@ -1,9 +1,16 @@
 package fr.baptistemasoud.functional;
 
+import fr.baptistemasoud.functional.exception.AdventurerOnAdventurerException;
+import fr.baptistemasoud.functional.exception.AdventurerOnMountainException;
+import fr.baptistemasoud.functional.exception.NoTreasureOnCellException;
 import fr.baptistemasoud.functional.exception.OutOfBoundsException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,4 +44,138 @@ class MapTest {
 
         assertThrows(OutOfBoundsException.class, () -> map.getCell(x, y));
     }
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @EnumSource(Map.Storage.class)
+    void getCell_AnyStorage_ReflectsMapContent(Map.Storage storage) {
+        Map map = new Map.MapBuilder(3, 4)
+                .useStorage(storage)
+                .placeMountain(0, 1)
+                .placeTreasure(2, 3, 40000)
+                .createMap();
+
+        assertTrue(map.getCell(0, 1).isMountain());
+        assertEquals(40000, map.getCell(2, 3).getTreasures());
+        assertTrue(map.getCell(1, 1).isPlain());
+
+        map.getCell(2, 3).removeOneTreasure();
+        assertEquals(39999, map.getTreasures(2, 3));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Map.Storage.class)
+    void removeOneTreasure_NoTreasure_ThrowsNoTreasureOnCell(Map.Storage storage) {
+        Map map = new Map.MapBuilder(3, 3).useStorage(storage).createMap();
+
+        assertThrows(NoTreasureOnCellException.class, () -> map.removeOneTreasure(1, 1));
+        assertThrows(NoTreasureOnCellException.class, () -> map.getCell(1, 1).removeOneTreasure());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Map.Storage.class)
+    void placeAdventurer_OnMountainOrAdventurer_Throws(Map.Storage storage) {
+        Map map = new Map.MapBuilder(3, 3).useStorage(storage).placeMountain(0, 0).createMap();
+        map.placeAdventurer(1, 1, new Adventurer(Adventurer.Orientation.NORTH, "Lara"));
+
+        assertThrows(AdventurerOnMountainException.class,
+                () -> map.placeAdventurer(0, 0, new Adventurer(Adventurer.Orientation.NORTH, "Indiana")));
+        assertThrows(AdventurerOnAdventurerException.class,
+                () -> map.getCell(1, 1).placeAdventurer(new Adventurer(Adventurer.Orientation.NORTH, "Indiana")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Map.Storage.class)
+    void moveAdventurer_AnyStorage_MovesAdventurer(Map.Storage storage) {
+        Map map = new Map.MapBuilder(3, 3).useStorage(storage).createMap();
+        Adventurer adventurer = new Adventurer(Adventurer.Orientation.NORTH, "Lara");
+        map.placeAdventurer(1, 1, adventurer);
+
+        map.moveAdventurer(1, 1, 0, 1);
+
+        assertFalse(map.hasAdventurer(1, 1));
+        assertEquals(adventurer, map.getCell(0, 1).getAdventurer());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Map.Storage.class)
+    void forEach_AnyStorage_VisitsRowByRow(Map.Storage storage) {
+        Map map = new Map.MapBuilder(3, 3)
+                .useStorage(storage)
+                .placeMountain(2, 0)
+                .placeMountain(0, 2)
+                .placeTreasure(1, 2, 1)
+                .placeTreasure(1, 0, 2)
+                .createMap();
+        Adventurer lara = new Adventurer(Adventurer.Orientation.NORTH, "Lara");
+        Adventurer indiana = new Adventurer(Adventurer.Orientation.NORTH, "Indiana");
+        map.placeAdventurer(2, 2, lara);
+        map.placeAdventurer(0, 0, indiana);
+
+        List<String> visited = new ArrayList<>();
+        map.forEachMountain((x, y) -> visited.add("M%d%d".formatted(x, y)));
+        map.forEachTreasure((x, y, amount) -> visited.add("T%d%d%d".formatted(x, y, amount)));
+        map.forEachAdventurer((x, y, adventurer) -> visited.add("A%d%d%s".formatted(x, y, adventurer.getName())));
+
+        assertEquals(List.of("M02", "M20", "T102", "T121", "A00Indiana", "A22Lara"), visited);
+    }
+
+    @Test
+    void forEach_TiledStorageSeveralTiles_VisitsRowByRow() {
+        Map map = new Map.MapBuilder(5, 7)
+                .useStorage(Map.Storage.TILED)
+                .useTileSize(2)
+                .placeMountain(4, 6)
+                .placeMountain(1, 5)
+                .placeTreasure(1, 0, 3)
+                .placeTreasure(0, 3, 1)
+                .createMap();
+        Adventurer lara = new Adventurer(Adventurer.Orientation.NORTH, "Lara");
+        map.placeAdventurer(3, 3, lara);
+        map.moveAdventurer(3, 3, 3, 4);
+
+        List<String> visited = new ArrayList<>();
+        map.forEachMountain((x, y) -> visited.add("M%d%d".formatted(x, y)));
+        map.forEachTreasure((x, y, amount) -> visited.add("T%d%d%d".formatted(x, y, amount)));
+        map.forEachAdventurer((x, y, adventurer) -> visited.add("A%d%d%s".formatted(x, y, adventurer.getName())));
+
+        assertEquals(List.of("M15", "M46", "T031", "T103", "A34Lara"), visited);
+        assertTrue(map.getCell(4, 6).isMountain());
+        assertFalse(map.isMountain(2, 2));
+        assertFalse(map.hasTreasures(2, 2));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0, 8, 8", "0, 0, 4, 4", "4, 4, 7, 7", "2, 6, 7, 7", "1, 1, 3, 5", "-3, -3, 20, 20", "1, 1, 6, 6",
+            "1, 0, 7, 5", "0, 3, 7, 4", "3, 3, 6, 7"})
+    void summarize_WithSummariesAfterChanges_SameAsWithout(int fromX, int fromY, int toX, int toY) {
+        Map summarized = createSummaryTestMap(new Map.MapBuilder(7, 7).useSummaries(2));
+        Map plain = createSummaryTestMap(new Map.MapBuilder(7, 7));
+
+        assertEquals(plain.summarize(fromX, fromY, toX, toY), summarized.summarize(fromX, fromY, toX, toY));
+    }
+
+    @Test
+    void summarize_WholeMap_CountsContent() {
+        Map map = createSummaryTestMap(new Map.MapBuilder(7, 7).useSummaries(2));
+
+        assertEquals(new Map.BlockSummary(49, 3, 6, 2), map.summarize(0, 0, 7, 7));
+    }
+
+    private static Map createSummaryTestMap(Map.MapBuilder builder) {
+        Map map = builder
+                .placeMountain(0, 0)
+                .placeMountain(3, 4)
+                .placeMountain(6, 6)
+                .placeTreasure(1, 1, 3)
+                .placeTreasure(5, 2, 4)
+                .createMap();
+        map.placeAdventurer(1, 2, new Adventurer(Adventurer.Orientation.NORTH, "Lara"));
+        map.placeAdventurer(4, 4, new Adventurer(Adventurer.Orientation.NORTH, "Indiana"));
+        map.placeAdventurer(6, 0, new Adventurer(Adventurer.Orientation.NORTH, "Nathan"));
+        map.moveAdventurer(1, 2, 1, 1);
+        map.removeOneTreasure(1, 1);
+        map.moveAdventurer(4, 4, 4, 5);
+        map.removeAdventurer(6, 0);
+        return map;
+    }
+}
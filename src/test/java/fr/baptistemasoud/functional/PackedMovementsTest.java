@@ -0,0 +1,88 @@
+package fr.baptistemasoud.functional;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedMovementsTest {
+
+    @Test
+    void of_MoreMovementsThanAWord_DecodesSameMovements() {
+        Game.Movement[] movements = new Game.Movement[100];
+        Game.Movement[] kinds = {Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, null, Game.Movement.ROTATE_RIGHT};
+        for (int i = 0; i < movements.length; i++) {
+            movements[i] = kinds[i % kinds.length];
+        }
+
+        PackedMovements packed = PackedMovements.of(movements);
+
+        assertEquals(100, packed.size());
+        assertArrayEquals(movements, packed.toArray());
+        assertEquals(Game.Movement.ROTATE_RIGHT, packed.get(99));
+        assertNull(packed.get(98));
+    }
+
+    @Test
+    void ofWords_ToWords_SameMovements() {
+        PackedMovements packed = PackedMovements.of(Game.Movement.ROTATE_LEFT, null, Game.Movement.FORWARD, Game.Movement.ROTATE_RIGHT);
+        long[] words = packed.toWords();
+        // codes beyond the size are ignored
+        words[0] |= -1L << 8;
+
+        assertEquals(packed, PackedMovements.ofWords(words, 4));
+        assertThrows(IllegalArgumentException.class, () -> PackedMovements.ofWords(new long[1], 33));
+    }
+
+    @Test
+    void iterator_DecodesInOrder() {
+        List<Game.Movement> decoded = new ArrayList<>();
+        for (Game.Movement movement : PackedMovements.of(Game.Movement.ROTATE_LEFT, null, Game.Movement.FORWARD)) {
+            decoded.add(movement);
+        }
+
+        assertEquals(Game.Movement.ROTATE_LEFT, decoded.get(0));
+        assertNull(decoded.get(1));
+        assertEquals(Game.Movement.FORWARD, decoded.get(2));
+        assertEquals(3, decoded.size());
+    }
+
+    @Test
+    void build_AddAfterBuild_BuiltMovementsUnchanged() {
+        // a full word, so that the builder has no spare word left
+        PackedMovements.Builder builder = new PackedMovements.Builder(32);
+        for (int i = 0; i < 31; i++) builder.add(Game.Movement.FORWARD);
+        PackedMovements built = builder.build();
+        long[] words = built.toWords();
+        int hash = built.hashCode();
+
+        builder.add(Game.Movement.ROTATE_RIGHT).add(null);
+
+        assertEquals(31, built.size());
+        assertArrayEquals(words, built.toWords());
+        assertEquals(hash, built.hashCode());
+        assertEquals(PackedMovements.ofWords(words, 31), built);
+        assertEquals(33, builder.build().size());
+    }
+
+    @Test
+    void get_OutOfBounds_ThrowsIndexOutOfBounds() {
+        PackedMovements packed = PackedMovements.of(Game.Movement.FORWARD);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> packed.get(1));
+    }
+
+    @Test
+    void equals_BuiltDifferently_Equal() {
+        PackedMovements built = new PackedMovements.Builder(1)
+                .add(Game.Movement.FORWARD)
+                .add(Game.Movement.ROTATE_RIGHT)
+                .build();
+
+        assertEquals(PackedMovements.of(Game.Movement.FORWARD, Game.Movement.ROTATE_RIGHT), built);
+        assertEquals(PackedMovements.of(Game.Movement.FORWARD, Game.Movement.ROTATE_RIGHT).hashCode(), built.hashCode());
+        assertNotEquals(PackedMovements.of(Game.Movement.FORWARD), built);
+    }
+}
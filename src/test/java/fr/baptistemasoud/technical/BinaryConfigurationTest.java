@@ -0,0 +1,80 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.Coordinates;
+import fr.baptistemasoud.technical.exception.ConfigurationFormatException;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryConfigurationTest {
+
+    private static final String CONFIGURATION = """
+            C - 3 - 4
+            M - 2 - 2
+            M - 1 - 1
+            T - 1 - 3 - 3
+            T - 0 - 3 - 2
+            A - Lara - 1 - 1 - S - AADADAGGA
+            A - Léa - 0 - 0 - W - AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAGD
+            A - Indiana - 2 - 2 - N - A
+            """;
+
+    private static ConfigurationReader readBinary(ConfigurationReader text) throws IOException {
+        Path file = Files.createTempFile("configuration", ".bin");
+        try {
+            BinaryConfiguration.write(text.getMapConfiguration(), text.getAdventurersConfigurations(), file);
+            return new ConfigurationReader(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void write_ThenRead_SameConfiguration() throws IOException {
+        ConfigurationReader expected = new ConfigurationReader(new BufferedReader(new StringReader(CONFIGURATION)));
+
+        ConfigurationReader actual = readBinary(expected);
+
+        MapConfiguration expectedMap = expected.getMapConfiguration();
+        MapConfiguration actualMap = actual.getMapConfiguration();
+        assertEquals(expectedMap.width(), actualMap.width());
+        assertEquals(expectedMap.height(), actualMap.height());
+        // sorted row by row
+        assertEquals(List.of(new Coordinates(1, 1), new Coordinates(2, 2)), actualMap.mountainsCoords());
+        assertEquals(List.of(Pair.of(new Coordinates(3, 0), 2), Pair.of(new Coordinates(3, 1), 3)), actualMap.treasuresCoordsAndAmount());
+
+        AdventurerConfiguration[] expectedAdventurers = expected.getAdventurersConfigurations();
+        AdventurerConfiguration[] actualAdventurers = actual.getAdventurersConfigurations();
+        assertEquals(expectedAdventurers.length, actualAdventurers.length);
+        for (int i = 0; i < expectedAdventurers.length; i++) {
+            assertEquals(expectedAdventurers[i].name(), actualAdventurers[i].name());
+            assertEquals(expectedAdventurers[i].orientation(), actualAdventurers[i].orientation());
+            assertEquals(expectedAdventurers[i].coords(), actualAdventurers[i].coords());
+            assertEquals(expectedAdventurers[i].packedMovements(), actualAdventurers[i].packedMovements());
+        }
+    }
+
+    @Test
+    void read_TruncatedFile_ThrowsConfigurationFormat() throws IOException {
+        ConfigurationReader text = new ConfigurationReader(new BufferedReader(new StringReader(CONFIGURATION)));
+        Path file = Files.createTempFile("configuration", ".bin");
+        try {
+            BinaryConfiguration.write(text.getMapConfiguration(), text.getAdventurersConfigurations(), file);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+            assertThrows(ConfigurationFormatException.class, () -> new ConfigurationReader(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
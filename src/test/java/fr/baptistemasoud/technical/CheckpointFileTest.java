@@ -0,0 +1,68 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.Coordinates;
+import fr.baptistemasoud.functional.Game;
+import fr.baptistemasoud.functional.GameCheckpoint;
+import fr.baptistemasoud.functional.Map;
+import org.apache.commons.lang3.tuple.Triple;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointFileTest {
+
+    private static Game createGame() {
+        Map map = new Map.MapBuilder(4, 3).placeMountain(1, 1).placeTreasure(2, 0, 2).createMap();
+        Triple<Adventurer, Coordinates, Game.Movement[]>[] adventurers = new Triple[]{Triple.of(
+                new Adventurer(Adventurer.Orientation.SOUTH, "Lara"),
+                new Coordinates(0, 0),
+                new Game.Movement[]{Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD}
+        )};
+        return new Game(map, adventurers);
+    }
+
+    @Test
+    void accept_ThenClose_FileHoldsLatestCheckpoint() throws IOException {
+        Path directory = Files.createTempDirectory("checkpoint");
+        Path file = directory.resolve("game.checkpoint");
+        try {
+            Game game = createGame();
+            try (CheckpointFile checkpointFile = new CheckpointFile(file)) {
+                game.checkpointEvery(1, checkpointFile);
+                game.play();
+            }
+
+            GameCheckpoint checkpoint = CheckpointFile.read(file);
+            assertEquals(4, checkpoint.turns());
+            assertFalse(Files.exists(directory.resolve("game.checkpoint.tmp")));
+
+            Game resumedGame = createGame();
+            resumedGame.restore(checkpoint);
+            resumedGame.play();
+            Adventurer lara = resumedGame.getMap().getAdventurer(2, 1);
+            assertEquals("Lara", lara.getName());
+            assertEquals(1, resumedGame.getCollectedTreasures(lara));
+            assertEquals(1, resumedGame.getMap().getTreasures(2, 0));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void read_NotACheckpoint_ThrowsIO() throws IOException {
+        Path file = Files.createTempFile("checkpoint", ".bin");
+        try {
+            Files.writeString(file, "C - 3 - 4");
+
+            assertThrows(IOException.class, () -> CheckpointFile.read(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
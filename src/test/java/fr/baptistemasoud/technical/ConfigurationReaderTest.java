@@ -1,5 +1,6 @@
 package fr.baptistemasoud.technical;
 
+import fr.baptistemasoud.functional.Coordinates;
 import fr.baptistemasoud.functional.Game;
 import fr.baptistemasoud.technical.exception.ConfigurationFormatException;
 import org.apache.commons.lang3.tuple.Pair;
@@ -7,10 +8,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
-import java.awt.*;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static fr.baptistemasoud.functional.Adventurer.Orientation;
 import static org.junit.jupiter.api.Assertions.*;
@@ -40,10 +42,10 @@ class ConfigurationReaderTest {
 
         assertEquals(3, mapConfiguration.width());
         assertEquals(4, mapConfiguration.height());
-        assertTrue(mapConfiguration.mountainsCoords().contains(new Point(1, 1)));
-        assertTrue(mapConfiguration.mountainsCoords().contains(new Point(2, 2)));
-        assertTrue(mapConfiguration.treasuresCoordsAndAmount().contains(Pair.of(new Point(3, 0), 2)));
-        assertTrue(mapConfiguration.treasuresCoordsAndAmount().contains(Pair.of(new Point(3, 1), 3)));
+        assertTrue(mapConfiguration.mountainsCoords().contains(new Coordinates(1, 1)));
+        assertTrue(mapConfiguration.mountainsCoords().contains(new Coordinates(2, 2)));
+        assertTrue(mapConfiguration.treasuresCoordsAndAmount().contains(Pair.of(new Coordinates(3, 0), 2)));
+        assertTrue(mapConfiguration.treasuresCoordsAndAmount().contains(Pair.of(new Coordinates(3, 1), 3)));
     }
 
     @Test
@@ -53,7 +55,7 @@ class ConfigurationReaderTest {
         assertEquals(4, adventurersConfigurations.length);
 
         assertEquals("Lara", adventurersConfigurations[0].name());
-        assertEquals(new Point(1, 1), adventurersConfigurations[0].coords());
+        assertEquals(new Coordinates(1, 1), adventurersConfigurations[0].coords());
         assertEquals(Orientation.SOUTH, adventurersConfigurations[0].orientation());
         Game.Movement[] expectedMovements = new Game.Movement[]{
                 Game.Movement.FORWARD,
@@ -69,17 +71,17 @@ class ConfigurationReaderTest {
         assertArrayEquals(expectedMovements, adventurersConfigurations[0].movements());
 
         assertEquals("Indiana", adventurersConfigurations[1].name());
-        assertEquals(new Point(2, 2), adventurersConfigurations[1].coords());
+        assertEquals(new Coordinates(2, 2), adventurersConfigurations[1].coords());
         assertEquals(Orientation.NORTH, adventurersConfigurations[1].orientation());
         assertArrayEquals(expectedMovements, adventurersConfigurations[1].movements());
 
         assertEquals("Oriane", adventurersConfigurations[2].name());
-        assertEquals(new Point(0, 0), adventurersConfigurations[2].coords());
+        assertEquals(new Coordinates(0, 0), adventurersConfigurations[2].coords());
         assertEquals(Orientation.WEST, adventurersConfigurations[2].orientation());
         assertArrayEquals(expectedMovements, adventurersConfigurations[2].movements());
 
         assertEquals("Baptiste", adventurersConfigurations[3].name());
-        assertEquals(new Point(1, 0), adventurersConfigurations[3].coords());
+        assertEquals(new Coordinates(1, 0), adventurersConfigurations[3].coords());
         assertEquals(Orientation.EAST, adventurersConfigurations[3].orientation());
         assertArrayEquals(expectedMovements, adventurersConfigurations[3].movements());
     }
@@ -140,4 +142,134 @@ class ConfigurationReaderTest {
 
         assertThrows(ConfigurationFormatException.class, () -> new ConfigurationReader(bufferedReader));
     }
-}
\ No newline at end of file
+
+    private static ConfigurationReader readMapped(String configuration) throws IOException {
+        Path file = Files.createTempFile("configuration", ".txt");
+        try {
+            Files.writeString(file, configuration);
+            return new ConfigurationReader(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void constructor_MappedFile_SameConfigurationAsLineByLine() throws IOException {
+        String configuration = "# This is a comment\r\n" +
+                "C - 3 - 4\r\n" +
+                "\r\n" +
+                "M - 1 - 1\n" +
+                "M-2-2\r" +
+                "T - 0 - 3 - 2 -\n" +
+                "T - 1 - 3 - +3\n" +
+                "A - Indiana Jones - 2 - 2 - N - AAD ADAGGA\n" +
+                "A - Léa - 0 - 0 - W - A";
+
+        ConfigurationReader expected = new ConfigurationReader(new BufferedReader(new StringReader(configuration)));
+        ConfigurationReader actual = readMapped(configuration);
+
+        MapConfiguration expectedMap = expected.getMapConfiguration();
+        MapConfiguration actualMap = actual.getMapConfiguration();
+        assertEquals(expectedMap.width(), actualMap.width());
+        assertEquals(expectedMap.height(), actualMap.height());
+        assertEquals(expectedMap.mountainsCoords(), actualMap.mountainsCoords());
+        assertEquals(expectedMap.treasuresCoordsAndAmount(), actualMap.treasuresCoordsAndAmount());
+
+        AdventurerConfiguration[] expectedAdventurers = expected.getAdventurersConfigurations();
+        AdventurerConfiguration[] actualAdventurers = actual.getAdventurersConfigurations();
+        assertEquals(2, actualAdventurers.length);
+        for (int i = 0; i < expectedAdventurers.length; i++) {
+            assertEquals(expectedAdventurers[i].name(), actualAdventurers[i].name());
+            assertEquals(expectedAdventurers[i].orientation(), actualAdventurers[i].orientation());
+            assertEquals(expectedAdventurers[i].coords(), actualAdventurers[i].coords());
+            assertArrayEquals(expectedAdventurers[i].movements(), actualAdventurers[i].movements());
+        }
+        assertEquals("IndianaJones", actualAdventurers[0].name());
+        assertEquals("Léa", actualAdventurers[1].name());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "X - 3 - 4",
+            "M - 1 - 1",
+            "C - 3 - 4\nT - 0 - 3",
+            "C - 3 - 4\nM - 1",
+            "C - 3 - 4\nA - Lara - 1 - 1",
+            "C - 3 - 4\nC - 3 - 4",
+            "C - 3",
+            "C - 3 - 4\nA - Lara - 1 - 1 - X - AADADAGGA",
+            "C - 3 - 4\nA - Lara - 1 - 1 - S - AX",
+            "C - 3 - 4\nA - Lara - 1 - 1 - S - Aé",
+            "C - 3 - 4\nM - 1 - x",
+            "C - 3 - 4\nT - 0 - 3 - 99999999999",
+            "C - 3 - 4\nT - 0 - - 2",
+            "É - 3 - 4"
+    })
+    void constructor_MappedFile_SameErrorsAsLineByLine(String configuration) {
+        RuntimeException expected = assertThrows(RuntimeException.class,
+                () -> new ConfigurationReader(new BufferedReader(new StringReader(configuration))));
+        RuntimeException actual = assertThrows(RuntimeException.class, () -> readMapped(configuration));
+
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    void constructor_StreamMovements_SameMovementsAsParsed() throws IOException {
+        Path directory = Files.createTempDirectory("configuration");
+        Path file = directory.resolve("configuration.txt");
+        Path movementsFile = directory.resolve("lara.txt");
+        try {
+            Files.writeString(file, "C - 3 - 4\r\n" +
+                    "A - Indiana - 2 - 2 - N - AAD ADAGGA\r\n" +
+                    "A - Lara - 0 - 0 - W - @lara.txt\n");
+            Files.writeString(movementsFile, "AAGD\nDA A\n");
+
+            AdventurerConfiguration[] parsed = new ConfigurationReader(file).getAdventurersConfigurations();
+            AdventurerConfiguration[] streamed = new ConfigurationReader(file, true).getAdventurersConfigurations();
+
+            Game.Movement[] laraMovements = {Game.Movement.FORWARD, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT,
+                    Game.Movement.ROTATE_RIGHT, Game.Movement.ROTATE_RIGHT, Game.Movement.FORWARD, Game.Movement.FORWARD};
+            assertArrayEquals(laraMovements, parsed[1].movements());
+            assertNull(streamed[0].packedMovements());
+            assertNull(streamed[1].packedMovements());
+            for (int i = 0; i < parsed.length; i++) {
+                assertEquals(parsed[i].name(), streamed[i].name());
+                assertEquals(parsed[i].coords(), streamed[i].coords());
+                assertArrayEquals(parsed[i].movements(), streamed[i].movements());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(movementsFile);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void constructor_StreamMovementsInvalidMovement_ThrowsWhenRead() throws IOException {
+        Path file = Files.createTempFile("configuration", ".txt");
+        try {
+            Files.writeString(file, "C - 3 - 4\nA - Lara - 1 - 1 - S - AX");
+
+            AdventurerConfiguration lara = new ConfigurationReader(file, true).getAdventurersConfigurations()[0];
+
+            ConfigurationFormatException e = assertThrows(ConfigurationFormatException.class, lara::movements);
+            assertEquals("Adventurer movement char cannot be X, it must be either A, D, G", e.getMessage());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void constructor_MissingMovementsFile_ThrowsIO() throws IOException {
+        Path file = Files.createTempFile("configuration", ".txt");
+        try {
+            Files.writeString(file, "C - 3 - 4\nA - Lara - 1 - 1 - S - @missing_movements.txt");
+
+            assertThrows(IOException.class, () -> new ConfigurationReader(file));
+            assertThrows(IOException.class, () -> new ConfigurationReader(file, true));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
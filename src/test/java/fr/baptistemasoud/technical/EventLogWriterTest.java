@@ -0,0 +1,53 @@
+package fr.baptistemasoud.technical;
+
+import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.GameEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLogWriterTest {
+
+    @Test
+    void close_WritesFixedSizeRecords() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EventLogWriter writer = new EventLogWriter(Channels.newChannel(bytes))) {
+            writer.onEvent(GameEvent.MOVED, 3, 1, 2, -1, Adventurer.Orientation.WEST);
+            writer.onEvent(GameEvent.TREASURE_PICKED, 70000, 2, 5, 6, Adventurer.Orientation.NORTH);
+            writer.onRoundPlayed(70000);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(2 * EventLogWriter.RECORD_SIZE, buffer.remaining());
+        assertEquals(GameEvent.MOVED.ordinal(), buffer.get());
+        assertEquals(Adventurer.Orientation.WEST.ordinal(), buffer.get());
+        assertEquals(3, buffer.getInt());
+        assertEquals(1, buffer.getInt());
+        assertEquals(2, buffer.getInt());
+        assertEquals(-1, buffer.getInt());
+        assertEquals(GameEvent.TREASURE_PICKED.ordinal(), buffer.get());
+        assertEquals(Adventurer.Orientation.NORTH.ordinal(), buffer.get());
+        assertEquals(70000, buffer.getInt());
+    }
+
+    @Test
+    void onEvent_MoreThanTheBuffer_WritesAllRecords() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int count = 100_000;
+        try (EventLogWriter writer = new EventLogWriter(Channels.newChannel(bytes))) {
+            for (int i = 0; i < count; i++) {
+                writer.onEvent(GameEvent.ROTATED, i, i, 0, 0, Adventurer.Orientation.EAST);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(count * EventLogWriter.RECORD_SIZE, buffer.remaining());
+        assertEquals(count - 1, buffer.getInt(buffer.limit() - EventLogWriter.RECORD_SIZE + 2));
+    }
+}
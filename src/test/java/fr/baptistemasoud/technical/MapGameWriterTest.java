@@ -1,16 +1,22 @@
 package fr.baptistemasoud.technical;
 
 import fr.baptistemasoud.functional.Adventurer;
+import fr.baptistemasoud.functional.Coordinates;
 import fr.baptistemasoud.functional.Game;
 import fr.baptistemasoud.functional.Map;
 import org.apache.commons.lang3.tuple.Triple;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 
-import java.awt.*;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class MapGameWriterTest {
 
@@ -24,10 +30,10 @@ class MapGameWriterTest {
                 .placeTreasure(3, 1, 3)
                 .createMap();
 
-        Triple<Adventurer, Point, Game.Movement[]>[] adventurersCoordsMovements = new Triple[1];
+        Triple<Adventurer, Coordinates, Game.Movement[]>[] adventurersCoordsMovements = new Triple[1];
         adventurersCoordsMovements[0] = Triple.of(
                 new Adventurer(Adventurer.Orientation.SOUTH, "Lara"),
-                new Point(2, 0),
+                new Coordinates(2, 0),
                 new Game.Movement[]{
                         Game.Movement.FORWARD
                 });
@@ -52,4 +58,97 @@ class MapGameWriterTest {
 
         assertEquals(expected, out.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void writeGameDetails_SameBytesAsPrintGameDetails() throws IOException {
+        Game game = createPlayedGame();
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        MapGameWriter.printGameDetails(game, new PrintStream(printed));
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        MapGameWriter.writeGameDetails(game, Channels.newChannel(written));
+
+        assertArrayEquals(printed.toByteArray(), written.toByteArray());
+    }
+
+    @Test
+    void writeBeautifulMap_SameBytesAsPrintBeautifulMap() throws IOException {
+        Game game = createPlayedGame();
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        MapGameWriter.printBeautifulMap(game.getMap(), new PrintStream(printed));
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        MapGameWriter.writeBeautifulMap(game.getMap(), Channels.newChannel(written));
+
+        assertArrayEquals(printed.toByteArray(), written.toByteArray());
+    }
+
+    @Test
+    void printMapView_ZoomOne_PrintsViewportCells() {
+        Map map = new Map.MapBuilder(4, 5)
+                .placeMountain(1, 1)
+                .placeTreasure(2, 3, 7)
+                .createMap();
+        map.placeAdventurer(2, 2, new Adventurer(Adventurer.Orientation.NORTH, "Lara"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MapGameWriter.printMapView(map, 1, 1, 3, 9, 1, new PrintStream(out));
+
+        String expected = "M . . . \n. L 7 . \n";
+        assertEquals(expected, out.toString());
+    }
+
+    @Test
+    void printMapView_ZoomTwo_PrintsBlocks() {
+        Map map = new Map.MapBuilder(5, 5)
+                .useSummaries(2)
+                .placeMountain(0, 0)
+                .placeMountain(0, 1)
+                .placeMountain(1, 0)
+                .placeMountain(2, 2)
+                .placeTreasure(0, 2, 2)
+                .placeTreasure(1, 3, 1)
+                .placeTreasure(4, 4, 5)
+                .createMap();
+        map.placeAdventurer(3, 0, new Adventurer(Adventurer.Orientation.NORTH, "Lara"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MapGameWriter.printMapView(map, 0, 0, 5, 5, 2, new PrintStream(out));
+
+        String expected = "M 3 . \nA . . \n. . 5 \n";
+        assertEquals(expected, out.toString());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0, 5, 5, 0", "-1, 0, 5, 5, 1", "3, 0, 3, 5, 1", "0, 5, 5, 9, 2"})
+    void printMapView_InvalidViewport_ThrowsIllegalArgument(int fromX, int fromY, int toX, int toY, int zoom) {
+        Map map = new Map.MapBuilder(5, 5).createMap();
+        PrintStream stream = new PrintStream(new ByteArrayOutputStream());
+
+        assertThrows(IllegalArgumentException.class, () -> MapGameWriter.printMapView(map, fromX, fromY, toX, toY, zoom, stream));
+    }
+
+    private static Game createPlayedGame() {
+        Map map = new Map.MapBuilder(12, 1500)
+                .placeMountain(1, 1)
+                .placeMountain(11, 1499)
+                .placeTreasure(3, 0, 2)
+                .placeTreasure(3, 1, 123456789)
+                .placeTreasure(10, 1000, Integer.MAX_VALUE)
+                .createMap();
+
+        Triple<Adventurer, Coordinates, Game.Movement[]>[] adventurersCoordsMovements = new Triple[2];
+        adventurersCoordsMovements[0] = Triple.of(
+                new Adventurer(Adventurer.Orientation.SOUTH, "Lara"),
+                new Coordinates(2, 0),
+                new Game.Movement[]{Game.Movement.FORWARD});
+        adventurersCoordsMovements[1] = Triple.of(
+                new Adventurer(Adventurer.Orientation.WEST, "Éloïse"),
+                new Coordinates(9, 1001),
+                new Game.Movement[]{Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD, Game.Movement.ROTATE_LEFT, Game.Movement.FORWARD});
+
+        Game game = new Game(map, adventurersCoordsMovements);
+        game.play();
+        return game;
+    }
+}
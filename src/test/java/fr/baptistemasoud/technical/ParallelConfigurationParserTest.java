@@ -0,0 +1,86 @@
+package fr.baptistemasoud.technical;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelConfigurationParserTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private final Placements mountains = new Placements();
+    private final Placements treasures = new Placements();
+    private final List<AdventurerConfiguration> adventurers = new ArrayList<>();
+
+    // one chunk per few lines
+    private ParallelConfigurationParser parse(String configuration) {
+        try (Arena arena = Arena.ofShared()) {
+            byte[] bytes = configuration.getBytes(StandardCharsets.UTF_8);
+            MemorySegment segment = arena.allocate(bytes.length);
+            MemorySegment.copy(MemorySegment.ofArray(bytes), 0, segment, 0, bytes.length);
+            ParallelConfigurationParser parser = new ParallelConfigurationParser(segment, POOL, 16);
+            parser.parse(mountains, treasures, adventurers);
+            return parser;
+        }
+    }
+
+    @Test
+    void parse_ManyChunks_SameConfigurationAsLineByLine() throws IOException {
+        StringBuilder configuration = new StringBuilder("# comment\n");
+        for (int i = 0; i < 50; i++) {
+            configuration.append("M - %d - %d\n".formatted(i, i + 1));
+            configuration.append("T - %d - %d - %d\r\n".formatted(i + 1, i, i + 2));
+            configuration.append("A - Adventurer%d - %d - %d - N - AADG\n".formatted(i, i, i));
+            if (i == 25) configuration.append("C - 60 - 70\n");
+        }
+        ConfigurationReader expected = new ConfigurationReader(new BufferedReader(new StringReader(configuration.toString())));
+
+        ParallelConfigurationParser parser = parse(configuration.toString());
+
+        assertTrue(parser.foundDimensions());
+        assertEquals(60, parser.width());
+        assertEquals(70, parser.height());
+        MapConfiguration actual = new MapConfiguration(parser.width(), parser.height(), mountains, treasures);
+        assertEquals(expected.getMapConfiguration().mountainsCoords(), actual.mountainsCoords());
+        assertEquals(expected.getMapConfiguration().treasuresCoordsAndAmount(), actual.treasuresCoordsAndAmount());
+        AdventurerConfiguration[] expectedAdventurers = expected.getAdventurersConfigurations();
+        assertEquals(expectedAdventurers.length, adventurers.size());
+        for (int i = 0; i < expectedAdventurers.length; i++) {
+            assertEquals(expectedAdventurers[i].name(), adventurers.get(i).name());
+            assertEquals(expectedAdventurers[i].coords(), adventurers.get(i).coords());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // second dimensions line in another chunk, before a format error
+            "C - 3 - 4\nM - 1 - 1\nM - 1 - 2\nM - 1 - 3\nC - 3\nM - 1\n",
+            // format error in an earlier chunk than the second dimensions line
+            "C - 3 - 4\nM - 1 - 1\nM - 1\nM - 1 - 3\nM - 2 - 3\nC - 3 - 4\n",
+            // invalid first dimensions line
+            "M - 1 - 1\nM - 1 - 2\nM - 1 - 3\nC - 3\nC - 3 - 4\n",
+            // second dimensions line in the same chunk
+            "M - 1 - 1\nC - 3 - 4\nC - 3 - 4\n",
+            // number format error
+            "C - 3 - 4\nM - 1 - 1\nM - 1 - 2\nT - 1 - x - 3\n"
+    })
+    void parse_InvalidConfiguration_SameErrorAsLineByLine(String configuration) {
+        RuntimeException expected = assertThrows(RuntimeException.class,
+                () -> new ConfigurationReader(new BufferedReader(new StringReader(configuration))));
+        RuntimeException actual = assertThrows(RuntimeException.class, () -> parse(configuration));
+
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+}
@@ -0,0 +1,32 @@
+#!/bin/sh
+# Measure the wall time of runs of Main on the training game, without and with the class data sharing archive.
+# Usage: startup/measure-startup.sh [runs], after "mvn -P cds package"
+project=$(cd "$(dirname "$0")/.." && pwd)
+jar="$project/target/carte-aux-tresors-1.0-SNAPSHOT.jar"
+archive="$project/target/treasure-hunt.jsa"
+input="$project/startup/training-game.txt"
+output=$(mktemp)
+runs=${1:-20}
+
+if [ ! -f "$archive" ]; then
+    echo "Missing $archive, build it with: mvn -P cds package" >&2
+    exit 1
+fi
+
+# prints the mean wall time of the runs of java with the given options, in milliseconds
+measure() {
+    start=$(date +%s%N)
+    i=0
+    while [ "$i" -lt "$runs" ]; do
+        java "$@" -jar "$jar" --input "$input" --output "$output" > /dev/null || exit 1
+        i=$((i + 1))
+    done
+    end=$(date +%s%N)
+    echo $(((end - start) / runs / 1000000))
+}
+
+echo "default:                  $(measure -Xshare:auto) ms"
+echo "C1 only:                  $(measure -XX:TieredStopAtLevel=1) ms"
+echo "application archive:      $(measure -XX:SharedArchiveFile="$archive") ms"
+echo "application archive + C1: $(measure -XX:SharedArchiveFile="$archive" -XX:TieredStopAtLevel=1) ms"
+rm -f "$output"
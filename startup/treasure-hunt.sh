@@ -0,0 +1,12 @@
+#!/bin/sh
+# Run Main from the jar built by "mvn -P cds package", with the class data sharing archive when it was created.
+# Short runs spend most of their time starting the JVM: the archive maps the classes already parsed and verified, and
+# C1 alone compiles the little code a short run needs.
+project=$(cd "$(dirname "$0")/.." && pwd)
+jar="$project/target/carte-aux-tresors-1.0-SNAPSHOT.jar"
+archive="$project/target/treasure-hunt.jsa"
+
+if [ -f "$archive" ]; then
+    exec java -XX:SharedArchiveFile="$archive" -XX:TieredStopAtLevel=1 -jar "$jar" "$@"
+fi
+exec java -XX:TieredStopAtLevel=1 -jar "$jar" "$@"